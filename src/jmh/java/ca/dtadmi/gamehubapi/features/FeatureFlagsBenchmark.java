@@ -0,0 +1,58 @@
+package ca.dtadmi.gamehubapi.features;
+
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating every flag for a signed-in user, with role, email, domain and rollout rules in play
+ * (what {@code GET /api/features} does per request).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FeatureFlagsBenchmark {
+    private FeatureFlagsService flags;
+    private Authentication auth;
+
+    @Setup
+    public void setUp() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("features.chat_enabled.allowRoles", "ROLE_ADMIN,ROLE_USER")
+                .withProperty("features.chat_enabled.allowEmailDomains", "example.com,company.org")
+                .withProperty("features.realtime_enabled.rolloutPercent", "50")
+                .withProperty("features.snake_leaderboard_enabled.allowEmails", "a@example.com,alice@mail.example.com")
+                .withProperty("features.snake_leaderboard_enabled.rolloutPercent", "90")
+                .withProperty("features.antiCheatEnabled", "true")
+                .withProperty("features.snake3dMode", "true")
+                .withProperty("features.breakoutMultiplayerBeta", "true");
+        flags = new FeatureFlagsService(env);
+        UserPrincipal principal = new UserPrincipal(7L, "alice", "alice@mail.example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        auth = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Benchmark
+    public Map<String, Boolean> evaluateAllForUser() {
+        return flags.evaluateAll(auth);
+    }
+}
@@ -0,0 +1,46 @@
+package ca.dtadmi.gamehubapi.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering a typical chat line against the bundled dictionary, with and without a match
+ * (what every chat frame pays on the STOMP thread).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProfanityFilterBenchmark {
+    private static final String CLEAN = "gg everyone, that last round was close! rematch in five minutes?";
+    private static final String DIRTY = "gg everyone, that last round was a sh1tshow, sh1t! rematch in five minutes?";
+    private ProfanityFilter filter;
+
+    @Setup
+    public void setUp() {
+        filter = new ProfanityFilter(new ClassPathResource("profanity/words.txt"));
+    }
+
+    @Benchmark
+    public String clean() {
+        return filter.filter(CLEAN);
+    }
+
+    @Benchmark
+    public String dirty() {
+        return filter.filter(DIRTY);
+    }
+}
@@ -0,0 +1,181 @@
+package ca.dtadmi.gamehubapi.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Shared (L2) cache tier in Redis, plus the pub/sub channel used to tell other nodes to drop
+ * their local (L1) copies.
+ * <p>
+ * Values are stored as Smile (binary JSON) with embedded type ids, restricted to this
+ * application's and JDK types. Keys are {@code cache:<name>:<key>} with a TTL. Redis failures
+ * are logged and treated as a miss so the caller falls back to L1 / the database.
+ */
+public class RedisCacheTier {
+    public static final String INVALIDATION_CHANNEL = "cache:invalidate";
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheTier.class);
+    // Only the invalidation record and the key types we use may be deserialized from the channel
+    private static final ObjectInputFilter INVALIDATION_FILTER = ObjectInputFilter.Config.createFilter(
+            "ca.dtadmi.gamehubapi.cache.RedisCacheTier$Invalidation;java.lang.*;"
+                    + "org.springframework.cache.interceptor.SimpleKey;maxdepth=5;!*");
+
+    private final RedisTemplate<String, byte[]> redis;
+    private final ObjectMapper codec;
+    private final Duration ttl;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisCacheTier(RedisTemplate<String, byte[]> redis, Duration ttl) {
+        this.redis = redis;
+        this.ttl = ttl;
+        this.codec = SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                                .allowIfSubType("ca.dtadmi.gamehubapi.")
+                                .allowIfSubType("java.util.")
+                                .allowIfSubType("java.lang.")
+                                .allowIfSubType("java.time.")
+                                .build(),
+                        ObjectMapper.DefaultTyping.NON_FINAL)
+                .build();
+    }
+
+    public Object get(String cacheName, Object key) {
+        try {
+            byte[] bytes = redis.opsForValue().get(redisKey(cacheName, key));
+            return bytes == null ? null : codec.readValue(bytes, Holder.class).value;
+        } catch (Exception e) {
+            log.debug("L2 cache read failed for {}:{}", cacheName, key, e);
+            return null;
+        }
+    }
+
+    public void put(String cacheName, Object key, Object value) {
+        if (value == null) return;
+        try {
+            redis.opsForValue().set(redisKey(cacheName, key), codec.writeValueAsBytes(new Holder(value)), ttl);
+        } catch (Exception e) {
+            log.debug("L2 cache write failed for {}:{}", cacheName, key, e);
+        }
+    }
+
+    public void evict(String cacheName, Object key) {
+        try {
+            redis.delete(redisKey(cacheName, key));
+        } catch (Exception e) {
+            log.debug("L2 cache evict failed for {}:{}", cacheName, key, e);
+        }
+    }
+
+    public void clear(String cacheName) {
+        String pattern = "cache:" + cacheName + ":*";
+        try {
+            redis.execute((RedisCallback<Void>) connection -> {
+                deleteMatching(connection, pattern);
+                return null;
+            });
+        } catch (Exception e) {
+            log.debug("L2 cache clear failed for {}", cacheName, e);
+        }
+    }
+
+    /**
+     * Ask other nodes to drop {@code key} (or the whole cache when {@code key} is null) from L1.
+     */
+    public void publishInvalidation(String cacheName, Object key) {
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, encode(new Invalidation(nodeId, cacheName, (Serializable) key)));
+        } catch (Exception e) {
+            log.debug("Cache invalidation publish failed for {}:{}", cacheName, key, e);
+        }
+    }
+
+    /**
+     * Decode an invalidation published by another node; returns null for our own messages or garbage.
+     */
+    public Invalidation decodeRemote(byte[] body) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(body))) {
+            in.setObjectInputFilter(INVALIDATION_FILTER);
+            Object o = in.readObject();
+            if (o instanceof Invalidation inv && !nodeId.equals(inv.origin())) {
+                return inv;
+            }
+        } catch (Exception e) {
+            log.debug("Ignoring undecodable cache invalidation message", e);
+        }
+        return null;
+    }
+
+    private byte[] encode(Invalidation invalidation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(invalidation);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void deleteMatching(RedisConnection connection, String pattern) {
+        List<byte[]> batch = new ArrayList<>();
+        try (Cursor<byte[]> cursor = connection.keyCommands()
+                .scan(ScanOptions.scanOptions().match(pattern).count(500).build())) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == 500) {
+                    connection.keyCommands().del(batch.toArray(new byte[0][]));
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            connection.keyCommands().del(batch.toArray(new byte[0][]));
+        }
+    }
+
+    private String redisKey(String cacheName, Object key) {
+        return "cache:" + cacheName + ":" + key;
+    }
+
+    /**
+     * Keys travel Java-serialized so remote nodes evict with the exact key type
+     * (String, Integer, SimpleKey, ...) their L1 uses.
+     */
+    public record Invalidation(String origin, String cacheName, Serializable key) implements Serializable {
+    }
+
+    // Exposed for tests: round-trip a value through the L2 codec
+    Object roundTrip(Object value) throws IOException {
+        return codec.readValue(codec.writeValueAsBytes(new Holder(value)), Holder.class).value;
+    }
+
+    /**
+     * Root wrapper: an Object-typed property always carries a type id, even for final value types.
+     */
+    static final class Holder {
+        public Object value;
+
+        Holder() {
+        }
+
+        Holder(Object value) {
+            this.value = value;
+        }
+    }
+}
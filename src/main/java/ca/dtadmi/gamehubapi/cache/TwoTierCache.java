@@ -0,0 +1,116 @@
+package ca.dtadmi.gamehubapi.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A cache that reads its local Caffeine copy (L1) first, then Redis (L2), then the loader.
+ * Writes and evictions go to both tiers and are broadcast so other nodes drop their L1 copy.
+ * <p>
+ * L1 is resolved from the local manager on every call because loading caches may be
+ * re-registered under the same name after startup.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final CacheManager local;
+    private final RedisCacheTier shared;
+
+    public TwoTierCache(String name, CacheManager local, RedisCacheTier shared) {
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l1().getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Cache l1 = l1();
+        ValueWrapper hit = l1.get(key);
+        if (hit != null) return hit;
+        Object remote = shared.get(name, key);
+        if (remote == null) return null;
+        l1.put(key, remote);
+        return new SimpleValueWrapper(remote);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // L1 provides single-flight per key on this node; only the winner consults Redis / the loader
+        return l1().get(key, () -> {
+            Object remote = shared.get(name, key);
+            if (remote != null) {
+                @SuppressWarnings("unchecked")
+                T typed = (T) remote;
+                return typed;
+            }
+            T value = valueLoader.call();
+            shared.put(name, key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l1().put(key, value);
+        shared.put(name, key, value);
+        shared.publishInvalidation(name, key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        l1().evict(key);
+        shared.evict(name, key);
+        shared.publishInvalidation(name, key);
+    }
+
+    @Override
+    public void clear() {
+        l1().clear();
+        shared.clear(name);
+        shared.publishInvalidation(name, null);
+    }
+
+    /**
+     * Apply an invalidation received from another node: local tier only.
+     */
+    void invalidateLocal(Object key) {
+        Cache l1 = l1();
+        if (key == null) {
+            l1.clear();
+        } else {
+            l1.evict(key);
+        }
+    }
+
+    private Cache l1() {
+        Cache cache = local.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("No local cache named '" + name + "'");
+        }
+        return cache;
+    }
+}
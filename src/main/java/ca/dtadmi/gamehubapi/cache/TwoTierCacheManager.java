@@ -0,0 +1,49 @@
+package ca.dtadmi.gamehubapi.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@link CacheManager} layering Redis (L2) under the local Caffeine manager (L1).
+ * <p>
+ * Cache names are those of the local manager. Subscribed to
+ * {@link RedisCacheTier#INVALIDATION_CHANNEL}, it evicts L1 entries changed on other nodes so
+ * a node never serves its own stale copy for longer than the L1 expiry.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager local;
+    private final RedisCacheTier shared;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager local, RedisCacheTier shared) {
+        this.local = local;
+        this.shared = shared;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) return cache;
+        if (local.getCache(name) == null) return null;
+        return caches.computeIfAbsent(name, n -> new TwoTierCache(n, local, shared));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        RedisCacheTier.Invalidation inv = shared.decodeRemote(message.getBody());
+        if (inv == null || local.getCache(inv.cacheName()) == null) return;
+        ((TwoTierCache) getCache(inv.cacheName())).invalidateLocal(inv.key());
+    }
+}
@@ -2,10 +2,12 @@ package ca.dtadmi.gamehubapi.config;
 
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.security.UserChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -22,7 +24,7 @@ public class AdminRoleSeeder {
     private String adminEmailsCsv;
 
     @Bean
-    ApplicationRunner seedAdmins(UserRepository users) {
+    ApplicationRunner seedAdmins(UserRepository users, ApplicationEventPublisher events) {
         return args -> {
             if (adminEmailsCsv == null || adminEmailsCsv.isBlank()) {
                 return; // nothing to seed
@@ -35,15 +37,16 @@ public class AdminRoleSeeder {
             if (emails.isEmpty()) return;
 
             for (String email : emails) {
-                users.findByEmail(email).ifPresent(u -> ensureAdminRole(users, u));
+                users.findByEmail(email).ifPresent(u -> ensureAdminRole(users, events, u));
             }
         };
     }
 
-    private void ensureAdminRole(UserRepository users, User u) {
+    private void ensureAdminRole(UserRepository users, ApplicationEventPublisher events, User u) {
         if (!u.getRoles().contains("ROLE_ADMIN")) {
             u.getRoles().add("ROLE_ADMIN");
             users.save(u);
+            events.publishEvent(new UserChangedEvent(u.getId()));
             log.info("Granted ROLE_ADMIN to {}", u.getEmail());
         }
     }
@@ -1,37 +1,97 @@
 package ca.dtadmi.gamehubapi.config;
 
+import ca.dtadmi.gamehubapi.cache.RedisCacheTier;
+import ca.dtadmi.gamehubapi.cache.TwoTierCacheManager;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import org.springframework.cache.CacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    @Value("${app.cache.refreshAfterWrite:5s}")
+    private Duration refreshAfterWrite;
+
+    @Value("${app.cache.expireAfterWrite:30s}")
+    private Duration expireAfterWrite;
+
+    @Value("${app.cache.loaderThreads:4}")
+    private int loaderThreads;
+
     @Bean
     public Caffeine<Object, Object> caffeineConfig() {
         // Keep leaderboard snapshots very fresh to balance UX and correctness
         return Caffeine.newBuilder()
                 .expireAfterWrite(10, TimeUnit.SECONDS)
-                .maximumSize(10_000);
+                .maximumSize(10_000)
+                .recordStats();
     }
 
     @Bean
-    public CacheManager cacheManager(Caffeine<Object, Object> caffeine) {
+    public CaffeineCacheManager cacheManager(Caffeine<Object, Object> caffeine) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setCaffeine(caffeine);
-        // Explicit cache names improve clarity and avoid accidental cache creation
+        // Explicit cache names improve clarity and avoid accidental cache creation.
+        // Hot read caches ("leaderboard", "userScores", "gameStats", "userStats", "lb_snake_global")
+        // are registered by their owning services through LoadingCacheRegistry.
         cacheManager.setCacheNames(java.util.List.of(
-                "leaderboard",
-                "userScores",
-                "featuredGames",
-                "lb_snake_global"
+                "featuredGames"
         ));
         return cacheManager;
     }
+
+    @Bean
+    public LoadingCacheRegistry loadingCacheRegistry(CaffeineCacheManager cacheManager,
+                                                     MeterRegistry meterRegistry,
+                                                     ObjectProvider<RedisCacheTier> redisCacheTier) {
+        return new LoadingCacheRegistry(cacheManager, meterRegistry,
+                refreshAfterWrite, expireAfterWrite, 10_000, loaderThreads, redisCacheTier.getIfAvailable());
+    }
+
+    // --- Optional shared tier: Caffeine (L1) in front of Redis (L2), invalidated over pub/sub ---
+
+    @Bean
+    @ConditionalOnProperty(name = "features.cache.redis_enabled", havingValue = "true", matchIfMissing = false)
+    public RedisCacheTier redisCacheTier(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.afterPropertiesSet();
+        // L2 entries live as long as the local ones; refreshes keep rewriting them
+        return new RedisCacheTier(template, expireAfterWrite);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "features.cache.redis_enabled", havingValue = "true", matchIfMissing = false)
+    public TwoTierCacheManager twoTierCacheManager(CaffeineCacheManager cacheManager, RedisCacheTier redisCacheTier) {
+        return new TwoTierCacheManager(cacheManager, redisCacheTier);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "features.cache.redis_enabled", havingValue = "true", matchIfMissing = false)
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoTierCacheManager twoTierCacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(twoTierCacheManager, new ChannelTopic(RedisCacheTier.INVALIDATION_CHANNEL));
+        return container;
+    }
 }
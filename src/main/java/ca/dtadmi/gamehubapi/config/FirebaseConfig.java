@@ -1,5 +1,7 @@
 package ca.dtadmi.gamehubapi.config;
 
+import ca.dtadmi.gamehubapi.security.FirebasePublicKeys;
+import ca.dtadmi.gamehubapi.security.FirebaseTokenVerifier;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
@@ -19,6 +21,7 @@ import org.springframework.context.annotation.Profile;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -113,6 +116,19 @@ public class FirebaseConfig {
         return serviceAccount;
     }
 
+    @Bean
+    @ConditionalOnExpression("T(org.springframework.util.StringUtils).hasText('${firebase.projectId:}')")
+    public FirebasePublicKeys firebasePublicKeys(@Value("${app.firebase.jwksUri}") URI jwksUri) {
+        return new FirebasePublicKeys(jwksUri);
+    }
+
+    @Bean
+    @ConditionalOnBean(FirebasePublicKeys.class)
+    public FirebaseTokenVerifier firebaseTokenVerifier(FirebasePublicKeys keys,
+                                                       @Value("${app.firebase.tokenCache.maxSize:10000}") long maxSize) {
+        return new FirebaseTokenVerifier(projectId, keys, maxSize);
+    }
+
     @Bean
     @ConditionalOnBean(FirebaseApp.class)
     public FirebaseAuth firebaseAuth() throws IOException {
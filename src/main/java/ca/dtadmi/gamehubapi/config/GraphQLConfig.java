@@ -1,16 +1,97 @@
 package ca.dtadmi.gamehubapi.config;
 
+import ca.dtadmi.gamehubapi.graphql.QueryCostInstrumentation;
+import ca.dtadmi.gamehubapi.graphql.persisted.PersistedDocumentCache;
+import ca.dtadmi.gamehubapi.graphql.persisted.PersistedQueryDocumentProvider;
+import ca.dtadmi.gamehubapi.graphql.persisted.PersistedQueryRequestFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.analysis.MaxQueryDepthInstrumentation;
 import graphql.scalars.ExtendedScalars;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.Filter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 public class GraphQLConfig {
 
+    @Value("${app.graphql.maxQueryCost:5000}")
+    private int maxQueryCost;
+
+    @Value("${app.graphql.maxQueryDepth:10}")
+    private int maxQueryDepth;
+
+    @Value("${app.graphql.defaultListSize:10}")
+    private int defaultListSize;
+
+    @Value("${app.graphql.persistedQueries.cacheSize:1000}")
+    private long persistedQueryCacheSize;
+
+    @Value("${app.graphql.persistedQueries.allowList:classpath*:graphql/persisted/*.graphql}")
+    private String persistedQueryAllowList;
+
+    @Value("${app.graphql.persistedQueries.allowListOnly:false}")
+    private boolean persistedQueryAllowListOnly;
+
+    @Value("${spring.graphql.path:/graphql}")
+    private String graphqlPath;
+
     @Bean
     public RuntimeWiringConfigurer runtimeWiringConfigurer() {
         return wiringBuilder -> wiringBuilder
                 .scalar(ExtendedScalars.Json);
     }
+
+    // Both checks run before execution; Spring GraphQL chains every Instrumentation bean
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation() {
+        return new MaxQueryDepthInstrumentation(maxQueryDepth);
+    }
+
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(MeterRegistry meterRegistry) {
+        return new QueryCostInstrumentation(maxQueryCost, defaultListSize, meterRegistry);
+    }
+
+    // Parsed + validated documents are reused by SHA-256 of the query text (automatic persisted queries)
+    @Bean
+    public PersistedDocumentCache persistedDocumentCache(MeterRegistry meterRegistry) throws IOException {
+        return new PersistedDocumentCache(persistedQueryCacheSize, loadAllowList(),
+                persistedQueryAllowListOnly, meterRegistry);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueriesCustomizer(PersistedDocumentCache persistedDocumentCache) {
+        PersistedQueryDocumentProvider provider = new PersistedQueryDocumentProvider(persistedDocumentCache);
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(provider));
+    }
+
+    @Bean
+    public FilterRegistrationBean<Filter> persistedQueryRequestFilter(ObjectMapper objectMapper) {
+        FilterRegistrationBean<Filter> bean = new FilterRegistrationBean<>();
+        bean.setFilter(new PersistedQueryRequestFilter(objectMapper, graphqlPath));
+        bean.addUrlPatterns(graphqlPath);
+        return bean;
+    }
+
+    // Each allow-listed operation is one file; clients hash the exact file content
+    private Map<String, String> loadAllowList() throws IOException {
+        Map<String, String> operations = new HashMap<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(persistedQueryAllowList)) {
+            String query = resource.getContentAsString(StandardCharsets.UTF_8);
+            operations.put(PersistedQueryDocumentProvider.sha256Hex(query), query);
+        }
+        return operations;
+    }
 }
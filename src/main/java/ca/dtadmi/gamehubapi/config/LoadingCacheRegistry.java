@@ -0,0 +1,141 @@
+package ca.dtadmi.gamehubapi.config;
+
+import ca.dtadmi.gamehubapi.cache.RedisCacheTier;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Builds self-loading Caffeine caches for hot read paths and registers them with the
+ * {@link CaffeineCacheManager} under the names their {@code @Cacheable} methods already use.
+ * <p>
+ * Compared to the manager's default caches:
+ * - concurrent misses for the same key share a single in-flight load;
+ * - entries older than {@code refreshAfterWrite} keep being served while one background reload runs;
+ * - hit/miss/load-time statistics are published to Micrometer.
+ * <p>
+ * The loader handed to {@link #register} must compute the same value as the {@code @Cacheable}
+ * method(s) backed by the cache, since it is what refreshes their entries.
+ * <p>
+ * When a shared {@link RedisCacheTier} is configured, misses are served from Redis before the
+ * loader runs, and every load or refresh writes its result through to Redis.
+ * <p>
+ * Refreshes run the loader with reads pinned to the primary
+ * ({@link ReplicaRoutingDataSource#onPrimary}), so a refresh after a write sees that write.
+ */
+public class LoadingCacheRegistry implements DisposableBean {
+
+    private final CaffeineCacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final Duration refreshAfterWrite;
+    private final Duration expireAfterWrite;
+    private final long maximumSize;
+    private final ExecutorService loaderExecutor;
+    private final RedisCacheTier shared;
+
+    public LoadingCacheRegistry(CaffeineCacheManager cacheManager,
+                                MeterRegistry meterRegistry,
+                                Duration refreshAfterWrite,
+                                Duration expireAfterWrite,
+                                long maximumSize,
+                                int loaderThreads) {
+        this(cacheManager, meterRegistry, refreshAfterWrite, expireAfterWrite, maximumSize, loaderThreads, null);
+    }
+
+    public LoadingCacheRegistry(CaffeineCacheManager cacheManager,
+                                MeterRegistry meterRegistry,
+                                Duration refreshAfterWrite,
+                                Duration expireAfterWrite,
+                                long maximumSize,
+                                int loaderThreads,
+                                RedisCacheTier shared) {
+        this.cacheManager = cacheManager;
+        this.shared = shared;
+        this.meterRegistry = meterRegistry;
+        this.refreshAfterWrite = refreshAfterWrite;
+        this.expireAfterWrite = expireAfterWrite;
+        this.maximumSize = maximumSize;
+        // Loads hit the database; keep them off the common ForkJoin pool
+        AtomicInteger n = new AtomicInteger();
+        this.loaderExecutor = Executors.newFixedThreadPool(Math.max(1, loaderThreads), r -> {
+            Thread t = new Thread(r, "cache-loader-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Register (or replace) the cache {@code name} with one that loads missing and stale keys via {@code loader}.
+     */
+    public Cache register(String name, Function<Object, Object> loader) {
+        AsyncLoadingCache<Object, Object> cache = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfterWrite)
+                .expireAfterWrite(expireAfterWrite)
+                .maximumSize(maximumSize)
+                .executor(loaderExecutor)
+                .recordStats()
+                .buildAsync(cacheLoader(name, loader));
+        cacheManager.registerCustomCache(name, cache);
+        // Same tags as Spring Boot's cache metrics so both bindings resolve to the same meters
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name, "cacheManager", "cacheManager");
+        return cacheManager.getCache(name);
+    }
+
+    /**
+     * Reload {@code key} in the background if it is currently cached; readers keep getting the
+     * previous value until the reload completes. Absent keys are left to load on next read.
+     */
+    public void refreshIfPresent(String name, Object key) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null && cache.getNativeCache() instanceof LoadingCache<?, ?> loading) {
+            @SuppressWarnings("unchecked")
+            LoadingCache<Object, Object> typed = (LoadingCache<Object, Object>) loading;
+            if (typed.asMap().containsKey(key)) {
+                typed.refresh(key).thenRun(() -> {
+                    // Other nodes drop their L1 copy and pick up the refreshed value from Redis
+                    if (shared != null) shared.publishInvalidation(name, key);
+                });
+            }
+        }
+    }
+
+    private CacheLoader<Object, Object> cacheLoader(String name, Function<Object, Object> loader) {
+        return new CacheLoader<>() {
+            @Override
+            public Object load(Object key) {
+                Object remote = shared != null ? shared.get(name, key) : null;
+                if (remote != null) return remote;
+                Object value = loader.apply(key);
+                if (shared != null) shared.put(name, key, value);
+                return value;
+            }
+
+            @Override
+            public Object reload(Object key, Object oldValue) {
+                // A refresh replaces a value that a write (refreshIfPresent) or age made stale; a lagging
+                // replica could hand back that same value, so read the primary. Redis would just return
+                // our own stale copy, so it is skipped too.
+                Object value = ReplicaRoutingDataSource.onPrimary(() -> loader.apply(key));
+                if (shared != null) shared.put(name, key, value);
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+        loaderExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,82 @@
+package ca.dtadmi.gamehubapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read/write splitting: when {@code app.datasource.replica.enabled=true}, the application
+ * DataSource routes read-only transactions (including Spring Data's read methods, which are
+ * read-only by default) to a replica pool and everything else to the primary pool.
+ * <p>
+ * Both pools are built here instead of by Boot so each gets its own name, and so its Hikari
+ * metrics are tagged {@code pool=primary|replica}. Injection points that ask for a plain
+ * {@link DataSource} get the {@link Primary} routing proxy.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public HikariDataSource primaryPool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        // Keep honouring spring.datasource.hikari.* for the primary
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean
+    public HikariDataSource replicaPool(DataSourceProperties properties,
+                                        @Value("${app.datasource.replica.url}") String url,
+                                        @Value("${app.datasource.replica.username:}") String username,
+                                        @Value("${app.datasource.replica.password:}") String password,
+                                        @Value("${app.datasource.replica.maximumPoolSize:10}") int maximumPoolSize) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isBlank() ? properties.determineUsername() : username)
+                .password(password.isBlank() ? properties.determinePassword() : password)
+                .build();
+        pool.setPoolName("replica");
+        pool.setReadOnly(true);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        // Start even if the replica is down; the lag monitor keeps it out of rotation meanwhile
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaPool") DataSource replicaPool,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${app.datasource.replica.maxLag:5s}") Duration maxLag,
+                                               @Value("${app.datasource.replica.checkInterval:5s}") Duration checkInterval) {
+        return new ReplicaLagMonitor(replicaPool, maxLag, checkInterval, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryPool") DataSource primaryPool,
+                                 @Qualifier("replicaPool") DataSource replicaPool,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        // The lazy proxy defers the physical connection until the transaction's read-only flag is known
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryPool, replicaPool, replicaLagMonitor, meterRegistry));
+    }
+}
@@ -0,0 +1,100 @@
+package ca.dtadmi.gamehubapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically measures how far the replica's replay lags behind the primary and decides
+ * whether read-only traffic may use it. The replica is taken out of rotation while it lags more
+ * than {@code maxLag}, cannot be reached, or has just failed to hand out a connection, and
+ * rejoins on the next successful probe.
+ */
+public class ReplicaLagMonitor implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    // A replica that has replayed everything it received is current even when the primary is idle
+    static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final ScheduledExecutorService scheduler;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this(replica, maxLag, checkInterval, meterRegistry, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-monitor");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    ReplicaLagMonitor(DataSource replica, Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry,
+                      ScheduledExecutorService scheduler) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.scheduler = scheduler;
+        Gauge.builder("db.replica.lag", this, m -> m.lagSeconds)
+                .description("Replica replay lag in seconds (NaN when unreachable)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("db.replica.available", this, m -> m.available ? 1 : 0)
+                .description("1 while read-only traffic is routed to the replica")
+                .register(meterRegistry);
+        long intervalMs = Math.max(100, checkInterval.toMillis());
+        scheduler.scheduleWithFixedDelay(this::probe, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Take the replica out of rotation until the next successful probe.
+     */
+    public void markUnavailable(Exception cause) {
+        if (available) {
+            log.warn("Replica unavailable, routing reads to primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    void probe() {
+        try (Connection con = replica.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery(LAG_QUERY)) {
+            rs.next();
+            update(rs.getDouble(1));
+        } catch (Exception e) {
+            lagSeconds = Double.NaN;
+            markUnavailable(e);
+        }
+    }
+
+    void update(double lag) {
+        lagSeconds = lag;
+        boolean current = lag <= maxLag.toMillis() / 1000.0;
+        if (current != available) {
+            log.info(current ? "Replica back in rotation (lag {}s)" : "Replica lagging {}s, routing reads to primary", lag);
+        }
+        available = current;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,97 @@
+package ca.dtadmi.gamehubapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary. Must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for a connection before it publishes the read-only flag, so the
+ * physical connection has to be chosen at the first statement.
+ * <p>
+ * Reads fall back to the primary whenever the {@link ReplicaLagMonitor} reports the replica
+ * behind or unreachable, or the replica fails to hand out a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor monitor;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+        this.primaryConnections = routed(meterRegistry, "primary");
+        this.replicaConnections = routed(meterRegistry, "replica");
+        this.fallbacks = routed(meterRegistry, "fallback");
+    }
+
+    /**
+     * Run {@code work} with every read on the primary, for callers that must see a write
+     * they just committed (replicas may not have replayed it yet).
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) PRIMARY_ONLY.remove();
+            else PRIMARY_ONLY.set(previous);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!wantsReplica()) {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+        if (!monitor.isAvailable()) {
+            fallbacks.increment();
+            return primary.getConnection();
+        }
+        try {
+            Connection con = replica.getConnection();
+            replicaConnections.increment();
+            return con;
+        } catch (SQLException e) {
+            monitor.markUnavailable(e);
+            fallbacks.increment();
+            return primary.getConnection();
+        }
+    }
+
+    static boolean isPrimaryOnly() {
+        return PRIMARY_ONLY.get() != null;
+    }
+
+    private static boolean wantsReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !isPrimaryOnly();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private static Counter routed(MeterRegistry registry, String target) {
+        return Counter.builder("db.routing.connections")
+                .description("Connections handed out by the read/write router")
+                .tag("target", target)
+                .register(registry);
+    }
+}
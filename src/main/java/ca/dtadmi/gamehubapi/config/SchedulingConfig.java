@@ -0,0 +1,18 @@
+package ca.dtadmi.gamehubapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs {@code @Scheduled} jobs (partition maintenance, outbox relay, token purge). Disable with
+ * {@code app.scheduling.enabled=false}, e.g. on nodes that should not run housekeeping.
+ * <p>
+ * Jobs that predate this config were never scheduled; they stay off until configured (see
+ * {@code app.sessions.cleanupCron}).
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,21 +1,48 @@
 package ca.dtadmi.gamehubapi.config;
 
+import ca.dtadmi.gamehubapi.interceptor.SessionQuota;
 import ca.dtadmi.gamehubapi.interceptor.StompRateLimitInterceptor;
+import ca.dtadmi.gamehubapi.security.RedisRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.messaging.support.ChannelInterceptor;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 public class StompInterceptorsConfig {
 
     @Bean
     @ConditionalOnProperty(name = "features.kv.redis_enabled", havingValue = "true", matchIfMissing = false)
     @Qualifier("stompRateLimiterInterceptor")
-    public ChannelInterceptor stompRateLimiterInterceptor(StringRedisTemplate redis, Environment env) {
-        return new StompRateLimitInterceptor(redis, env);
+    public ChannelInterceptor stompRateLimiterInterceptor(StringRedisTemplate redis, Environment env,
+                                                          MeterRegistry meterRegistry) {
+        boolean failOpen = env.getProperty("app.ratelimit.failOpen", Boolean.class, true);
+        int userPerMin = env.getProperty("stomp.ratelimit.user.perMinute", Integer.class, 300);
+        int guestPerMin = env.getProperty("stomp.ratelimit.guest.perMinute", Integer.class, 120);
+        Map<String, Integer> costs = Binder.get(env)
+                .bind("stomp.ratelimit.costs", Bindable.mapOf(String.class, Integer.class))
+                .map(LinkedHashMap::new)
+                .orElseGet(LinkedHashMap::new);
+        SessionQuota.Settings sessionQuota = env.getProperty("stomp.ratelimit.session.enabled", Boolean.class, true)
+                ? new SessionQuota.Settings(
+                        env.getProperty("stomp.ratelimit.session.burst", Integer.class, 30),
+                        env.getProperty("stomp.ratelimit.session.perSecond", Integer.class, 10),
+                        env.getProperty("stomp.ratelimit.session.leaseChunk", Integer.class, 20),
+                        env.getProperty("stomp.ratelimit.session.leaseTtl", Duration.class, Duration.ofSeconds(10)))
+                : null;
+        return new StompRateLimitInterceptor(
+                new RedisRateLimiter(redis, "rl:stomp:user:", userPerMin, Duration.ofMinutes(1), failOpen, meterRegistry),
+                new RedisRateLimiter(redis, "rl:stomp:guest:", guestPerMin, Duration.ofMinutes(1), failOpen, meterRegistry),
+                costs, sessionQuota);
     }
 }
@@ -2,6 +2,8 @@ package ca.dtadmi.gamehubapi.config;
 
 import ca.dtadmi.gamehubapi.security.CustomUserDetailsService;
 import ca.dtadmi.gamehubapi.security.JwtTokenProvider;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -104,13 +106,14 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
                         String token = authHeader.substring(7);
                         try {
-                            if (tokenProvider.validateToken(token)) {
-                                String username = tokenProvider.getUsernameFromJWT(token);
-                                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                                Authentication authentication = new UsernamePasswordAuthenticationToken(
-                                        userDetails, null, userDetails.getAuthorities());
-                                accessor.setUser(authentication);
+                            Claims claims = tokenProvider.parse(token);
+                            UserDetails userDetails = UserPrincipal.fromClaims(claims);
+                            if (userDetails == null) {
+                                userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
                             }
+                            Authentication authentication = new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities());
+                            accessor.setUser(authentication);
                         } catch (Exception ignored) {
                         }
                     }
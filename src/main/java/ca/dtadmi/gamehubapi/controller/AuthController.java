@@ -91,7 +91,7 @@ public class AuthController {
             if (userOpt.isEmpty()) {
                 return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
             }
-            accessToken = tokenProvider.generateTokenForSubject(userOpt.get().getEmail());
+            accessToken = tokenProvider.generateTokenForUser(userOpt.get());
 
             // Issue refresh token
             RefreshToken rt = refreshTokenService.issue(userOpt.get());
@@ -138,7 +138,7 @@ public class AuthController {
         // Auto login: issue tokens using a proper principal
         UserDetails ud = userDetailsService.loadUserByUsername(user.getEmail());
         Authentication authentication = new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
-        String accessToken = tokenProvider.generateTokenForSubject(user.getEmail());
+        String accessToken = tokenProvider.generateTokenForUser(user);
         RefreshToken rt = refreshTokenService.issue(user);
 
         Map<String, Object> response = new HashMap<>();
@@ -158,15 +158,13 @@ public class AuthController {
         if (token == null || token.isBlank()) {
             return ResponseEntity.badRequest().body(Map.of("error", "refreshToken required"));
         }
-        Optional<RefreshToken> valid = refreshTokenService.findValid(token);
-        if (valid.isEmpty()) {
+        Optional<RefreshToken> next = refreshTokenService.rotate(token);
+        if (next.isEmpty()) {
             return ResponseEntity.status(401).body(Map.of("error", "invalid or expired refresh token"));
         }
-        RefreshToken rotated = refreshTokenService.rotate(valid.get());
+        RefreshToken rotated = next.get();
         User user = rotated.getUser();
-        UserDetails ud = userDetailsService.loadUserByUsername(user.getEmail());
-        Authentication auth = new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
-        String newAccess = tokenProvider.generateTokenForSubject(user.getEmail());
+        String newAccess = tokenProvider.generateTokenForUser(user);
 
         Map<String, Object> response = new HashMap<>();
         response.put("accessToken", newAccess);
@@ -226,7 +224,7 @@ public class AuthController {
                 user = userRepository.save(user);
             }
 
-            String accessToken = tokenProvider.generateTokenForSubject(user.getEmail());
+            String accessToken = tokenProvider.generateTokenForUser(user);
             RefreshToken rt = refreshTokenService.issue(user);
 
             Map<String, Object> response = new HashMap<>();
@@ -1,6 +1,6 @@
 package ca.dtadmi.gamehubapi.controller;
 
-import ca.dtadmi.gamehubapi.model.GameScore;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.service.GameService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -19,7 +19,7 @@ public class LeaderboardController {
     private final GameService gameService;
 
     @GetMapping
-    public ResponseEntity<List<GameScore>> leaderboard(
+    public ResponseEntity<List<LeaderboardRowDto>> leaderboard(
             @RequestParam String gameType,
             @RequestParam(required = false) Integer limit
     ) {
@@ -1,6 +1,7 @@
 // src/main/java/ca/dtadmi/gamehubapi/controller/ScoreController.java
 package ca.dtadmi.gamehubapi.controller;
 
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
@@ -91,8 +92,8 @@ public class ScoreController {
     }
 
     @GetMapping("/leaderboard")
-    public ResponseEntity<Map<String, List<GameScore>>> getLeaderboard() {
-        Map<String, List<GameScore>> leaderboard = gameService.getLeaderboard();
+    public ResponseEntity<Map<String, List<LeaderboardRowDto>>> getLeaderboard() {
+        Map<String, List<LeaderboardRowDto>> leaderboard = gameService.getLeaderboard();
         return ResponseEntity.ok(leaderboard);
     }
 
@@ -0,0 +1,65 @@
+package ca.dtadmi.gamehubapi.controller;
+
+import ca.dtadmi.gamehubapi.service.ScoreExportService;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/admin/scores")
+public class ScoreExportController {
+
+    private final ScoreExportService exportService;
+    private final Duration timeout;
+
+    public ScoreExportController(ScoreExportService exportService,
+                                 @Value("${app.export.timeout:30m}") Duration timeout) {
+        this.exportService = exportService;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Streams every matching score as NDJSON (default) or CSV, optionally gzip-compressed.
+     * {@code since} is an ISO local date-time, e.g. {@code 2024-05-01T00:00:00}.
+     * <p>
+     * The export runs on the async path with its own {@code app.export.timeout}; other async
+     * requests keep the container default.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public WebAsyncTask<Void> export(
+            @RequestParam(required = false) String gameType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) {
+        Format fmt = Format.parse(format);
+        if (fmt == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+        String filename = "scores." + (fmt == Format.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip"
+                : fmt == Format.CSV ? "text/csv;charset=UTF-8"
+                : "application/x-ndjson");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            exportService.export(gameType, since, fmt, gzip, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+}
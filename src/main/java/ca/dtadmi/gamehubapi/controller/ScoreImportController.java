@@ -0,0 +1,50 @@
+package ca.dtadmi.gamehubapi.controller;
+
+import ca.dtadmi.gamehubapi.dto.ScoreImportStatusDto;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import ca.dtadmi.gamehubapi.service.ScoreImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping("/api/admin/scores")
+@RequiredArgsConstructor
+public class ScoreImportController {
+
+    private final ScoreImportService importService;
+
+    /**
+     * Imports a streamed NDJSON (default) or CSV upload, optionally gzip-compressed, in the
+     * export endpoint's format. Returns once the import has committed.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ScoreImportStatusDto> importScores(
+            InputStream body,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) throws IOException {
+        Format fmt = Format.parse(format);
+        if (fmt == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(importService.importScores(gzip ? new GZIPInputStream(body, 64 * 1024) : body, fmt));
+    }
+
+    // Running and recently finished imports, newest first
+    @GetMapping("/imports")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ScoreImportStatusDto>> imports() {
+        return ResponseEntity.ok(importService.recentImports());
+    }
+}
@@ -1,10 +1,11 @@
 package ca.dtadmi.gamehubapi.controller;
 
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
 import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Entry;
 import ca.dtadmi.gamehubapi.service.LeaderboardService;
 import ca.dtadmi.gamehubapi.service.RunIdService;
+import org.springframework.cache.Cache;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,10 +24,14 @@ public class SnakeRestController {
 
     private final RunIdService runIdService;
     private final LeaderboardService leaderboardService;
+    private final Cache topCache;
 
-    public SnakeRestController(RunIdService runIdService, LeaderboardService leaderboardService) {
+    public SnakeRestController(RunIdService runIdService, LeaderboardService leaderboardService,
+                               LoadingCacheRegistry loadingCaches) {
         this.runIdService = runIdService;
         this.leaderboardService = leaderboardService;
+        // Keyed by the clamped limit; concurrent misses share one Redis read
+        this.topCache = loadingCaches.register("lb_snake_global", key -> leaderboardService.topN(SCOPE, (Integer) key));
     }
 
     /**
@@ -45,10 +50,10 @@ public class SnakeRestController {
      * Get a snapshot of the leaderboard. Cached for a few seconds via Caffeine.
      */
     @GetMapping("/leaderboard")
-    @Cacheable(value = "lb_snake_global", key = "#limit")
+    @SuppressWarnings("unchecked")
     public ResponseEntity<Map<String, Object>> leaderboard(@RequestParam(defaultValue = "10") int limit) {
         int safeLimit = Math.max(1, Math.min(50, limit));
-        List<Entry> top = leaderboardService.topN(SCOPE, safeLimit);
+        List<Entry> top = topCache.get(safeLimit, List.class);
         Map<String, Object> body = new HashMap<>();
         body.put("scope", SCOPE);
         body.put("top", top);
@@ -11,7 +11,15 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class LeaderboardEntryDto {
     private int rank;
-    private User user;
+    // The GraphQL "user" field is batch-loaded from these (see FieldResolvers)
+    private Long userId;
+    private String username;
     private int score;
     private GameType gameType;
+    // Optional: set by producers that already loaded the users (live updates)
+    private User user;
+
+    public LeaderboardEntryDto(int rank, Long userId, String username, int score, GameType gameType) {
+        this(rank, userId, username, score, gameType, null);
+    }
 }
@@ -0,0 +1,22 @@
+package ca.dtadmi.gamehubapi.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One leaderboard line, projected straight from the game_scores/users join so reads never
+ * materialize {@code GameScore}/{@code User} entities (and never expose credentials).
+ * <p>
+ * Queries cannot know the rank of a row in isolation; they create rows with rank 0 and
+ * callers number them with {@link #withRank(int)} from the page offset.
+ */
+public record LeaderboardRowDto(int rank, Long userId, String username, int score, LocalDateTime createdAt) {
+
+    // JPQL constructor expression target
+    public LeaderboardRowDto(Long userId, String username, int score, LocalDateTime createdAt) {
+        this(0, userId, username, score, createdAt);
+    }
+
+    public LeaderboardRowDto withRank(int rank) {
+        return rank == this.rank ? this : new LeaderboardRowDto(rank, userId, username, score, createdAt);
+    }
+}
@@ -0,0 +1,20 @@
+package ca.dtadmi.gamehubapi.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one bulk score import. Rows are read, then either staged or rejected
+ * (malformed, failing validation, or naming an unknown user); staged rows are merged into
+ * game_scores in one step at the end.
+ */
+public record ScoreImportStatusDto(String id,
+                                   String state,
+                                   LocalDateTime startedAt,
+                                   long rowsRead,
+                                   long rowsStaged,
+                                   long rowsRejected,
+                                   long unknownUsers,
+                                   long rowsMerged,
+                                   double rowsPerSecond,
+                                   String error) {
+}
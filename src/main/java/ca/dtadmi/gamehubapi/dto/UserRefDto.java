@@ -0,0 +1,7 @@
+package ca.dtadmi.gamehubapi.dto;
+
+/**
+ * Id/username pair for bulk username resolution without loading {@code User} entities.
+ */
+public record UserRefDto(Long id, String username) {
+}
@@ -0,0 +1,7 @@
+package ca.dtadmi.gamehubapi.dto;
+
+/**
+ * Per-user score totals across all games, aggregated in one grouped query for a batch of users.
+ */
+public record UserTotalsDto(Long userId, long totalGames, long totalScore) {
+}
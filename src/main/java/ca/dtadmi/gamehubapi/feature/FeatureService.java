@@ -1,5 +1,8 @@
 package ca.dtadmi.gamehubapi.feature;
 
+import ca.dtadmi.gamehubapi.features.FeatureFlagStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
@@ -11,17 +14,30 @@ import java.util.Map;
  * Central place to evaluate feature flags by merging application.yml values
  * with an in-memory overlay that can be changed at runtime (e.g., from admin UI).
  * <p>
- * Note: This keeps state in-memory only. For persistence across restarts, back it
- * with a database table (e.g., key/value) and load it on startup.
+ * With a {@link FeatureFlagStore} the overlay is persisted under the scope "overlay" and
+ * replaced whenever any node changes it; without one it is kept in memory only.
  */
 @Service
 public class FeatureService {
+    static final String STORE_SCOPE = "overlay";
 
     private final Environment env;
+    private final FeatureFlagStore store;
     private final Map<String, Object> overlay = Collections.synchronizedMap(new HashMap<>());
 
     public FeatureService(Environment env) {
+        this(env, (FeatureFlagStore) null);
+    }
+
+    @Autowired
+    public FeatureService(Environment env, ObjectProvider<FeatureFlagStore> store) {
+        this(env, store.getIfAvailable());
+    }
+
+    FeatureService(Environment env, FeatureFlagStore store) {
         this.env = env;
+        this.store = store;
+        if (store != null) store.subscribe(s -> applyStored(s.scope(STORE_SCOPE)));
     }
 
     public Map<String, Object> listAll() {
@@ -46,10 +62,25 @@ public class FeatureService {
     }
 
     public Map<String, Object> upsert(String key, Object value) {
-        overlay.put(key, value);
+        if (store != null) {
+            store.put(STORE_SCOPE, key, String.valueOf(value));
+        } else {
+            overlay.put(key, value);
+        }
         return listAll();
     }
 
+    private void applyStored(Map<String, String> stored) {
+        synchronized (overlay) {
+            overlay.clear();
+            stored.forEach((key, value) -> overlay.put(key, switch (value) {
+                case "true" -> Boolean.TRUE;
+                case "false" -> Boolean.FALSE;
+                default -> value;
+            }));
+        }
+    }
+
     public boolean isEnabled(String key, boolean def) {
         // Check overlay first
         Object v;
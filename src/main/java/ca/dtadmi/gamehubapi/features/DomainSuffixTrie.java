@@ -0,0 +1,75 @@
+package ca.dtadmi.gamehubapi.features;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Set of email domains matched by suffix: {@code example.com} matches {@code example.com} and
+ * any subdomain such as {@code mail.example.com}, case-insensitively.
+ * <p>
+ * Domains are stored reversed, one character per node, so a lookup walks the address from its
+ * end and allocates nothing.
+ */
+final class DomainSuffixTrie {
+    static final DomainSuffixTrie EMPTY = new DomainSuffixTrie(new Node());
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        boolean terminal;
+
+        Node child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node n = child(c);
+            if (n != null) return n;
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            return children[children.length - 1] = new Node();
+        }
+    }
+
+    private final Node root;
+
+    private DomainSuffixTrie(Node root) {
+        this.root = root;
+    }
+
+    static DomainSuffixTrie of(Collection<String> domains) {
+        if (domains.isEmpty()) return EMPTY;
+        Node root = new Node();
+        for (String domain : domains) {
+            String d = domain.toLowerCase(Locale.ROOT);
+            Node n = root;
+            for (int i = d.length() - 1; i >= 0; i--) {
+                n = n.addChild(d.charAt(i));
+            }
+            n.terminal = true;
+        }
+        return new DomainSuffixTrie(root);
+    }
+
+    boolean isEmpty() {
+        return root.keys.length == 0;
+    }
+
+    /**
+     * Whether the domain {@code s[from..]} (e.g. the part of an email after '@') is in the set.
+     */
+    boolean matches(String s, int from) {
+        Node n = root;
+        for (int i = s.length() - 1; i >= from; i--) {
+            n = n.child(Character.toLowerCase(s.charAt(i)));
+            if (n == null) return false;
+            if (n.terminal && (i == from || s.charAt(i - 1) == '.')) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,212 @@
+package ca.dtadmi.gamehubapi.features;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Feature flag overrides persisted in the {@code feature_flags} table and cached on every node.
+ * <p>
+ * Each node holds the whole table as an immutable {@link Snapshot}; flag checks never touch the
+ * database. A write bumps the row's version and sends {@code NOTIFY feature_flags}. Every node
+ * keeps one pooled connection on {@code LISTEN feature_flags} and reloads on any notification, so a
+ * change reaches the cluster within a second. Missed notifications (e.g. while reconnecting) and
+ * changes made by hand are caught every {@code pollInterval} by comparing the table's fingerprint
+ * (row count and sum of versions) with the snapshot's.
+ * <p>
+ * Versions come from a sequence when a row is written, not when it commits, so the highest
+ * version alone cannot tell whether a snapshot is current: a write holding a lower version can
+ * commit after a higher one, and deletes lower it. The fingerprint changes in both cases.
+ */
+@Component
+@ConditionalOnProperty(name = "app.features.store.enabled", havingValue = "true", matchIfMissing = true)
+public class FeatureFlagStore implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(FeatureFlagStore.class);
+
+    static final String CHANNEL = "feature_flags";
+    private static final String UPSERT = """
+            INSERT INTO feature_flags (scope, flag_key, value) VALUES (?, ?, ?)
+            ON CONFLICT (scope, flag_key) DO UPDATE
+            SET value = EXCLUDED.value, version = nextval('feature_flags_version_seq'), updated_at = now()
+            RETURNING version
+            """;
+    private static final String LOAD = "SELECT scope, flag_key, value, version FROM feature_flags";
+    private static final String FINGERPRINT = "SELECT count(*), coalesce(sum(version), 0) FROM feature_flags";
+
+    /**
+     * Stored values by scope and key. {@code rows} and {@code versionSum} fingerprint the rows
+     * they were loaded from: every write raises a row's version, and inserts and deletes change
+     * the count.
+     */
+    public record Snapshot(long rows, long versionSum, Map<String, Map<String, String>> scopes) {
+        static final Snapshot EMPTY = new Snapshot(0, 0, Map.of());
+
+        public Map<String, String> scope(String name) {
+            return scopes.getOrDefault(name, Map.of());
+        }
+
+        boolean matches(long rows, long versionSum) {
+            return this.rows == rows && this.versionSum == versionSum;
+        }
+    }
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+    private final Duration pollInterval;
+    private final Duration reconnectDelay;
+    private final List<Consumer<Snapshot>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile Snapshot current = Snapshot.EMPTY;
+    private volatile boolean running;
+    private Thread listener;
+
+    public FeatureFlagStore(JdbcTemplate jdbc,
+                            DataSource dataSource,
+                            @Value("${app.features.store.pollInterval:30s}") Duration pollInterval,
+                            @Value("${app.features.store.reconnectDelay:5s}") Duration reconnectDelay) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.pollInterval = pollInterval;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    public Snapshot current() {
+        return current;
+    }
+
+    /**
+     * Calls {@code subscriber} with the current snapshot now and with every changed one later.
+     */
+    public void subscribe(Consumer<Snapshot> subscriber) {
+        subscribers.add(subscriber);
+        subscriber.accept(current);
+    }
+
+    /**
+     * Stores a value and tells the other nodes; this node has applied it when the call returns.
+     */
+    public void put(String scope, String key, String value) {
+        Long version = jdbc.queryForObject(UPSERT, Long.class, scope, key, value);
+        // Sent after the upsert has committed, so listeners always read the new row
+        jdbc.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, String.valueOf(version));
+        refresh();
+    }
+
+    /**
+     * Reloads the table and publishes it if it differs from the cached snapshot.
+     */
+    synchronized void refresh() {
+        Map<String, Map<String, String>> scopes = new HashMap<>();
+        long[] fingerprint = {0, 0};
+        jdbc.query(LOAD, rs -> {
+            scopes.computeIfAbsent(rs.getString(1), s -> new HashMap<>()).put(rs.getString(2), rs.getString(3));
+            fingerprint[0]++;
+            fingerprint[1] += rs.getLong(4);
+        });
+        if (current.matches(fingerprint[0], fingerprint[1])) return;
+        Map<String, Map<String, String>> frozen = new HashMap<>();
+        scopes.forEach((scope, values) -> frozen.put(scope, Map.copyOf(values)));
+        Snapshot next = new Snapshot(fingerprint[0], fingerprint[1], Map.copyOf(frozen));
+        current = next;
+        for (Consumer<Snapshot> subscriber : subscribers) {
+            try {
+                subscriber.accept(next);
+            } catch (RuntimeException e) {
+                log.warn("Feature flag subscriber failed on a snapshot of {} rows", next.rows(), e);
+            }
+        }
+    }
+
+    /**
+     * Reloads when the stored rows no longer match the cached snapshot.
+     */
+    void poll() {
+        long[] stored = jdbc.queryForObject(FINGERPRINT, (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        if (stored != null && !current.matches(stored[0], stored[1])) refresh();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not load feature flags, using defaults until the store is reachable: {}", e.getMessage());
+        }
+        listener = new Thread(this::listen, "feature-flags-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            try {
+                // getNotifications returns at least once a second
+                listener.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start ahead of the web server so the first requests already see stored overrides
+        return 0;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection con = dataSource.getConnection()) {
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = con.unwrap(PGConnection.class);
+                // Catch up on anything written while this node was not listening
+                refresh();
+                long nextPoll = System.nanoTime() + pollInterval.toNanos();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    // The payload (the writer's version) says nothing about what else committed since
+                    if (notifications != null && notifications.length > 0) refresh();
+                    if (System.nanoTime() - nextPoll >= 0) {
+                        poll();
+                        nextPoll = System.nanoTime() + pollInterval.toNanos();
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) return;
+                log.warn("Feature flag listener lost its connection, retrying in {}: {}", reconnectDelay, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
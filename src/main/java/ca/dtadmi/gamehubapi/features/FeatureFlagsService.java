@@ -1,14 +1,11 @@
 package ca.dtadmi.gamehubapi.features;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -16,42 +13,63 @@ import java.util.concurrent.ConcurrentHashMap;
  * Lightweight feature flags service.
  * Defaults come from environment; values can be toggled at runtime (dev only) via admin endpoint.
  * This is an interim step; can be swapped to OpenFeature provider later without changing call sites.
+ * <p>
+ * Defaults, overrides and segmentation rules are compiled into an immutable {@link FlagSnapshot}
+ * that is replaced as a whole on {@link #toggle} or {@link #reload}, so evaluation never reads the
+ * environment and readers always see one consistent rule set.
+ * <p>
+ * With a {@link FeatureFlagStore}, toggles are written to the database and the overrides follow
+ * the stored scope {@value #STORE_SCOPE}, so every node applies them and they survive restarts.
  */
 @Service
 public class FeatureFlagsService {
+    static final String STORE_SCOPE = "flag";
+
+    // Flag -> property holding its default, and the default when that is unset
+    private static final Map<String, Map.Entry<String, Boolean>> DEFAULTS;
+
+    static {
+        Map<String, Map.Entry<String, Boolean>> d = new LinkedHashMap<>();
+        d.put("realtime_enabled", Map.entry("features.realtimeEnabled", true));
+        d.put("chat_enabled", Map.entry("features.chatEnabled", true));
+        d.put("snake_leaderboard_enabled", Map.entry("features.snakeLeaderboardEnabled", true));
+        d.put("anti_cheat_enabled", Map.entry("features.antiCheatEnabled", false));
+        d.put("snake_3d_mode", Map.entry("features.snake3dMode", false));
+        d.put("breakout_multiplayer_beta", Map.entry("features.breakoutMultiplayerBeta", false));
+        DEFAULTS = Collections.unmodifiableMap(d);
+    }
 
     private final ConcurrentHashMap<String, Boolean> overrides = new ConcurrentHashMap<>();
     private final Environment env;
-
-    @Value("${features.realtimeEnabled:true}")
-    private boolean realtimeDefault;
-    @Value("${features.chatEnabled:true}")
-    private boolean chatDefault;
-    @Value("${features.snakeLeaderboardEnabled:true}")
-    private boolean snakeLeaderboardDefault;
-    @Value("${features.antiCheatEnabled:false}")
-    private boolean antiCheatDefault;
-    @Value("${features.snake3dMode:false}")
-    private boolean snake3dDefault;
-    @Value("${features.breakoutMultiplayerBeta:false}")
-    private boolean breakoutBetaDefault;
+    private final FeatureFlagStore store;
+    private volatile FlagSnapshot snapshot;
 
     public FeatureFlagsService(Environment env) {
+        this(env, (FeatureFlagStore) null);
+    }
+
+    @Autowired
+    public FeatureFlagsService(Environment env, ObjectProvider<FeatureFlagStore> store) {
+        this(env, store.getIfAvailable());
+    }
+
+    FeatureFlagsService(Environment env, FeatureFlagStore store) {
         this.env = env;
+        this.store = store;
+        reload();
+        if (store != null) store.subscribe(s -> applyStored(s.scope(STORE_SCOPE)));
     }
 
     public boolean isEnabled(String flag) {
-        Boolean o = overrides.get(flag);
-        if (o != null) return o;
-        return defaultFor(flag);
+        return snapshot.isEnabled(flag);
     }
 
+    /**
+     * @return the state of every {@linkplain #knownFlags() known flag}; overrides for other keys
+     * are not listed
+     */
     public Map<String, Boolean> evaluateAll() {
-        Map<String, Boolean> base = new LinkedHashMap<>();
-        for (String f : knownFlags()) {
-            base.put(f, isEnabled(f));
-        }
-        return base;
+        return snapshot.evaluateAll();
     }
 
     /**
@@ -64,116 +82,47 @@ public class FeatureFlagsService {
      * - features.chat_enabled.rolloutPercent=25
      */
     public Map<String, Boolean> evaluateAll(Authentication auth) {
-        Map<String, Boolean> res = new LinkedHashMap<>();
-        for (String f : knownFlags()) {
-            res.put(f, isEnabledFor(f, auth));
-        }
-        return res;
+        return snapshot.evaluateAll(auth);
     }
 
     public boolean isEnabledFor(String flag, Authentication auth) {
-        boolean base = isEnabled(flag);
-        if (!base) return false;
-
-        // Segments
-        Set<String> allowRoles = csvToSet(env.getProperty("features." + flag + ".allowRoles", ""));
-        Set<String> allowEmails = csvToSet(env.getProperty("features." + flag + ".allowEmails", ""));
-        Set<String> allowDomains = csvToSet(env.getProperty("features." + flag + ".allowEmailDomains", ""));
-
-        String email = null;
-        Set<String> roles = Collections.emptySet();
-        if (auth != null && auth.isAuthenticated()) {
-            // Try to resolve email from principal types we use
-            Object principal = auth.getPrincipal();
-            if (principal instanceof ca.dtadmi.gamehubapi.security.UserPrincipal up && up.getEmail() != null) {
-                email = up.getEmail();
-            } else if (principal instanceof org.springframework.security.core.userdetails.UserDetails ud) {
-                email = ud.getUsername();
-            } else if (principal instanceof String s) {
-                email = s;
-            }
-            Set<String> r = new HashSet<>();
-            for (GrantedAuthority ga : auth.getAuthorities()) {
-                r.add(ga.getAuthority());
-            }
-            roles = r;
-        }
-
-        if (!allowRoles.isEmpty() && roles.stream().noneMatch(allowRoles::contains)) {
-            return false;
-        }
-        if (!allowEmails.isEmpty() && (email == null || !allowEmails.contains(email))) {
-            return false;
-        }
-        if (!allowDomains.isEmpty()) {
-            boolean domainOk = false;
-            if (email != null && email.contains("@")) {
-                String dom = email.substring(email.indexOf('@') + 1).toLowerCase(Locale.ROOT);
-                domainOk = allowDomains.stream().anyMatch(d -> dom.equalsIgnoreCase(d) || dom.endsWith("." + d));
-            }
-            if (!domainOk) return false;
-        }
-
-        // Percentage rollout (0..100)
-        int percent = env.getProperty("features." + flag + ".rolloutPercent", Integer.class, 100);
-        percent = Math.max(0, Math.min(100, percent));
-        if (percent >= 100) return true;
-        if (percent <= 0) return false;
-
-        String key = (email != null && !email.isBlank()) ? email : "guest";
-        int bucket = stableBucket(key);
-        return bucket < percent;
+        return snapshot.isEnabledFor(flag, auth);
     }
 
     public void toggle(String flag, boolean enable) {
+        if (store != null) {
+            store.put(STORE_SCOPE, flag, Boolean.toString(enable));
+            return;
+        }
         overrides.put(flag, enable);
+        reload();
     }
 
-    private boolean defaultFor(String flag) {
-        return switch (flag) {
-            case "realtime_enabled" -> realtimeDefault;
-            case "chat_enabled" -> chatDefault;
-            case "snake_leaderboard_enabled" -> snakeLeaderboardDefault;
-            case "anti_cheat_enabled" -> antiCheatDefault;
-            case "snake_3d_mode" -> snake3dDefault;
-            case "breakout_multiplayer_beta" -> breakoutBetaDefault;
-            default -> false;
-        };
+    private synchronized void applyStored(Map<String, String> stored) {
+        overrides.clear();
+        stored.forEach((flag, value) -> overrides.put(flag, Boolean.parseBoolean(value)));
+        reload();
     }
 
-    public Set<String> knownFlags() {
-        return Set.of(
-                "realtime_enabled",
-                "chat_enabled",
-                "snake_leaderboard_enabled",
-                "anti_cheat_enabled",
-                "snake_3d_mode",
-                "breakout_multiplayer_beta"
-        );
+    /**
+     * Recompile the rules from the environment and current overrides, e.g. after the
+     * configuration changed.
+     */
+    public synchronized void reload() {
+        Set<String> names = new LinkedHashSet<>(DEFAULTS.keySet());
+        names.addAll(overrides.keySet());
+        // Overrides stay checkable by name, but only the known flags are listed publicly
+        snapshot = FlagSnapshot.compile(names, DEFAULTS.keySet(), this::baseValue, env);
     }
 
-    private Set<String> csvToSet(String csv) {
-        if (csv == null || csv.isBlank()) return Collections.emptySet();
-        String[] parts = csv.split(",");
-        Set<String> set = new HashSet<>();
-        for (String p : parts) {
-            String s = p.trim();
-            if (!s.isEmpty()) set.add(s);
-        }
-        return set;
+    private boolean baseValue(String flag) {
+        Boolean o = overrides.get(flag);
+        if (o != null) return o;
+        Map.Entry<String, Boolean> d = DEFAULTS.get(flag);
+        return d != null && env.getProperty(d.getKey(), Boolean.class, d.getValue());
     }
 
-    private int stableBucket(String key) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(key.getBytes(StandardCharsets.UTF_8));
-            // use first two bytes for a 0..65535 int, then scale to 0..99
-            int v = ((hash[0] & 0xFF) << 8) | (hash[1] & 0xFF);
-            return (int) Math.floor((v / 65535.0) * 100);
-        } catch (NoSuchAlgorithmException e) {
-            // Fallback: simple hashCode
-            int v = Math.abs(key.hashCode());
-            return v % 100;
-        }
+    public Set<String> knownFlags() {
+        return DEFAULTS.keySet();
     }
 }
@@ -0,0 +1,175 @@
+package ca.dtadmi.gamehubapi.features;
+
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import org.springframework.core.env.Environment;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Flag rules compiled once from the environment into an immutable form: segment lists become
+ * sets, allowed domains a {@link DomainSuffixTrie}, rollout an integer threshold. Evaluation reads
+ * no configuration and parses nothing; when rules or overrides change a new snapshot replaces
+ * this one.
+ * <p>
+ * Every compiled flag can be checked by name, but only the listed ones are returned by
+ * {@code evaluateAll}, so stray override keys don't show up in public responses.
+ */
+final class FlagSnapshot {
+
+    record Flag(String name, boolean enabled, Set<String> roles, Set<String> emails,
+                DomainSuffixTrie domains, int rolloutPercent) {
+
+        boolean needsBucket() {
+            return rolloutPercent > 0 && rolloutPercent < 100;
+        }
+    }
+
+    private final Flag[] flags;
+    private final Map<String, Flag> byName;
+    private final boolean anyRollout;
+
+    private FlagSnapshot(List<Flag> compiled, Set<String> listed) {
+        Map<String, Flag> map = new HashMap<>();
+        List<Flag> shown = new ArrayList<>(listed.size());
+        boolean rollout = false;
+        for (Flag f : compiled) {
+            map.put(f.name(), f);
+            if (!listed.contains(f.name())) continue;
+            shown.add(f);
+            rollout |= f.enabled() && f.needsBucket();
+        }
+        this.flags = shown.toArray(Flag[]::new);
+        this.byName = Map.copyOf(map);
+        this.anyRollout = rollout;
+    }
+
+    /**
+     * @param names   flags to compile, in evaluation order
+     * @param listed  flags {@code evaluateAll} returns; the others can only be checked by name
+     * @param enabled base on/off state of a flag (defaults with overrides applied)
+     */
+    static FlagSnapshot compile(Collection<String> names, Set<String> listed, Predicate<String> enabled,
+                                Environment env) {
+        List<Flag> flags = new ArrayList<>(names.size());
+        for (String name : names) {
+            String prefix = "features." + name + ".";
+            int percent = env.getProperty(prefix + "rolloutPercent", Integer.class, 100);
+            flags.add(new Flag(name, enabled.test(name),
+                    csvToSet(env.getProperty(prefix + "allowRoles", "")),
+                    csvToSet(env.getProperty(prefix + "allowEmails", "")),
+                    DomainSuffixTrie.of(csvToSet(env.getProperty(prefix + "allowEmailDomains", ""))),
+                    Math.max(0, Math.min(100, percent))));
+        }
+        return new FlagSnapshot(flags, listed);
+    }
+
+    boolean isEnabled(String flag) {
+        Flag f = byName.get(flag);
+        return f != null && f.enabled();
+    }
+
+    Map<String, Boolean> evaluateAll() {
+        Map<String, Boolean> res = new LinkedHashMap<>(flags.length * 2);
+        for (Flag f : flags) {
+            res.put(f.name(), f.enabled());
+        }
+        return res;
+    }
+
+    boolean isEnabledFor(String flag, Authentication auth) {
+        Flag f = byName.get(flag);
+        if (f == null || !f.enabled()) return false;
+        String email = email(auth);
+        return matches(f, email, authorities(auth), f.needsBucket() ? bucket(email) : 0);
+    }
+
+    Map<String, Boolean> evaluateAll(Authentication auth) {
+        String email = email(auth);
+        Collection<? extends GrantedAuthority> authorities = authorities(auth);
+        // Same bucket for every flag, so compute it at most once
+        int bucket = anyRollout ? bucket(email) : 0;
+        Map<String, Boolean> res = new LinkedHashMap<>(flags.length * 2);
+        for (Flag f : flags) {
+            res.put(f.name(), f.enabled() && matches(f, email, authorities, bucket));
+        }
+        return res;
+    }
+
+    private static boolean matches(Flag f, String email, Collection<? extends GrantedAuthority> authorities, int bucket) {
+        if (!f.roles().isEmpty() && !hasAnyRole(authorities, f.roles())) {
+            return false;
+        }
+        if (!f.emails().isEmpty() && (email == null || !f.emails().contains(email))) {
+            return false;
+        }
+        if (!f.domains().isEmpty()) {
+            int at = email != null ? email.indexOf('@') : -1;
+            if (at < 0 || !f.domains().matches(email, at + 1)) return false;
+        }
+        if (f.rolloutPercent() >= 100) return true;
+        if (f.rolloutPercent() <= 0) return false;
+        return bucket < f.rolloutPercent();
+    }
+
+    private static boolean hasAnyRole(Collection<? extends GrantedAuthority> authorities, Set<String> roles) {
+        for (GrantedAuthority ga : authorities) {
+            if (roles.contains(ga.getAuthority())) return true;
+        }
+        return false;
+    }
+
+    private static String email(Authentication auth) {
+        if (auth == null || !auth.isAuthenticated()) return null;
+        // Try to resolve email from principal types we use
+        Object principal = auth.getPrincipal();
+        if (principal instanceof UserPrincipal up && up.getEmail() != null) {
+            return up.getEmail();
+        } else if (principal instanceof UserDetails ud) {
+            return ud.getUsername();
+        } else if (principal instanceof String s) {
+            return s;
+        }
+        return null;
+    }
+
+    private static Collection<? extends GrantedAuthority> authorities(Authentication auth) {
+        return auth != null && auth.isAuthenticated() ? auth.getAuthorities() : Collections.emptyList();
+    }
+
+    /**
+     * Rollout bucket 0..99 of a user: a stable, well-mixed hash of the email ("guest" when
+     * anonymous). {@link String#hashCode()} is specified and cached, and the murmur3 finalizer
+     * spreads near-identical addresses across buckets.
+     */
+    static int bucket(String email) {
+        int h = (email != null && !email.isBlank() ? email : "guest").hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Integer.remainderUnsigned(h, 100);
+    }
+
+    private static Set<String> csvToSet(String csv) {
+        if (csv == null || csv.isBlank()) return Set.of();
+        Set<String> set = new HashSet<>();
+        for (String p : csv.split(",")) {
+            String s = p.trim();
+            if (!s.isEmpty()) set.add(s);
+        }
+        return Set.copyOf(set);
+    }
+}
@@ -1,19 +1,39 @@
 package ca.dtadmi.gamehubapi.graphql;
 
+import ca.dtadmi.gamehubapi.dto.LeaderboardEntryDto;
+import ca.dtadmi.gamehubapi.dto.UserTotalsDto;
 import ca.dtadmi.gamehubapi.graphql.types.GameType;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.FriendshipRepository;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 
 import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Nested field resolvers. Anything resolved per {@code User} or per leaderboard entry is a
+ * {@link BatchMapping}: all parents of a request are resolved together (one query per field),
+ * so the SQL count of a query does not grow with the number of edges requested.
+ */
 @Controller
+@RequiredArgsConstructor
 public class FieldResolvers {
+    private final UserRepository userRepository;
+    private final GameScoreRepository gameScoreRepository;
+    private final FriendshipRepository friendshipRepository;
 
     // Map GameScore.gameType (String) -> GameType enum
     @SchemaMapping(typeName = "GameScore", field = "gameType")
@@ -21,28 +41,88 @@ public class FieldResolvers {
         return GameType.fromSlug(score.getGameType());
     }
 
-    // Stub friends graph
-    @SchemaMapping(typeName = "User", field = "friends")
-    public Friends friends(User user) {
-        // MVP: return empty friends list
-        return new Friends(List.of(), 0);
+    // Leaderboard rows carry only userId/username; load full users for the whole page in one query
+    @BatchMapping(typeName = "LeaderboardEntry", field = "user")
+    public Map<LeaderboardEntryDto, User> leaderboardUser(List<LeaderboardEntryDto> entries) {
+        List<Long> missing = entries.stream()
+                .filter(e -> e.getUser() == null)
+                .map(LeaderboardEntryDto::getUserId)
+                .distinct()
+                .toList();
+        Map<Long, User> byId = missing.isEmpty() ? Map.of() : userRepository.findAllById(missing)
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<LeaderboardEntryDto, User> result = new LinkedHashMap<>();
+        for (LeaderboardEntryDto entry : entries) {
+            result.put(entry, entry.getUser() != null ? entry.getUser() : byId.get(entry.getUserId()));
+        }
+        return result;
     }
 
-    @SchemaMapping(typeName = "User", field = "subscription")
-    public Subscription subscription(User user) {
+    @BatchMapping(typeName = "User", field = "stats")
+    public Map<User, UserStats> stats(List<User> users) {
+        List<Long> ids = users.stream().map(User::getId).distinct().toList();
+        Map<Long, UserTotalsDto> totals = gameScoreRepository.totalsByUserIds(ids).stream()
+                .collect(Collectors.toMap(UserTotalsDto::userId, Function.identity()));
+        Map<User, UserStats> result = new LinkedHashMap<>();
+        for (User user : users) {
+            UserTotalsDto t = totals.get(user.getId());
+            result.put(user, t == null
+                    ? new UserStats(0, 0, List.of())
+                    : new UserStats(saturatedInt(t.totalGames()), saturatedInt(t.totalScore()), List.of()));
+        }
+        return result;
+    }
+
+    @BatchMapping(typeName = "User", field = "friends")
+    public Map<User, Friends> friends(List<User> users) {
+        Map<Long, List<FriendEdge>> edgesByUser = friendshipRepository.findWithFriendByUserIdIn(
+                        users.stream().map(User::getId).distinct().toList()).stream()
+                .collect(Collectors.groupingBy(f -> f.getUser().getId(),
+                        Collectors.mapping(f -> new FriendEdge(f.getFriend(),
+                                f.getCreatedAt() == null ? "" : f.getCreatedAt().toString()), Collectors.toList())));
+        return toMap(users, user -> {
+            List<FriendEdge> edges = edgesByUser.getOrDefault(user.getId(), List.of());
+            return new Friends(edges, edges.size());
+        });
+    }
+
+    @BatchMapping(typeName = "User", field = "subscription")
+    public Map<User, Subscription> subscription(List<User> users) {
         // MVP: everyone is FREE without an active subscription
-        return new Subscription("sub_" + user.getId(), String.valueOf(user.getId()), Plan.FREE, "inactive", OffsetDateTime.now().toString());
+        String periodEnd = OffsetDateTime.now().toString();
+        return toMap(users, user -> new Subscription("sub_" + user.getId(), String.valueOf(user.getId()), Plan.FREE, "inactive", periodEnd));
     }
 
-    @SchemaMapping(typeName = "User", field = "premium")
-    public PremiumFeatures premium(User user) {
+    @BatchMapping(typeName = "User", field = "premium")
+    public Map<User, PremiumFeatures> premium(List<User> users) {
         // MVP: no premium features enabled
-        return new PremiumFeatures(false, false, false);
+        return toMap(users, user -> new PremiumFeatures(false, false, false));
+    }
+
+    private static <V> Map<User, V> toMap(List<User> users, Function<User, V> value) {
+        Map<User, V> result = new LinkedHashMap<>();
+        for (User user : users) {
+            result.put(user, value.apply(user));
+        }
+        return result;
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
     }
 
     // Records to match GraphQL types
     public enum Plan {FREE, PRO}
 
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class UserStats {
+        private int totalGames;
+        private int totalScore;
+        private List<Object> achievements; // none tracked yet
+    }
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -0,0 +1,178 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.config.ReplicaRoutingDataSource;
+import ca.dtadmi.gamehubapi.dto.GameStatsDto;
+import ca.dtadmi.gamehubapi.dto.LeaderboardEntryDto;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.graphql.types.GameType;
+import ca.dtadmi.gamehubapi.graphql.types.TimeWindow;
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.GameService;
+import ca.dtadmi.gamehubapi.service.ScoreSavedEvent;
+import ca.dtadmi.gamehubapi.service.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Change feeds behind the GraphQL subscriptions.
+ * <p>
+ * There is one topic per (game, window) leaderboard and per game stats key, created by the first
+ * subscriber and dropped with the last. When a score is committed, each topic for that game
+ * reloads once and multicasts the result to all its subscribers, however many there are.
+ * Bursts of saves coalesce into a single reload. Late subscribers immediately receive the
+ * latest value. Reloads may overlap on the pool; a result is only published if no reload that
+ * started after it has published already, so subscribers never go back to an older board.
+ */
+@Component
+public class LiveUpdatesPublisher implements DisposableBean {
+    static final int LEADERBOARD_SIZE = 25;
+    private static final Logger log = LoggerFactory.getLogger(LiveUpdatesPublisher.class);
+
+    private final GameScoreRepository gameScoreRepository;
+    private final UserRepository userRepository;
+    private final StatsService statsService;
+    private final ConcurrentMap<LeaderboardKey, Topic<List<LeaderboardEntryDto>>> leaderboards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Topic<GameStatsDto>> gameStats = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    public LiveUpdatesPublisher(GameScoreRepository gameScoreRepository,
+                                UserRepository userRepository,
+                                StatsService statsService) {
+        this.gameScoreRepository = gameScoreRepository;
+        this.userRepository = userRepository;
+        this.statsService = statsService;
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "graphql-live-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public Flux<List<LeaderboardEntryDto>> leaderboard(GameType gameType, TimeWindow window) {
+        LeaderboardKey key = new LeaderboardKey(gameType, window == null ? TimeWindow.WEEK : window);
+        return subscribe(leaderboards, key, () -> loadLeaderboard(key));
+    }
+
+    public Flux<GameStatsDto> gameStats(GameType gameType) {
+        String slug = gameType.toSlug();
+        return subscribe(gameStats, slug, () -> statsService.freshGameStats(slug));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScoreSaved(ScoreSavedEvent event) {
+        GameType gameType = GameType.fromSlug(event.gameType());
+        if (gameType == null) return;
+        leaderboards.forEach((key, topic) -> {
+            if (key.gameType() == gameType) topic.refresh();
+        });
+        Topic<GameStatsDto> stats = gameStats.get(gameType.toSlug());
+        if (stats != null) stats.refresh();
+    }
+
+    int activeTopics() {
+        return leaderboards.size() + gameStats.size();
+    }
+
+    private <K, T> Flux<T> subscribe(ConcurrentMap<K, Topic<T>> topics, K key, Supplier<T> loader) {
+        return Flux.defer(() -> {
+            Topic<T> topic = topics.compute(key, (k, t) -> {
+                Topic<T> current = t != null ? t : new Topic<>(loader);
+                current.subscribers++;
+                return current;
+            });
+            topic.loadIfEmpty();
+            return topic.sink.asFlux()
+                    .doFinally(signal -> topics.computeIfPresent(key, (k, t) -> --t.subscribers == 0 ? null : t));
+        });
+    }
+
+    private List<LeaderboardEntryDto> loadLeaderboard(LeaderboardKey key) {
+        LocalDateTime since = key.window().since(LocalDateTime.now());
+        PageRequest page = PageRequest.of(0, LEADERBOARD_SIZE);
+        List<LeaderboardRowDto> rows = GameService.ranked(since == null
+                ? gameScoreRepository.findLeaderboardRows(key.gameType().toSlug(), page)
+                : gameScoreRepository.findLeaderboardRowsSince(key.gameType().toSlug(), since, page), 1);
+        // Users are loaded once here so subscribers don't each batch-load them per event
+        Map<Long, User> users = userRepository.findAllById(rows.stream().map(LeaderboardRowDto::userId).distinct().toList())
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        List<LeaderboardEntryDto> entries = new ArrayList<>(rows.size());
+        for (LeaderboardRowDto row : rows) {
+            entries.add(new LeaderboardEntryDto(row.rank(), row.userId(), row.username(), row.score(),
+                    key.gameType(), users.get(row.userId())));
+        }
+        return List.copyOf(entries);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    record LeaderboardKey(GameType gameType, TimeWindow window) {
+    }
+
+    private final class Topic<T> {
+        // Replays the latest value to late subscribers; multicasts every new one
+        private final Sinks.Many<T> sink = Sinks.many().replay().latest();
+        private final Supplier<T> loader;
+        private final AtomicBoolean reloadQueued = new AtomicBoolean();
+        private final AtomicBoolean loaded = new AtomicBoolean();
+        private final AtomicLong reloadsStarted = new AtomicLong();
+        // Guarded by this
+        private long published;
+        // Guarded by the owning map's compute lock
+        private int subscribers;
+
+        private Topic(Supplier<T> loader) {
+            this.loader = loader;
+        }
+
+        void loadIfEmpty() {
+            if (loaded.compareAndSet(false, true)) refresh();
+        }
+
+        void refresh() {
+            if (!reloadQueued.compareAndSet(false, true)) return; // a reload is already pending
+            executor.execute(() -> {
+                reloadQueued.set(false);
+                long ticket = reloadsStarted.incrementAndGet();
+                try {
+                    // Reloads follow a commit, which a read replica may not have replayed yet
+                    T value = ReplicaRoutingDataSource.onPrimary(loader);
+                    synchronized (this) {
+                        if (ticket < published) return; // a later reload has published a newer value
+                        published = ticket;
+                        sink.emitNext(value, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+                    }
+                } catch (Exception e) {
+                    log.warn("Live update reload failed", e);
+                }
+            });
+        }
+    }
+}
@@ -4,8 +4,11 @@ import ca.dtadmi.gamehubapi.graphql.types.GameType;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.security.UserChangedEvent;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
 import ca.dtadmi.gamehubapi.service.GameService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,6 +27,7 @@ public class MutationResolver {
     private final GameService gameService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher events;
 
     @MutationMapping
     @PreAuthorize("isAuthenticated()")
@@ -51,7 +55,9 @@ public class MutationResolver {
             }
         }
         // Avatar is ignored in MVP as User entity doesn't store it yet
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        events.publishEvent(new UserChangedEvent(saved.getId()));
+        return saved;
     }
 
     @MutationMapping
@@ -72,6 +78,11 @@ public class MutationResolver {
 
     private User resolveCurrentOrGuestUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        // Principals built from token claims carry the id; the name in them may predate a rename
+        if (auth != null && auth.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            Optional<User> byId = userRepository.findById(principal.getId());
+            if (byId.isPresent()) return byId.get();
+        }
         String username = (auth != null) ? String.valueOf(auth.getName()) : "guest";
         if (username == null || username.isBlank()) username = "guest";
         String uname = username;
@@ -0,0 +1,105 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import graphql.ExecutionResult;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.analysis.QueryComplexityCalculator;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.stream.Collectors;
+
+/**
+ * Rejects operations whose estimated cost exceeds a budget before any resolver runs, and
+ * records the cost of every operation in the {@code graphql.query.cost} histogram.
+ * <p>
+ * A field costs 1 plus its children, multiplied by how many times it can fan out:
+ * its {@code first} argument when present (defaults included), otherwise
+ * {@code defaultListSize} for list fields not already sized by a paginated parent, otherwise 1.
+ * So {@code leaderboard(first: 200) { edges { node { user { ... } } } }} costs roughly 200x
+ * the per-entry selection.
+ */
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    public static final String METRIC = "graphql.query.cost";
+
+    private final int maxCost;
+    private final int defaultListSize;
+    private final MeterRegistry meterRegistry;
+    private final FieldComplexityCalculator calculator = this::fieldCost;
+
+    public QueryCostInstrumentation(int maxCost, int defaultListSize, MeterRegistry meterRegistry) {
+        this.maxCost = maxCost;
+        this.defaultListSize = defaultListSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                        InstrumentationState state) {
+        ExecutionContext ctx = parameters.getExecutionContext();
+        int cost = QueryComplexityCalculator.newCalculator()
+                .fieldComplexityCalculator(calculator)
+                .schema(ctx.getGraphQLSchema())
+                .document(ctx.getDocument())
+                .operationName(ctx.getExecutionInput().getOperationName())
+                .variables(ctx.getCoercedVariables())
+                .build()
+                .calculate();
+        boolean rejected = cost > maxCost;
+        record(ctx.getOperationDefinition(), cost, rejected);
+        if (rejected) {
+            throw new AbortExecutionException("Query cost " + cost + " exceeds the maximum of " + maxCost);
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    int fieldCost(FieldComplexityEnvironment env, int childComplexity) {
+        long cost = (1L + childComplexity) * multiplier(env);
+        // Saturate: a runaway estimate must still compare as "over budget"
+        return (int) Math.min(Integer.MAX_VALUE, cost);
+    }
+
+    private int multiplier(FieldComplexityEnvironment env) {
+        Object first = env.getArguments().get("first");
+        if (first instanceof Number n) {
+            return Math.max(1, n.intValue());
+        }
+        if (!(GraphQLTypeUtil.unwrapNonNull(env.getFieldDefinition().getType()) instanceof GraphQLList)) {
+            return 1;
+        }
+        FieldComplexityEnvironment parent = env.getParentEnvironment();
+        // Connection edges are already sized by the connection's own "first"
+        boolean sizedByParent = parent != null && parent.getArguments().get("first") instanceof Number;
+        return sizedByParent ? 1 : defaultListSize;
+    }
+
+    // Tag by root fields (bounded by the schema) rather than client-chosen operation names
+    private void record(OperationDefinition op, int cost, boolean rejected) {
+        String rootFields = op.getSelectionSet().getSelections().stream()
+                .filter(Field.class::isInstance)
+                .map(s -> ((Field) s).getName())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+        DistributionSummary.builder(METRIC)
+                .description("Estimated GraphQL operation cost")
+                .tag("operation", op.getOperation().name().toLowerCase())
+                .tag("fields", rootFields.isEmpty() ? "none" : rootFields)
+                .tag("outcome", rejected ? "rejected" : "accepted")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(cost);
+    }
+}
@@ -2,14 +2,20 @@ package ca.dtadmi.gamehubapi.graphql;
 
 import ca.dtadmi.gamehubapi.dto.GameStatsDto;
 import ca.dtadmi.gamehubapi.dto.LeaderboardEntryDto;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.dto.UserGameStatsDto;
 import ca.dtadmi.gamehubapi.graphql.pagination.CursorUtil;
 import ca.dtadmi.gamehubapi.graphql.types.GameType;
 import ca.dtadmi.gamehubapi.graphql.types.LeaderboardScope;
 import ca.dtadmi.gamehubapi.graphql.types.TimeWindow;
 import ca.dtadmi.gamehubapi.model.GameScore;
+import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import ca.dtadmi.gamehubapi.service.FriendsLeaderboardService;
+import ca.dtadmi.gamehubapi.service.GameService;
+import ca.dtadmi.gamehubapi.service.StatsService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -18,8 +24,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +36,8 @@ import java.util.List;
 public class QueryResolver {
     private final GameScoreRepository gameScoreRepository;
     private final UserRepository userRepository;
+    private final StatsService statsService;
+    private final FriendsLeaderboardService friendsLeaderboardService;
 
     @QueryMapping
     @PreAuthorize("isAuthenticated()")
@@ -66,27 +76,49 @@ public class QueryResolver {
             @Argument LeaderboardScope scope,
             @Argument TimeWindow window,
             @Argument Integer first,
-            @Argument String after) {
+            @Argument String after,
+            Authentication authentication) {
         int page = CursorUtil.decodeOffset(after);
         int size = (first == null || first <= 0) ? 25 : Math.min(first, 200);
-        Pageable pageable = PageRequest.of(page, size, Sort.by("score").descending().and(Sort.by("createdAt").ascending()));
 
-        // MVP: ignore scope and window filters (TODO)
-        List<GameScore> top = gameScoreRepository.findTopScoresByGameType(gameType.toSlug(), pageable);
-        long total = gameScoreRepository.countByGameType(gameType.toSlug());
+        String slug = gameType.toSlug();
+        LocalDateTime since = window == null ? null : window.since(LocalDateTime.now());
+        List<LeaderboardRowDto> top;
+        long total;
+        if (scope == LeaderboardScope.FRIENDS || scope == LeaderboardScope.PERSONAL) {
+            Long userId = currentUserId(authentication);
+            if (userId == null) {
+                return new LeaderboardConnection(List.of(), new PageInfo(false, null));
+            }
+            if (scope == LeaderboardScope.FRIENDS) {
+                List<LeaderboardRowDto> board = friendsLeaderboardService.friendsBoard(userId, slug, window);
+                int from = (int) Math.min((long) page * size, board.size());
+                top = board.subList(from, Math.min(from + size, board.size()));
+                total = board.size();
+            } else {
+                top = GameService.ranked(since == null
+                                ? gameScoreRepository.findUserRows(userId, slug, PageRequest.of(page, size))
+                                : gameScoreRepository.findUserRowsSince(userId, slug, since, PageRequest.of(page, size)),
+                        page * size + 1);
+                total = since == null
+                        ? gameScoreRepository.countByUser_IdAndGameType(userId, slug)
+                        : gameScoreRepository.countByUser_IdAndGameTypeAndCreatedAtGreaterThanEqual(userId, slug, since);
+            }
+        } else {
+            top = GameService.ranked(since == null
+                            ? gameScoreRepository.findLeaderboardRows(slug, PageRequest.of(page, size))
+                            : gameScoreRepository.findLeaderboardRowsSince(slug, since, PageRequest.of(page, size)),
+                    page * size + 1);
+            total = since == null
+                    ? gameScoreRepository.countByGameType(slug)
+                    : gameScoreRepository.countByGameTypeAndCreatedAtGreaterThanEqual(slug, since);
+        }
 
         List<LeaderboardEdge> edges = new ArrayList<>(top.size());
-        int startRank = page * size;
-        for (int i = 0; i < top.size(); i++) {
-            GameScore gs = top.get(i);
+        for (LeaderboardRowDto row : top) {
             String cursor = CursorUtil.encodeOffset(page);
             edges.add(new LeaderboardEdge(
-                    new LeaderboardEntryDto(
-                            startRank + i + 1,
-                            gs.getUser(),
-                            gs.getScore(),
-                            GameType.fromSlug(gs.getGameType())
-                    ),
+                    new LeaderboardEntryDto(row.rank(), row.userId(), row.username(), row.score(), gameType),
                     cursor));
         }
         boolean hasNext = (long) ((page + 1) * size) < total;
@@ -96,11 +128,7 @@ public class QueryResolver {
 
     @QueryMapping
     public GameStatsDto gameStats(@Argument GameType gameType) {
-        String gt = gameType.toSlug();
-        long total = gameScoreRepository.countByGameType(gt);
-        Double avg = gameScoreRepository.averageScoreByGameType(gt);
-        Integer max = gameScoreRepository.maxScoreByGameType(gt);
-        return new GameStatsDto(total, avg, max, null);
+        return statsService.gameStats(gameType.toSlug());
     }
 
     @QueryMapping
@@ -108,20 +136,15 @@ public class QueryResolver {
     public UserGameStatsDto userStats(
             @Argument Long userId,
             @Argument GameType gameType) {
-        long total;
-        Double avg;
-        Integer high;
-        if (gameType == null) {
-            total = gameScoreRepository.countByUser_Id(userId);
-            avg = gameScoreRepository.averageScoreByUserId(userId);
-            high = gameScoreRepository.maxScoreByUserId(userId);
-        } else {
-            String gt = gameType.toSlug();
-            total = gameScoreRepository.countByUser_IdAndGameType(userId, gt);
-            avg = gameScoreRepository.averageScoreByUserAndGameType(userId, gt);
-            high = gameScoreRepository.maxScoreByUserAndGameType(userId, gt);
+        return statsService.userStats(userId, gameType == null ? null : gameType.toSlug());
+    }
+
+    private Long currentUserId(Authentication authentication) {
+        if (authentication == null) return null;
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal.getId();
         }
-        return new UserGameStatsDto(total, high, avg, null);
+        return userRepository.findByUsername(authentication.getName()).map(User::getId).orElse(null);
     }
 
     // Connection DTOs for GraphQL mapping
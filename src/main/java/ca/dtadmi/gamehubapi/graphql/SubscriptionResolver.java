@@ -0,0 +1,33 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.dto.GameStatsDto;
+import ca.dtadmi.gamehubapi.dto.LeaderboardEntryDto;
+import ca.dtadmi.gamehubapi.graphql.types.GameType;
+import ca.dtadmi.gamehubapi.graphql.types.TimeWindow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+@Controller
+@RequiredArgsConstructor
+public class SubscriptionResolver {
+    private final LiveUpdatesPublisher liveUpdates;
+
+    // Entries expose User (including email), like the leaderboard query
+    @SubscriptionMapping
+    @PreAuthorize("isAuthenticated()")
+    public Flux<List<LeaderboardEntryDto>> leaderboardUpdated(@Argument GameType gameType, @Argument TimeWindow window) {
+        return liveUpdates.leaderboard(gameType, window);
+    }
+
+    @SubscriptionMapping
+    @PreAuthorize("isAuthenticated()")
+    public Flux<GameStatsDto> gameStatsUpdated(@Argument GameType gameType) {
+        return liveUpdates.gameStats(gameType);
+    }
+}
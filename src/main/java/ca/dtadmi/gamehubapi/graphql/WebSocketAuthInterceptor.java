@@ -0,0 +1,86 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.security.CustomUserDetailsService;
+import ca.dtadmi.gamehubapi.security.JwtTokenProvider;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.graphql.server.WebSocketGraphQlInterceptor;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Authenticates graphql-ws connections from the {@code connection_init} payload, since browsers
+ * can't set an {@code Authorization} header on the WebSocket upgrade. The payload may carry the
+ * same JWT as the HTTP API under {@code Authorization} ("Bearer ..." or bare) or {@code authToken}.
+ * <p>
+ * The resulting authentication is kept on the session and put in the security context of every
+ * operation on it, so {@code @PreAuthorize} on subscriptions sees it. Connections without a
+ * token stay anonymous (or keep what the upgrade request carried); a bad token closes the
+ * connection.
+ */
+@Component
+public class WebSocketAuthInterceptor implements WebSocketGraphQlInterceptor {
+    static final String AUTHENTICATION_ATTRIBUTE = WebSocketAuthInterceptor.class.getName() + ".authentication";
+    // Key of Spring GraphQL's SecurityContextThreadLocalAccessor, which restores the context around data fetchers
+    static final String SECURITY_CONTEXT_KEY = SecurityContext.class.getName();
+
+    private final JwtTokenProvider tokenProvider;
+    private final CustomUserDetailsService userDetailsService;
+
+    public WebSocketAuthInterceptor(JwtTokenProvider tokenProvider, CustomUserDetailsService userDetailsService) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Mono<Object> handleConnectionInitialization(WebSocketSessionInfo sessionInfo, Map<String, Object> payload) {
+        String token = token(payload);
+        if (token == null) return Mono.empty();
+        UserDetails user;
+        try {
+            Claims claims = tokenProvider.parse(token);
+            user = UserPrincipal.fromClaims(claims);
+            if (user == null) {
+                // Token issued without user claims: look the user up, like JwtAuthenticationFilter
+                user = userDetailsService.loadUserByUsername(claims.getSubject());
+            }
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException invalid) {
+            return Mono.error(new BadCredentialsException("Invalid connection_init token"));
+        }
+        sessionInfo.getAttributes().put(AUTHENTICATION_ATTRIBUTE,
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        if (request instanceof WebSocketGraphQlRequest ws
+                && ws.getSessionInfo().getAttributes().get(AUTHENTICATION_ATTRIBUTE) instanceof Authentication auth) {
+            return chain.next(request).contextWrite(ctx -> ctx.put(SECURITY_CONTEXT_KEY, new SecurityContextImpl(auth)));
+        }
+        return chain.next(request);
+    }
+
+    private static String token(Map<String, Object> payload) {
+        if (payload == null) return null;
+        Object value = payload.get("Authorization");
+        if (value == null) value = payload.get("authToken");
+        if (!(value instanceof String text) || !StringUtils.hasText(text)) return null;
+        return text.startsWith("Bearer ") ? text.substring(7) : text;
+    }
+}
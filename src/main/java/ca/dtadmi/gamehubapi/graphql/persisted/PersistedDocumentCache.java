@@ -0,0 +1,76 @@
+package ca.dtadmi.gamehubapi.graphql.persisted;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded cache of parsed and validated documents keyed by the SHA-256 of their query text.
+ * <p>
+ * An optional allow-list maps hashes to registered operation texts, so clients can send just
+ * the hash of a registered operation even on a cold cache. With {@code allowListOnly} every
+ * other operation is refused.
+ */
+public class PersistedDocumentCache implements PersistedQueryCache {
+
+    private final Cache<Object, PreparsedDocumentEntry> documents;
+    private final Map<String, String> allowList;
+    private final boolean allowListOnly;
+
+    public PersistedDocumentCache(long maximumSize, Map<String, String> allowList, boolean allowListOnly,
+                                  MeterRegistry meterRegistry) {
+        this.documents = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+        this.allowList = Map.copyOf(allowList);
+        this.allowListOnly = allowListOnly;
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphqlDocuments");
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                                                                                ExecutionInput executionInput,
+                                                                                PersistedQueryCacheMiss onCacheMiss)
+            throws PersistedQueryNotFound {
+        return CompletableFuture.completedFuture(lookup(persistedQueryId, executionInput, onCacheMiss));
+    }
+
+    /**
+     * Still the entry point graphql-java 21 calls; same lookup as {@link #getPersistedQueryDocumentAsync}.
+     */
+    @Override
+    @Deprecated
+    public PreparsedDocumentEntry getPersistedQueryDocument(Object persistedQueryId, ExecutionInput executionInput,
+                                                           PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+        return lookup(persistedQueryId, executionInput, onCacheMiss);
+    }
+
+    private PreparsedDocumentEntry lookup(Object persistedQueryId, ExecutionInput executionInput,
+                                          PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+        PreparsedDocumentEntry cached = documents.getIfPresent(persistedQueryId);
+        if (cached != null) {
+            return cached;
+        }
+        String registered = allowList.get(String.valueOf(persistedQueryId));
+        if (registered == null && allowListOnly) {
+            return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                    .message("Operation is not in the persisted query allow-list")
+                    .build());
+        }
+        String queryText = registered != null ? registered : executionInput.getQuery();
+        if (queryText == null || queryText.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(queryText)) {
+            // Client sent only the hash of an unknown operation: it retries with the full text
+            throw new PersistedQueryNotFound(persistedQueryId);
+        }
+        return documents.get(persistedQueryId, id -> onCacheMiss.apply(queryText));
+    }
+}
@@ -0,0 +1,47 @@
+package ca.dtadmi.gamehubapi.graphql.persisted;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Automatic persisted queries (Apollo protocol) on top of a document cache.
+ * <p>
+ * Requests carrying {@code extensions.persistedQuery.sha256Hash} are resolved by hash; plain
+ * requests are keyed by the hash of their text, so repeated operations skip parsing and
+ * validation either way.
+ */
+public class PersistedQueryDocumentProvider extends ApolloPersistedQuerySupport {
+
+    public PersistedQueryDocumentProvider(PersistedQueryCache cache) {
+        super(cache);
+    }
+
+    @Override
+    protected Optional<Object> getPersistedQueryId(ExecutionInput executionInput) {
+        Optional<Object> hash = super.getPersistedQueryId(executionInput);
+        if (hash.isPresent()) {
+            return hash;
+        }
+        String query = executionInput.getQuery();
+        if (query == null || query.isBlank() || PERSISTED_QUERY_MARKER.equals(query)) {
+            return Optional.empty();
+        }
+        return Optional.of(sha256Hex(query));
+    }
+
+    public static String sha256Hex(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ca.dtadmi.gamehubapi.graphql.persisted;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Lets hash-only persisted query requests through Spring GraphQL's HTTP handler, which
+ * requires a non-empty {@code query}. When a POST body has {@code extensions.persistedQuery}
+ * but no query text, the graphql-java persisted query marker is put in its place; the
+ * document provider then resolves the hash.
+ * <p>
+ * Only JSON POSTs to the GraphQL endpoint are looked at. Their body has to be buffered to find
+ * the extension, but it is scanned as bytes and only parsed when it mentions
+ * {@code persistedQuery}; other bodies are passed on unchanged.
+ */
+public class PersistedQueryRequestFilter extends OncePerRequestFilter {
+
+    private static final byte[] EXTENSION = "\"persistedQuery\"".getBytes(StandardCharsets.US_ASCII);
+
+    private final ObjectMapper objectMapper;
+    private final String graphqlPath;
+
+    public PersistedQueryRequestFilter(ObjectMapper objectMapper, String graphqlPath) {
+        this.objectMapper = objectMapper;
+        this.graphqlPath = graphqlPath;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equalsIgnoreCase(request.getMethod())) return true;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!graphqlPath.equals(path)) return true;
+        String contentType = request.getContentType();
+        return contentType != null && !contentType.toLowerCase(Locale.ROOT).contains("json");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        byte[] rewritten = withMarkerIfHashOnly(body);
+        filterChain.doFilter(new BodyRequestWrapper(request, rewritten), response);
+    }
+
+    byte[] withMarkerIfHashOnly(byte[] body) {
+        // Cheap pre-check: only APQ requests are worth a JSON parse
+        if (!contains(body, EXTENSION)) return body;
+        try {
+            if (objectMapper.readTree(body) instanceof ObjectNode json
+                    && json.path("extensions").hasNonNull("persistedQuery")
+                    && !json.path("query").isTextual()) {
+                json.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+                return objectMapper.writeValueAsBytes(json);
+            }
+        } catch (IOException e) {
+            // Not JSON: leave it for the GraphQL handler to reject
+        }
+        return body;
+    }
+
+    private static boolean contains(byte[] body, byte[] token) {
+        outer:
+        for (int i = 0, last = body.length - token.length; i <= last; i++) {
+            for (int j = 0; j < token.length; j++) {
+                if (body[i + j] != token[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static final class BodyRequestWrapper extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        BodyRequestWrapper(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is already in memory: it is available at once and never blocks
+                    try {
+                        if (!isFinished()) readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+    }
+}
@@ -1,5 +1,20 @@
 package ca.dtadmi.gamehubapi.graphql.types;
 
+import java.time.LocalDateTime;
+
 public enum TimeWindow {
-    ALL_TIME, YEAR, MONTH, WEEK, DAY
+    ALL_TIME, YEAR, MONTH, WEEK, DAY;
+
+    /**
+     * Earliest score timestamp included in this window, or null for all time.
+     */
+    public LocalDateTime since(LocalDateTime now) {
+        return switch (this) {
+            case ALL_TIME -> null;
+            case YEAR -> now.minusYears(1);
+            case MONTH -> now.minusMonths(1);
+            case WEEK -> now.minusWeeks(1);
+            case DAY -> now.minusDays(1);
+        };
+    }
 }
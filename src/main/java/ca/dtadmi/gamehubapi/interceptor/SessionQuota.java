@@ -0,0 +1,72 @@
+package ca.dtadmi.gamehubapi.interceptor;
+
+import ca.dtadmi.gamehubapi.security.RequestRateLimiter;
+import ca.dtadmi.gamehubapi.security.TokenBucket;
+
+import java.time.Duration;
+
+/**
+ * Per-session first stage of the STOMP limiter, kept in the WebSocket session attributes.
+ * <p>
+ * A local {@link TokenBucket} drops floods without any I/O. Frames that pass it are paid from
+ * quota leased from the shared limiter in chunks of {@code leaseChunk}, so Redis sees one call per
+ * chunk instead of one per frame. Leases that are not used within {@code leaseTtl} are forgotten,
+ * which bounds how far a session can run ahead of the cluster-wide limit. After the shared limiter
+ * refuses a frame, the session is refused locally until its retry-after has passed.
+ */
+public final class SessionQuota {
+    static final String ATTRIBUTE = SessionQuota.class.getName();
+
+    /**
+     * @param burst      local bucket capacity, in cost units
+     * @param perSecond  local refill rate, in cost units per second
+     * @param leaseChunk cost units taken from the shared limiter per call
+     * @param leaseTtl   how long leased units stay usable
+     */
+    public record Settings(int burst, int perSecond, int leaseChunk, Duration leaseTtl) {
+        public Settings {
+            if (burst < 1 || perSecond < 1 || leaseChunk < 1) {
+                throw new IllegalArgumentException("burst, perSecond and leaseChunk must be positive");
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final TokenBucket local;
+    private long leased;
+    private long leaseExpiresAt;
+    private long deniedUntil;
+
+    SessionQuota(Settings settings, long nowNanos) {
+        this.settings = settings;
+        this.local = new TokenBucket(settings.burst(),
+                Math.max(1, Duration.ofSeconds(1).toNanos() / settings.perSecond()), nowNanos);
+        this.leaseExpiresAt = nowNanos;
+        this.deniedUntil = nowNanos;
+    }
+
+    boolean tryAcquire(RequestRateLimiter shared, String key, int cost, long nowNanos) {
+        if (local.tryAcquire(nowNanos, cost) < 0) return false;
+        synchronized (this) {
+            if (nowNanos - deniedUntil < 0) return false;
+            if (nowNanos - leaseExpiresAt >= 0) leased = 0;
+            if (leased >= cost) {
+                leased -= cost;
+                return true;
+            }
+            long chunk = Math.min(settings.leaseChunk(), shared.limit());
+            if (chunk > cost && shared.tryAcquire(key, (int) chunk) >= 0) {
+                leased += chunk - cost;
+                leaseExpiresAt = nowNanos + settings.leaseTtl().toNanos();
+                return true;
+            }
+            // Not enough left for a whole chunk: fall back to paying for this frame only
+            long result = shared.tryAcquire(key, cost);
+            if (result < 0) {
+                deniedUntil = nowNanos - result;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,35 +1,64 @@
 package ca.dtadmi.gamehubapi.interceptor;
 
-import org.springframework.core.env.Environment;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import ca.dtadmi.gamehubapi.security.RequestRateLimiter;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 
 import java.security.Principal;
-import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 /**
- * Simple STOMP rate limiter using Redis counters (INCR + EXPIRE) per identity.
- * - Keys are segmented by minute window.
+ * STOMP rate limiter for SEND frames, per identity, on the same limiter as the REST API
+ * ({@link ca.dtadmi.gamehubapi.security.RedisRateLimiter}'s script).
  * - Separate limits for authenticated users and guests.
- * - If Redis is unavailable, it degrades gracefully (no rate limit enforced).
+ * - Each frame costs the weight of the first destination pattern it matches (default 1), so
+ *   chat can be made more expensive than heartbeats.
+ * - Over-limit frames are dropped. What happens when Redis is unavailable is the limiter's
+ *   fail-open setting.
+ * - With {@link SessionQuota.Settings}, each session first goes through a local bucket and pays
+ *   from quota leased in chunks, so most frames cost no Redis round trip.
  */
 public class StompRateLimitInterceptor implements ChannelInterceptor {
 
-    private final StringRedisTemplate redis;
-    private final int userLimitPerMin;
-    private final int guestLimitPerMin;
+    private final RequestRateLimiter userLimiter;
+    private final RequestRateLimiter guestLimiter;
+    private final Map<String, Integer> costs;
+    private final SessionQuota.Settings sessionQuota;
+    private final LongSupplier clock;
+    private final AntPathMatcher matcher = new AntPathMatcher();
 
-    public StompRateLimitInterceptor(StringRedisTemplate redis, Environment env) {
-        this.redis = redis;
-        this.userLimitPerMin = env.getProperty("stomp.ratelimit.user.perMinute", Integer.class, 300);
-        this.guestLimitPerMin = env.getProperty("stomp.ratelimit.guest.perMinute", Integer.class, 120);
+    /**
+     * @param costs destination patterns (Ant style, e.g. {@code /app/*}{@code /chat}) to frame cost,
+     *              checked in order
+     */
+    public StompRateLimitInterceptor(RequestRateLimiter userLimiter, RequestRateLimiter guestLimiter,
+                                     Map<String, Integer> costs) {
+        this(userLimiter, guestLimiter, costs, null, System::nanoTime);
+    }
+
+    /**
+     * @param sessionQuota local per-session stage, or {@code null} to call the limiters for every frame
+     */
+    public StompRateLimitInterceptor(RequestRateLimiter userLimiter, RequestRateLimiter guestLimiter,
+                                     Map<String, Integer> costs, SessionQuota.Settings sessionQuota) {
+        this(userLimiter, guestLimiter, costs, sessionQuota, System::nanoTime);
+    }
+
+    StompRateLimitInterceptor(RequestRateLimiter userLimiter, RequestRateLimiter guestLimiter,
+                              Map<String, Integer> costs, SessionQuota.Settings sessionQuota, LongSupplier clock) {
+        this.userLimiter = userLimiter;
+        this.guestLimiter = guestLimiter;
+        this.costs = new LinkedHashMap<>(costs);
+        this.sessionQuota = sessionQuota;
+        this.clock = clock;
     }
 
     @Override
@@ -44,26 +73,32 @@ public class StompRateLimitInterceptor implements ChannelInterceptor {
 
         String id = resolveIdentity(accessor);
         boolean authenticated = accessor.getUser() != null && StringUtils.hasText(accessor.getUser().getName());
-        int limit = authenticated ? userLimitPerMin : guestLimitPerMin;
-
-        try {
-            String key = buildKey(id);
-            Long count = redis.opsForValue().increment(key);
-            if (count != null && count == 1L) {
-                // First hit in this window: set expiry to remaining seconds in minute
-                long ttl = secondsToWindowEnd();
-                redis.expire(key, Duration.ofSeconds(Math.max(1, ttl)));
-            }
-            if (count != null && count > limit) {
-                // Drop the message by returning null (frame not forwarded to handlers)
-                return null;
-            }
-        } catch (Exception ignored) {
-            // Redis unavailable → fail open (no throttling) to avoid breaking gameplay
+        RequestRateLimiter limiter = authenticated ? userLimiter : guestLimiter;
+        if (!tryAcquire(limiter, id, cost(accessor.getDestination()), accessor.getSessionAttributes())) {
+            // Drop the message by returning null (frame not forwarded to handlers)
+            return null;
         }
         return message;
     }
 
+    private boolean tryAcquire(RequestRateLimiter limiter, String id, int cost, Map<String, Object> attributes) {
+        if (sessionQuota == null || attributes == null) {
+            return limiter.tryAcquire(id, cost) >= 0;
+        }
+        long now = clock.getAsLong();
+        SessionQuota quota = (SessionQuota) attributes.computeIfAbsent(SessionQuota.ATTRIBUTE,
+                k -> new SessionQuota(sessionQuota, now));
+        return quota.tryAcquire(limiter, id, cost, now);
+    }
+
+    int cost(String destination) {
+        if (destination == null) return 1;
+        for (Map.Entry<String, Integer> e : costs.entrySet()) {
+            if (matcher.match(e.getKey(), destination)) return Math.max(1, e.getValue());
+        }
+        return 1;
+    }
+
     private String resolveIdentity(StompHeaderAccessor accessor) {
         Principal p = accessor.getUser();
         if (p != null && StringUtils.hasText(p.getName())) {
@@ -83,15 +118,4 @@ public class StompRateLimitInterceptor implements ChannelInterceptor {
         }
         return "anon:unknown";
     }
-
-    private String buildKey(String identity) {
-        long minute = System.currentTimeMillis() / TimeUnit.MINUTES.toMillis(1);
-        return "stomp:rate:" + minute + ":" + identity;
-    }
-
-    private long secondsToWindowEnd() {
-        long nowMs = System.currentTimeMillis();
-        long nextMinute = ((nowMs / 60_000) + 1) * 60_000;
-        return (nextMinute - nowMs) / 1000;
-    }
 }
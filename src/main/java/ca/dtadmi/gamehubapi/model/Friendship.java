@@ -0,0 +1,37 @@
+package ca.dtadmi.gamehubapi.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One directed edge of the friends graph; a friendship is stored as two rows (A->B and B->A)
+ * so "friends of X" and "who has X as a friend" are both single index range scans.
+ */
+@Entity
+@Table(name = "friendships",
+        uniqueConstraints = @UniqueConstraint(name = "uk_friendship_pair", columnNames = {"user_id", "friend_id"}),
+        indexes = @Index(name = "idx_friendship_friend", columnList = "friend_id"))
+@Data
+public class Friendship {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "friend_id")
+    private User friend;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (this.createdAt == null) this.createdAt = LocalDateTime.now();
+    }
+}
@@ -6,7 +6,9 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "game_scores")
+@Table(name = "game_scores", indexes = {
+        @Index(name = "idx_game_scores_user_game", columnList = "user_id, game_type")
+})
 @Data
 public class GameScore {
     @Id
@@ -4,10 +4,15 @@ import jakarta.persistence.*;
 
 import java.time.Instant;
 
+/**
+ * A refresh token. Only the SHA-256 of the token is stored; the token itself exists in memory
+ * ({@link #getToken()}) just long enough to be handed to the client after {@code issue}.
+ */
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_refresh_token_token", columnList = "token", unique = true),
-        @Index(name = "idx_refresh_token_user", columnList = "user_id")
+        @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
 })
 public class RefreshToken {
     @Id
@@ -18,7 +23,11 @@ public class RefreshToken {
     @JoinColumn(name = "user_id")
     private User user;
 
-    @Column(nullable = false, unique = true, length = 256)
+    // Lowercase hex SHA-256 of the token
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    @Transient
     private String token;
 
     @Column(nullable = false)
@@ -51,6 +60,14 @@ public class RefreshToken {
         this.token = token;
     }
 
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public Instant getExpiresAt() {
         return expiresAt;
     }
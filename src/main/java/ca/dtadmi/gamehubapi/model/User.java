@@ -1,7 +1,9 @@
 package ca.dtadmi.gamehubapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -11,6 +13,7 @@ import java.util.Set;
 @Data
 public class User {
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     private final Set<String> roles = new HashSet<>();
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,6 +22,8 @@ public class User {
     private String username;
     @Column(unique = true, nullable = false)
     private String email;
+    // Never serialized: users travel in API responses and in the shared (Redis) cache tier
+    @JsonIgnore
     @Column(nullable = false)
     private String password;
 
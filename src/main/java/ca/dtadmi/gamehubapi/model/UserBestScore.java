@@ -0,0 +1,34 @@
+package ca.dtadmi.gamehubapi.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Each user's all-time best score per game, maintained on every score save. FRIENDS
+ * leaderboards read one row per friend from here instead of scanning game_scores.
+ */
+@Entity
+@Table(name = "user_best_scores",
+        uniqueConstraints = @UniqueConstraint(name = "uk_best_score_user_game", columnNames = {"user_id", "game_type"}),
+        indexes = @Index(name = "idx_best_score_game_score", columnList = "game_type, score"))
+@Data
+public class UserBestScore {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    @Column(name = "game_type", nullable = false)
+    private String gameType;
+
+    @Column(nullable = false)
+    private int score;
+
+    @Column(nullable = false)
+    private LocalDateTime achievedAt;
+}
@@ -0,0 +1,31 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sink: applies each batch to the local {@link OutboxProjector}s on the relay thread.
+ * If any projector throws, the whole batch is retried, which is safe because projectors are
+ * idempotent.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "inprocess", matchIfMissing = true)
+public class InProcessOutboxSink implements OutboxSink {
+
+    private final List<OutboxProjector> projectors;
+
+    public InProcessOutboxSink(List<OutboxProjector> projectors) {
+        this.projectors = projectors;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> batch) {
+        for (OutboxEvent event : batch) {
+            for (OutboxProjector projector : projectors) {
+                projector.project(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored score as relayed from the {@code score_outbox} table. {@code id} is the outbox row id:
+ * a redelivered event keeps it, so consumers drop redeliveries by the id itself. Ids are taken
+ * when the row is inserted, not when it commits, so a later batch can carry lower ids; they are
+ * no high-water mark.
+ */
+public record OutboxEvent(long id, String type, long scoreId, Long userId, String username,
+                          String gameType, int score, LocalDateTime createdAt) {
+
+    public static final String SCORE_SAVED = "score.saved";
+}
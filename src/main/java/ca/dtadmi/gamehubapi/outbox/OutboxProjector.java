@@ -0,0 +1,10 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+/**
+ * Keeps a read model (Redis board, rollup, cache) in step with stored scores. Events can be
+ * delivered more than once, so applying the same event twice must leave the same result.
+ */
+public interface OutboxProjector {
+
+    void project(OutboxEvent event);
+}
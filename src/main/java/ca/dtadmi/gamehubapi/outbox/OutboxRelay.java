@@ -0,0 +1,104 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Moves committed outbox rows to the configured {@link OutboxSink} in batches.
+ * <p>
+ * Each batch is leased, published and marked as separate short statements, so no transaction or
+ * pooled connection is held while the sink does its I/O. A sink failure releases the lease and the
+ * batch is retried on the next run; while the lease lasts, other nodes don't publish the same rows.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final ScoreOutbox outbox;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration retention;
+    private final Duration claimLease;
+    private final Counter published;
+    private final Counter failures;
+    private final Timer batchTimer;
+
+    public OutboxRelay(ScoreOutbox outbox,
+                       OutboxSink sink,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batchSize:500}") int batchSize,
+                       @Value("${app.outbox.maxBatchesPerRun:20}") int maxBatchesPerRun,
+                       @Value("${app.outbox.retention:P1D}") Duration retention,
+                       @Value("${app.outbox.claimLease:PT30S}") Duration claimLease) {
+        this.outbox = outbox;
+        this.sink = sink;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.retention = retention;
+        this.claimLease = claimLease;
+        this.published = Counter.builder("outbox.events.published")
+                .description("Outbox events handed to the sink").register(meterRegistry);
+        this.failures = Counter.builder("outbox.publish.failures")
+                .description("Outbox batches the sink rejected; they are retried").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.publish").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.pollIntervalMs:500}")
+    public void relay() {
+        try {
+            // Keep draining while batches come back full, up to a cap so one run can't starve others
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (relayBatch() < batchSize) break;
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Outbox relay failed; batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Claim, publish and mark one batch.
+     *
+     * @return the number of events published
+     */
+    public int relayBatch() {
+        List<OutboxEvent> batch = outbox.claim(batchSize, claimLease);
+        if (batch.isEmpty()) return 0;
+        try {
+            batchTimer.record(() -> {
+                try {
+                    sink.publish(batch);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Outbox sink failed: " + e.getMessage(), e);
+                }
+            });
+        } catch (RuntimeException e) {
+            outbox.release(batch);
+            throw e;
+        }
+        outbox.markPublished(batch);
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    @Scheduled(cron = "${app.outbox.purgeCron:0 45 * * * *}")
+    public void purge() {
+        long deleted = outbox.purgePublished(Instant.now().minus(retention), 5000);
+        if (deleted > 0) log.info("Purged {} published outbox rows", deleted);
+    }
+}
@@ -0,0 +1,13 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import java.util.List;
+
+/**
+ * Where {@link OutboxRelay} delivers outbox batches. Delivery is at-least-once: a batch is
+ * marked published only after {@link #publish} returns, so a failure (or a crash) means the
+ * whole batch is delivered again later.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> batch) throws Exception;
+}
@@ -0,0 +1,27 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import ca.dtadmi.gamehubapi.service.LeaderboardService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds stored scores into the Redis global boards the realtime controllers read
+ * ({@code lb:<game>:global}). {@link LeaderboardService#submit} keeps each player's best, so
+ * replaying an event is a no-op.
+ */
+@Component
+public class RedisLeaderboardProjector implements OutboxProjector {
+
+    private final LeaderboardService leaderboardService;
+
+    public RedisLeaderboardProjector(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+
+    @Override
+    public void project(OutboxEvent event) {
+        if (!OutboxEvent.SCORE_SAVED.equals(event.type()) || event.username() == null || event.gameType() == null) {
+            return;
+        }
+        leaderboardService.submit(event.gameType().toLowerCase() + ":global", event.username(), event.score());
+    }
+}
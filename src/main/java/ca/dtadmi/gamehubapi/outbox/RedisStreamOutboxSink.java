@@ -0,0 +1,89 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends each batch to a Redis stream (one script call per event, pipelined in a single round
+ * trip) for consumers in other processes. The stream is trimmed approximately to
+ * {@code maxLength}.
+ * <p>
+ * A batch is redelivered when marking it published fails after the append, so each append first
+ * sets a {@code <stream>:seen:<outboxId>} marker (kept for {@code dedupeWindow}) and is skipped if
+ * the marker exists: an event reaches the stream once. Entries carry the outbox id as well.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "redis")
+public class RedisStreamOutboxSink implements OutboxSink {
+
+    // KEYS[1] stream, KEYS[2] seen marker; ARGV[1] marker ttl s, ARGV[2] max length, ARGV[3..] fields.
+    // Returns the entry id, or nil for an event already appended.
+    private static final byte[] APPEND_ONCE = """
+            if not redis.call('SET', KEYS[2], '1', 'NX', 'EX', ARGV[1]) then return false end
+            return redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[2], '*', unpack(ARGV, 3))
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redis;
+    private final String stream;
+    private final byte[] streamKey;
+    private final byte[] maxLength;
+    private final byte[] dedupeSeconds;
+
+    public RedisStreamOutboxSink(StringRedisTemplate redis,
+                                 @Value("${app.outbox.redis.stream:score-events}") String stream,
+                                 @Value("${app.outbox.redis.maxLength:1000000}") long maxLength,
+                                 @Value("${app.outbox.redis.dedupeWindow:PT1H}") Duration dedupeWindow) {
+        this.redis = redis;
+        this.stream = stream;
+        this.streamKey = bytes(stream);
+        this.maxLength = bytes(Long.toString(maxLength));
+        this.dedupeSeconds = bytes(Long.toString(Math.max(1, dedupeWindow.toSeconds())));
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> batch) {
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (OutboxEvent event : batch) {
+                List<byte[]> keysAndArgs = new ArrayList<>();
+                keysAndArgs.add(streamKey);
+                keysAndArgs.add(bytes(stream + ":seen:" + event.id()));
+                keysAndArgs.add(dedupeSeconds);
+                keysAndArgs.add(maxLength);
+                toFields(event).forEach((k, v) -> {
+                    keysAndArgs.add(bytes(k));
+                    keysAndArgs.add(bytes(v));
+                });
+                connection.scriptingCommands().eval(APPEND_ONCE, ReturnType.VALUE, 2, keysAndArgs.toArray(byte[][]::new));
+            }
+            return null;
+        });
+    }
+
+    static Map<String, String> toFields(OutboxEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("outboxId", Long.toString(event.id()));
+        fields.put("type", event.type());
+        fields.put("scoreId", Long.toString(event.scoreId()));
+        if (event.userId() != null) fields.put("userId", event.userId().toString());
+        if (event.username() != null) fields.put("username", event.username());
+        fields.put("gameType", event.gameType());
+        fields.put("score", Integer.toString(event.score()));
+        if (event.createdAt() != null) fields.put("createdAt", event.createdAt().toString());
+        return fields;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
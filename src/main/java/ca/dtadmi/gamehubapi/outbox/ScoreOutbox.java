@@ -0,0 +1,149 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.ScoreSavedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code score_outbox} table. Rows are appended inside the transaction that stores the
+ * score, so an event exists exactly when its score was committed, and are claimed in id order
+ * by {@link OutboxRelay}.
+ * <p>
+ * A claim is a lease ({@code claimed_until}) rather than a row lock, so the relay publishes
+ * without holding a transaction open; a relay that dies mid-batch just lets its lease run out.
+ * Rows whose payload can't be read are marked failed ({@code failed_at}, {@code last_error}) and
+ * skipped from then on, so one bad row doesn't stall every row behind it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class ScoreOutbox {
+    private static final Logger log = LoggerFactory.getLogger(ScoreOutbox.class);
+    // SKIP LOCKED lets several nodes claim concurrently without handing out the same rows; the
+    // lease is committed with the statement, so nothing stays locked while the batch is published
+    private static final String CLAIM = "UPDATE score_outbox SET claimed_until = now() + make_interval(secs => ?) "
+            + "WHERE id IN (SELECT id FROM score_outbox WHERE published_at IS NULL AND failed_at IS NULL "
+            + "AND (claimed_until IS NULL OR claimed_until < now()) ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id, event_type, payload::text";
+    private static final String PURGE = "DELETE FROM score_outbox WHERE id IN ("
+            + "SELECT id FROM score_outbox WHERE published_at < ? ORDER BY id LIMIT ?)";
+
+    private final JdbcTemplate jdbc;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public ScoreOutbox(JdbcTemplate jdbc, UserRepository userRepository, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    record Payload(long scoreId, Long userId, String username, String gameType, int score,
+                   LocalDateTime createdAt) {
+    }
+
+    // Runs inside the saving transaction, like FriendsLeaderboardService.recordBestScore
+    @EventListener
+    public void append(ScoreSavedEvent event) {
+        if (event.scoreId() == null) return;
+        // The saving transaction already holds the user in its persistence context, so no query
+        String username = event.userId() == null ? null
+                : userRepository.findById(event.userId()).map(User::getUsername).orElse(null);
+        Payload payload = new Payload(event.scoreId(), event.userId(), username, event.gameType(),
+                event.score(), event.createdAt() != null ? event.createdAt() : LocalDateTime.now());
+        jdbc.update("INSERT INTO score_outbox (event_type, aggregate_id, payload) VALUES (?, ?, ?::jsonb)",
+                OutboxEvent.SCORE_SAVED, event.scoreId(), toJson(payload));
+    }
+
+    /**
+     * Lease and return up to {@code limit} unpublished events, in id order. Other relays skip
+     * them until {@code lease} runs out or they are {@linkplain #release released}. Rows that
+     * can't be read are marked failed and left out of the result.
+     */
+    public List<OutboxEvent> claim(int limit, Duration lease) {
+        List<OutboxEvent> events = new ArrayList<>();
+        Map<Long, RuntimeException> unreadable = new LinkedHashMap<>();
+        jdbc.query(CLAIM, rs -> {
+            long id = rs.getLong(1);
+            try {
+                events.add(toEvent(id, rs.getString(2), rs.getString(3)));
+            } catch (RuntimeException e) {
+                unreadable.put(id, e);
+            }
+        }, lease.toMillis() / 1000.0, limit);
+        // Once the claim's connection is back in the pool
+        unreadable.forEach(this::markFailed);
+        // RETURNING doesn't keep the subquery's order
+        events.sort(Comparator.comparingLong(OutboxEvent::id));
+        return events;
+    }
+
+    public void markPublished(List<OutboxEvent> events) {
+        jdbc.update("UPDATE score_outbox SET published_at = now(), claimed_until = NULL WHERE id = ANY(?)",
+                (Object) ids(events));
+    }
+
+    /** Give up the lease on {@code events} so the next run retries them straight away. */
+    public void release(List<OutboxEvent> events) {
+        jdbc.update("UPDATE score_outbox SET claimed_until = NULL WHERE id = ANY(?)", (Object) ids(events));
+    }
+
+    void markFailed(long id, Exception cause) {
+        log.error("Outbox row {} is unreadable and will not be relayed: {}", id, cause.getMessage());
+        jdbc.update("UPDATE score_outbox SET failed_at = now(), claimed_until = NULL, last_error = ? WHERE id = ?",
+                String.valueOf(cause.getMessage()), id);
+    }
+
+    private static Long[] ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+    }
+
+    /**
+     * Delete published rows older than {@code cutoff}, {@code chunk} rows per statement so no
+     * single delete holds locks or bloats WAL for long.
+     */
+    public long purgePublished(Instant cutoff, int chunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbc.update(PURGE, Timestamp.from(cutoff), chunk);
+            total += deleted;
+        } while (deleted == chunk);
+        return total;
+    }
+
+    String toJson(Payload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload not serializable", e);
+        }
+    }
+
+    OutboxEvent toEvent(long id, String type, String json) {
+        try {
+            Payload p = objectMapper.readValue(json, Payload.class);
+            return new OutboxEvent(id, type, p.scoreId(), p.userId(), p.username(), p.gameType(), p.score(),
+                    p.createdAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox payload for row " + id, e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import ca.dtadmi.gamehubapi.service.PresenceService;
 import ca.dtadmi.gamehubapi.service.ProfanityFilter;
 import ca.dtadmi.gamehubapi.service.RunIdService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -28,19 +29,23 @@ public class ChessRealtimeController {
     private final LeaderboardService leaderboardService;
     private final RunIdService runIdService;
     private final FeatureFlagsService flags;
+    private final ScoreIngestStream scoreIngest;
 
     public ChessRealtimeController(SimpMessagingTemplate broker,
                                    ProfanityFilter profanityFilter,
                                    PresenceService presenceService,
                                    LeaderboardService leaderboardService,
                                    RunIdService runIdService,
-                                   FeatureFlagsService flags) {
+                                   FeatureFlagsService flags,
+                                   ObjectProvider<ScoreIngestStream> scoreIngest) {
         this.broker = broker;
         this.profanityFilter = profanityFilter;
         this.presenceService = presenceService;
         this.leaderboardService = leaderboardService;
         this.runIdService = runIdService;
         this.flags = flags;
+        // Only present with app.ingest.mode=stream
+        this.scoreIngest = scoreIngest.getIfAvailable();
     }
 
     private boolean enabled() {
@@ -92,10 +97,15 @@ public class ChessRealtimeController {
     }
 
     @MessageMapping("/chess/leaderboard")
-    public void leaderboard(@Valid @Payload Envelope<@Valid ScoreIn> env) {
+    public void leaderboard(@Valid @Payload Envelope<@Valid ScoreIn> env, Principal principal) {
         if (!enabled() || env == null || env.user == null || env.user.nickname == null || env.payload == null) return;
         int value = Math.max(0, env.payload.value);
         if (value > 1_000_000) return;
+        if (scoreIngest != null) {
+            // Validation, board update and broadcast happen on the ingest workers
+            scoreIngest.enqueue(ScoreFrame.of("chess", env, principal, value));
+            return;
+        }
         if (flags.isEnabled("anti_cheat_enabled")) {
             String runId = env.payload.runId;
             if (!runIdService.validateAndConsume(runId)) {
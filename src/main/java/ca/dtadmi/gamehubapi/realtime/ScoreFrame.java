@@ -0,0 +1,98 @@
+package ca.dtadmi.gamehubapi.realtime;
+
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Envelope;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Room;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.ScoreIn;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.User;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A realtime score submission as queued on the ingest stream: just what the worker needs to
+ * validate, rank, persist and broadcast it. {@code userId} is only set for authenticated STOMP
+ * sessions, never taken from the client payload.
+ * <p>
+ * {@code validated} and {@code attempt} are set only by the worker when it re-queues a frame
+ * whose run id it already consumed; clients never write to the stream directly.
+ */
+public record ScoreFrame(String game, String scope, String roomId, String nickname, String role,
+                         String subscription, Long userId, int value, String runId,
+                         boolean validated, int attempt) {
+
+    static ScoreFrame of(String game, Envelope<ScoreIn> env, Principal principal, int value) {
+        String roomId = env.room != null ? env.room.id : null;
+        String scope = roomId != null ? roomId : game + ":global";
+        Long userId = null;
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof UserPrincipal up) {
+            userId = up.getId();
+        }
+        return new ScoreFrame(game, scope, roomId, env.user.nickname, env.user.role, env.user.subscription,
+                userId, value, env.payload.runId, false, 0);
+    }
+
+    /**
+     * The same frame queued again after a failed attempt; its run id was already checked.
+     */
+    ScoreFrame retry() {
+        return new ScoreFrame(game, scope, roomId, nickname, role, subscription, userId, value, runId, true,
+                attempt + 1);
+    }
+
+    Map<String, String> toFields() {
+        Map<String, String> fields = new HashMap<>(12);
+        fields.put("game", game);
+        fields.put("scope", scope);
+        if (roomId != null) fields.put("room", roomId);
+        fields.put("nick", nickname);
+        if (role != null) fields.put("role", role);
+        if (subscription != null) fields.put("sub", subscription);
+        if (userId != null) fields.put("uid", userId.toString());
+        fields.put("value", Integer.toString(value));
+        if (runId != null) fields.put("run", runId);
+        if (validated) fields.put("ok", "1");
+        if (attempt > 0) fields.put("attempt", Integer.toString(attempt));
+        return fields;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a required field is missing or malformed
+     */
+    static ScoreFrame fromFields(Map<?, ?> fields) {
+        String game = required(fields, "game");
+        String uid = (String) fields.get("uid");
+        String attempt = (String) fields.get("attempt");
+        return new ScoreFrame(game, required(fields, "scope"), (String) fields.get("room"), required(fields, "nick"),
+                (String) fields.get("role"), (String) fields.get("sub"), uid == null ? null : Long.valueOf(uid),
+                Integer.parseInt(required(fields, "value")), (String) fields.get("run"),
+                "1".equals(fields.get("ok")), attempt == null ? 0 : Integer.parseInt(attempt));
+    }
+
+    private static String required(Map<?, ?> fields, String name) {
+        Object v = fields.get(name);
+        if (v == null) throw new IllegalArgumentException("Missing field " + name);
+        return v.toString();
+    }
+
+    /**
+     * Rebuild the envelope parts a leaderboard broadcast echoes back.
+     */
+    Room room() {
+        if (roomId == null) return null;
+        Room room = new Room();
+        room.id = roomId;
+        room.game = game;
+        return room;
+    }
+
+    User user() {
+        User user = new User();
+        user.nickname = nickname;
+        if (role != null) user.role = role;
+        if (subscription != null) user.subscription = subscription;
+        return user;
+    }
+}
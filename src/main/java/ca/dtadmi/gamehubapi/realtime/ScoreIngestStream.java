@@ -0,0 +1,56 @@
+package ca.dtadmi.gamehubapi.realtime;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Producer side of stream ingestion ({@code app.ingest.mode=stream}): realtime controllers hand
+ * score frames here and return, and {@link ScoreIngestWorker}s process them from the stream.
+ * The stream is capped approximately at {@code maxLength} entries so a stalled consumer group
+ * cannot exhaust Redis memory.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingest.mode", havingValue = "stream")
+public class ScoreIngestStream {
+
+    private final StringRedisTemplate redis;
+    private final String stream;
+    private final byte[] streamKey;
+    private final XAddOptions options;
+    private final Counter enqueued;
+
+    public ScoreIngestStream(StringRedisTemplate redis,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.ingest.stream:score-ingest}") String stream,
+                             @Value("${app.ingest.maxLength:100000}") long maxLength) {
+        this.redis = redis;
+        this.stream = stream;
+        this.streamKey = stream.getBytes(StandardCharsets.UTF_8);
+        this.options = XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        this.enqueued = Counter.builder("score.ingest.enqueued").register(meterRegistry);
+    }
+
+    public String stream() {
+        return stream;
+    }
+
+    public void enqueue(ScoreFrame frame) {
+        Map<byte[], byte[]> body = new LinkedHashMap<>();
+        frame.toFields().forEach((k, v) ->
+                body.put(k.getBytes(StandardCharsets.UTF_8), v.getBytes(StandardCharsets.UTF_8)));
+        redis.execute((RedisCallback<Object>) connection -> connection.streamCommands()
+                .xAdd(StreamRecords.newRecord().in(streamKey).ofMap(body), options));
+        enqueued.increment();
+    }
+}
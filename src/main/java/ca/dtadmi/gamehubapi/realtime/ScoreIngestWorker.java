@@ -0,0 +1,406 @@
+package ca.dtadmi.gamehubapi.realtime;
+
+import ca.dtadmi.gamehubapi.features.FeatureFlagsService;
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Entry;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Envelope;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.LeaderboardOut;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.GameService;
+import ca.dtadmi.gamehubapi.service.LeaderboardService;
+import ca.dtadmi.gamehubapi.service.RunIdService;
+import ca.dtadmi.gamehubapi.service.ScoreValidationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer side of stream ingestion: a consumer group over the {@link ScoreIngestStream}, so
+ * every node runs workers and each frame is handled by one of them.
+ * <p>
+ * Frames are processed a batch at a time: validated (per-game range, one-time run id), coalesced
+ * to one Redis board write per player and scope, persisted in a single transaction for
+ * authenticated players, broadcast, then acknowledged. When the batch transaction fails, frames
+ * are persisted one by one so only the failing ones are queued again (as already validated);
+ * after {@code maxDeliveries} attempts a frame goes to the dead-letter stream. Entries left
+ * pending by a crashed node are claimed by the others once idle for {@code minIdle}.
+ * <p>
+ * Each board has one writer per player: a stored score reaches {@code <game>:global} through the
+ * outbox projector when it runs in process, so the worker leaves that board to it for
+ * authenticated players and only writes guests and rooms.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ingest.mode", havingValue = "stream")
+public class ScoreIngestWorker implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ScoreIngestWorker.class);
+
+    private final StringRedisTemplate redis;
+    private final ScoreIngestStream ingest;
+    private final LeaderboardService leaderboardService;
+    private final RunIdService runIdService;
+    private final ScoreValidationService validation;
+    private final FeatureFlagsService flags;
+    private final GameService gameService;
+    private final UserRepository userRepository;
+    private final SimpMessagingTemplate broker;
+    private final TransactionTemplate tx;
+    private final String stream;
+    private final String deadLetterStream;
+    private final String group;
+    private final Consumer consumer;
+    private final int workers;
+    private final int batchSize;
+    private final Duration block;
+    private final Duration minIdle;
+    private final int maxDeliveries;
+    private final boolean globalBoardsFromOutbox;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private volatile boolean running;
+    private ExecutorService pollers;
+    private ScheduledExecutorService reclaimer;
+
+    public ScoreIngestWorker(StringRedisTemplate redis,
+                             ScoreIngestStream ingest,
+                             LeaderboardService leaderboardService,
+                             RunIdService runIdService,
+                             ScoreValidationService validation,
+                             FeatureFlagsService flags,
+                             GameService gameService,
+                             UserRepository userRepository,
+                             SimpMessagingTemplate broker,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.ingest.group:score-workers}") String group,
+                             @Value("${app.ingest.workers:2}") int workers,
+                             @Value("${app.ingest.batchSize:200}") int batchSize,
+                             @Value("${app.ingest.block:1s}") Duration block,
+                             @Value("${app.ingest.minIdle:30s}") Duration minIdle,
+                             @Value("${app.ingest.maxDeliveries:5}") int maxDeliveries,
+                             @Value("${app.outbox.enabled:true}") boolean outboxEnabled,
+                             @Value("${app.outbox.sink:inprocess}") String outboxSink) {
+        this.redis = redis;
+        this.ingest = ingest;
+        this.leaderboardService = leaderboardService;
+        this.runIdService = runIdService;
+        this.validation = validation;
+        this.flags = flags;
+        this.gameService = gameService;
+        this.userRepository = userRepository;
+        this.broker = broker;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.stream = ingest.stream();
+        this.deadLetterStream = stream + ":dead";
+        this.group = group;
+        this.consumer = Consumer.from(group, consumerName());
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.block = block;
+        this.minIdle = minIdle;
+        this.maxDeliveries = Math.max(1, maxDeliveries);
+        // RedisLeaderboardProjector only runs behind the in-process sink
+        this.globalBoardsFromOutbox = outboxEnabled && "inprocess".equals(outboxSink);
+        this.accepted = outcome(meterRegistry, "accepted");
+        this.rejected = outcome(meterRegistry, "rejected");
+        this.retried = outcome(meterRegistry, "retried");
+        this.deadLettered = outcome(meterRegistry, "dead_lettered");
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("score.ingest.frames").tag("outcome", outcome).register(registry);
+    }
+
+    private static String consumerName() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "node");
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    public void start() {
+        createGroup();
+        running = true;
+        pollers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "score-ingest");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pollers.execute(this::pollLoop);
+        }
+        reclaimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "score-ingest-reclaim");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, minIdle.toMillis());
+        reclaimer.scheduleWithFixedDelay(this::reclaim, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (reclaimer != null) reclaimer.shutdownNow();
+        if (pollers != null) {
+            pollers.shutdown();
+            try {
+                // Let in-flight batches finish so they are acknowledged rather than reclaimed later
+                pollers.awaitTermination(block.toMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void createGroup() {
+        byte[] key = stream.getBytes(StandardCharsets.UTF_8);
+        try {
+            redis.execute((RedisCallback<String>) c -> c.streamCommands().xGroupCreate(key, group, ReadOffset.from("0"), true));
+        } catch (RuntimeException e) {
+            String msg = String.valueOf(e.getMessage()) + (e.getCause() != null ? e.getCause().getMessage() : "");
+            if (!msg.contains("BUSYGROUP")) throw e;
+        }
+    }
+
+    private void pollLoop() {
+        StreamOperations<String, Object, Object> ops = redis.opsForStream();
+        StreamReadOptions options = StreamReadOptions.empty().count(batchSize).block(block);
+        while (running) {
+            try {
+                List<MapRecord<String, Object, Object>> records =
+                        ops.read(consumer, options, StreamOffset.create(stream, ReadOffset.lastConsumed()));
+                if (records != null && !records.isEmpty()) handle(records);
+            } catch (RuntimeException e) {
+                if (!running) break;
+                log.warn("Score ingest poll failed: {}", e.getMessage());
+                sleepQuietly(1000);
+            }
+        }
+    }
+
+    void handle(List<MapRecord<String, Object, Object>> records) {
+        List<ScoreFrame> frames = new ArrayList<>(records.size());
+        List<RecordId> ids = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                frames.add(ScoreFrame.fromFields(record.getValue()));
+            } catch (RuntimeException e) {
+                deadLetter(record.getValue(), "unreadable: " + e.getMessage());
+            }
+            ids.add(record.getId());
+        }
+        process(frames);
+        redis.opsForStream().acknowledge(stream, group, ids.toArray(RecordId[]::new));
+    }
+
+    /**
+     * Validate, apply and broadcast one batch. Never throws: frames that could not be applied are
+     * re-queued or dead-lettered, so the caller can always acknowledge the batch.
+     */
+    void process(List<ScoreFrame> frames) {
+        boolean antiCheat = flags.isEnabled("anti_cheat_enabled");
+        List<ScoreFrame> valid = new ArrayList<>(frames.size());
+        for (ScoreFrame f : frames) {
+            if (isValid(f) && (f.validated() || !antiCheat || runIdService.validateAndConsume(f.runId()))) {
+                valid.add(f);
+            } else {
+                rejected.increment();
+            }
+        }
+        if (valid.isEmpty()) return;
+        // One board write per player and scope: only the best score of the batch can matter
+        Map<String, ScoreFrame> best = new LinkedHashMap<>();
+        for (ScoreFrame f : valid) {
+            best.merge(f.scope() + '\u0000' + f.nickname(), f, (a, b) -> b.value() > a.value() ? b : a);
+        }
+        try {
+            // Board writes keep each player's best, so frames queued again may safely repeat them
+            for (ScoreFrame f : best.values()) {
+                if (!boardFromOutbox(f)) leaderboardService.submit(f.scope(), f.nickname(), f.value());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Score ingest batch of {} failed, re-queueing: {}", valid.size(), e.getMessage());
+            for (ScoreFrame f : valid) requeue(f, e);
+            return;
+        }
+        List<ScoreFrame> owned = valid.stream().filter(f -> f.userId() != null).toList();
+        int failed = 0;
+        try {
+            persist(owned);
+        } catch (RuntimeException e) {
+            log.warn("Score ingest batch of {} failed, storing frames one by one: {}", owned.size(), e.getMessage());
+            for (ScoreFrame f : owned) {
+                try {
+                    persist(List.of(f));
+                } catch (RuntimeException frameError) {
+                    failed++;
+                    requeue(f, frameError);
+                }
+            }
+        }
+        accepted.increment(valid.size() - failed);
+        broadcast(best.values());
+    }
+
+    private boolean isValid(ScoreFrame f) {
+        try {
+            validation.validateOrThrow(f.game(), f.value());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private boolean boardFromOutbox(ScoreFrame f) {
+        return globalBoardsFromOutbox && f.userId() != null && f.scope().equals(f.game() + ":global");
+    }
+
+    private void persist(List<ScoreFrame> owned) {
+        if (owned.isEmpty()) return;
+        tx.executeWithoutResult(status -> {
+            for (ScoreFrame f : owned) {
+                gameService.saveScore(userRepository.getReferenceById(f.userId()), f.game(), f.value());
+            }
+        });
+    }
+
+    // Best effort: the score is already stored, a missed broadcast only delays the client's view
+    private void broadcast(Iterable<ScoreFrame> frames) {
+        Map<String, List<Entry>> tops = new HashMap<>();
+        for (ScoreFrame f : frames) {
+            try {
+                List<Entry> top = tops.computeIfAbsent(f.scope(), s -> {
+                    List<Entry> t = leaderboardService.topN(s, 10);
+                    return t == null ? Collections.emptyList() : t;
+                });
+                LeaderboardOut out = new LeaderboardOut();
+                out.top = new ArrayList<>(top);
+                // Boards fed by the outbox list the stored username, and may not have this score yet:
+                // rank the player under that name and let the projector add the entry
+                boolean fromOutbox = boardFromOutbox(f);
+                String member = fromOutbox ? storedUsername(f.userId()) : f.nickname();
+                if (!fromOutbox && out.top.stream().noneMatch(e -> Objects.equals(e.nickname, member))) {
+                    Entry e = new Entry();
+                    e.nickname = member;
+                    e.value = f.value();
+                    out.top.add(0, e);
+                }
+                out.yourRank = member == null ? null : leaderboardService.rankOf(f.scope(), member);
+                Envelope<LeaderboardOut> res = new Envelope<>();
+                res.type = "leaderboard";
+                res.room = f.room();
+                res.user = f.user();
+                res.payload = out;
+                broker.convertAndSend("/topic/" + f.game() + "/leaderboard", res);
+            } catch (RuntimeException e) {
+                log.debug("Leaderboard broadcast for {} failed: {}", f.scope(), e.getMessage());
+            }
+        }
+    }
+
+    private String storedUsername(Long userId) {
+        return userRepository.findById(userId).map(User::getUsername).orElse(null);
+    }
+
+    private void requeue(ScoreFrame frame, RuntimeException cause) {
+        ScoreFrame next = frame.retry();
+        if (next.attempt() >= maxDeliveries) {
+            deadLetter(next.toFields(), cause.getMessage());
+            return;
+        }
+        try {
+            ingest.enqueue(next);
+            retried.increment();
+        } catch (RuntimeException e) {
+            deadLetter(next.toFields(), cause.getMessage());
+        }
+    }
+
+    /**
+     * Pick up entries another consumer received but never acknowledged (it crashed or hung).
+     */
+    void reclaim() {
+        try {
+            StreamOperations<String, Object, Object> ops = redis.opsForStream();
+            PendingMessages pending = ops.pending(stream, group, Range.unbounded(), batchSize);
+            List<RecordId> retry = new ArrayList<>();
+            for (PendingMessage p : pending) {
+                if (p.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) continue;
+                if (p.getTotalDeliveryCount() >= maxDeliveries) {
+                    List<MapRecord<String, Object, Object>> entry =
+                            ops.range(stream, Range.just(p.getIdAsString()));
+                    deadLetter(entry == null || entry.isEmpty() ? Map.of() : entry.get(0).getValue(),
+                            "delivered " + p.getTotalDeliveryCount() + " times");
+                    ops.acknowledge(stream, group, p.getId());
+                } else {
+                    retry.add(p.getId());
+                }
+            }
+            if (!retry.isEmpty()) {
+                List<MapRecord<String, Object, Object>> claimed =
+                        ops.claim(stream, group, consumer.getName(), minIdle, retry.toArray(RecordId[]::new));
+                if (!claimed.isEmpty()) handle(claimed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Score ingest reclaim failed: {}", e.getMessage());
+        }
+    }
+
+    private void deadLetter(Map<?, ?> fields, String reason) {
+        Map<String, String> body = new LinkedHashMap<>();
+        fields.forEach((k, v) -> body.put(String.valueOf(k), String.valueOf(v)));
+        body.put("error", reason == null ? "unknown" : reason);
+        redis.opsForStream().add(StreamRecords.string(body).withStreamKey(deadLetterStream));
+        deadLettered.increment();
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
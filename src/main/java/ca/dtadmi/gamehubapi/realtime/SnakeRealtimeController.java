@@ -7,6 +7,7 @@ import ca.dtadmi.gamehubapi.service.PresenceService;
 import ca.dtadmi.gamehubapi.service.ProfanityFilter;
 import ca.dtadmi.gamehubapi.service.RunIdService;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -28,19 +29,23 @@ public class SnakeRealtimeController {
     private final LeaderboardService leaderboardService;
     private final RunIdService runIdService;
     private final FeatureFlagsService flags;
+    private final ScoreIngestStream scoreIngest;
 
     public SnakeRealtimeController(SimpMessagingTemplate broker,
                                    ProfanityFilter profanityFilter,
                                    PresenceService presenceService,
                                    LeaderboardService leaderboardService,
                                    RunIdService runIdService,
-                                   FeatureFlagsService flags) {
+                                   FeatureFlagsService flags,
+                                   ObjectProvider<ScoreIngestStream> scoreIngest) {
         this.broker = broker;
         this.profanityFilter = profanityFilter;
         this.presenceService = presenceService;
         this.leaderboardService = leaderboardService;
         this.runIdService = runIdService;
         this.flags = flags;
+        // Only present with app.ingest.mode=stream
+        this.scoreIngest = scoreIngest.getIfAvailable();
     }
 
     @MessageMapping("/snake/presence")
@@ -89,11 +94,16 @@ public class SnakeRealtimeController {
     }
 
     @MessageMapping("/snake/score")
-    public void score(@Valid @Payload Envelope<@Valid ScoreIn> env) {
+    public void score(@Valid @Payload Envelope<@Valid ScoreIn> env, Principal principal) {
         if (!flags.isEnabled("realtime_enabled") || env == null || env.user == null || env.user.nickname == null || env.payload == null)
             return;
         int value = Math.max(0, env.payload.value);
         if (value > 1_000_000) return; // clamp
+        if (scoreIngest != null) {
+            // Validation, board update and broadcast happen on the ingest workers
+            scoreIngest.enqueue(ScoreFrame.of("snake", env, principal, value));
+            return;
+        }
         if (flags.isEnabled("anti_cheat_enabled")) {
             String runId = env.payload.runId;
             if (!runIdService.validateAndConsume(runId)) {
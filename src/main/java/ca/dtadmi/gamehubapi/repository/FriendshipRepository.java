@@ -0,0 +1,23 @@
+package ca.dtadmi.gamehubapi.repository;
+
+import ca.dtadmi.gamehubapi.model.Friendship;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
+
+    @Query("SELECT f.friend.id FROM Friendship f WHERE f.user.id = :userId")
+    List<Long> findFriendIds(@Param("userId") Long userId);
+
+    // Reverse adjacency: users whose FRIENDS boards include userId
+    @Query("SELECT f.user.id FROM Friendship f WHERE f.friend.id = :userId")
+    List<Long> findUserIdsHavingFriend(@Param("userId") Long userId);
+
+    // Batched GraphQL User.friends
+    @Query("SELECT f FROM Friendship f JOIN FETCH f.friend WHERE f.user.id IN :userIds ORDER BY f.createdAt ASC")
+    List<Friendship> findWithFriendByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
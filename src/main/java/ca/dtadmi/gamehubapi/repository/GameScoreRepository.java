@@ -1,5 +1,7 @@
 package ca.dtadmi.gamehubapi.repository;
 
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.dto.UserTotalsDto;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,20 +9,65 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface GameScoreRepository extends JpaRepository<GameScore, Long> {
-    @Query("SELECT gs FROM GameScore gs WHERE gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
+    // Users are fetch-joined so a page of scores costs one query instead of one per distinct user
+    @Query("SELECT gs FROM GameScore gs JOIN FETCH gs.user WHERE gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
     List<GameScore> findTopScoresByGameType(@Param("gameType") String gameType, Pageable pageable);
 
+    // Leaderboard read path: one join, only the columns a leaderboard shows. Pass an unsorted Pageable.
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, gs.score, gs.createdAt) "
+            + "FROM GameScore gs JOIN gs.user u WHERE gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
+    List<LeaderboardRowDto> findLeaderboardRows(@Param("gameType") String gameType, Pageable pageable);
+
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, gs.score, gs.createdAt) "
+            + "FROM GameScore gs JOIN gs.user u WHERE gs.gameType = :gameType AND gs.createdAt >= :since "
+            + "ORDER BY gs.score DESC, gs.createdAt ASC")
+    List<LeaderboardRowDto> findLeaderboardRowsSince(@Param("gameType") String gameType,
+                                                     @Param("since") LocalDateTime since,
+                                                     Pageable pageable);
+
+    // FRIENDS boards over a time window: one row per user, their best score in the window and the
+    // first time they reached it, so a few prolific players cannot crowd the others out of the limit
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, gs.score, MIN(gs.createdAt)) "
+            + "FROM GameScore gs JOIN gs.user u WHERE gs.gameType = :gameType AND u.id IN :userIds "
+            + "AND gs.createdAt >= :since AND gs.score = (SELECT MAX(b.score) FROM GameScore b "
+            + "WHERE b.user = gs.user AND b.gameType = :gameType AND b.createdAt >= :since) "
+            + "GROUP BY u.id, u.username, gs.score ORDER BY gs.score DESC, MIN(gs.createdAt) ASC")
+    List<LeaderboardRowDto> findBestRowsForUsersSince(@Param("gameType") String gameType,
+                                                      @Param("userIds") Collection<Long> userIds,
+                                                      @Param("since") LocalDateTime since,
+                                                      Pageable pageable);
+
+    // PERSONAL boards: one user's own runs
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, gs.score, gs.createdAt) "
+            + "FROM GameScore gs JOIN gs.user u WHERE u.id = :userId AND gs.gameType = :gameType "
+            + "ORDER BY gs.score DESC, gs.createdAt ASC")
+    List<LeaderboardRowDto> findUserRows(@Param("userId") Long userId,
+                                         @Param("gameType") String gameType,
+                                         Pageable pageable);
+
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, gs.score, gs.createdAt) "
+            + "FROM GameScore gs JOIN gs.user u WHERE u.id = :userId AND gs.gameType = :gameType "
+            + "AND gs.createdAt >= :since ORDER BY gs.score DESC, gs.createdAt ASC")
+    List<LeaderboardRowDto> findUserRowsSince(@Param("userId") Long userId,
+                                              @Param("gameType") String gameType,
+                                              @Param("since") LocalDateTime since,
+                                              Pageable pageable);
+
     Page<GameScore> findByGameTypeOrderByScoreDescCreatedAtAsc(String gameType, Pageable pageable);
 
-    @Query("SELECT gs FROM GameScore gs WHERE gs.user.id = :userId AND gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
+    @Query("SELECT gs FROM GameScore gs JOIN FETCH gs.user WHERE gs.user.id = :userId AND gs.gameType = :gameType ORDER BY gs.score DESC, gs.createdAt ASC")
     List<GameScore> findUserScores(@Param("userId") Long userId, @Param("gameType") String gameType, Pageable pageable);
 
     // Stats helpers (game-level)
     long countByGameType(String gameType);
 
+    long countByGameTypeAndCreatedAtGreaterThanEqual(String gameType, LocalDateTime since);
+
     @Query("SELECT AVG(gs.score) FROM GameScore gs WHERE gs.gameType = :gameType")
     Double averageScoreByGameType(@Param("gameType") String gameType);
 
@@ -36,9 +83,16 @@ public interface GameScoreRepository extends JpaRepository<GameScore, Long> {
     @Query("SELECT MAX(gs.score) FROM GameScore gs WHERE gs.user.id = :userId")
     Integer maxScoreByUserId(@Param("userId") Long userId);
 
+    // Batched totals for GraphQL User.stats
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.UserTotalsDto(gs.user.id, COUNT(gs), COALESCE(SUM(gs.score), 0)) "
+            + "FROM GameScore gs WHERE gs.user.id IN :userIds GROUP BY gs.user.id")
+    List<UserTotalsDto> totalsByUserIds(@Param("userIds") Collection<Long> userIds);
+
     // Stats helpers (user-level, per game)
     long countByUser_IdAndGameType(Long userId, String gameType);
 
+    long countByUser_IdAndGameTypeAndCreatedAtGreaterThanEqual(Long userId, String gameType, LocalDateTime since);
+
     @Query("SELECT AVG(gs.score) FROM GameScore gs WHERE gs.user.id = :userId AND gs.gameType = :gameType")
     Double averageScoreByUserAndGameType(@Param("userId") Long userId, @Param("gameType") String gameType);
 
@@ -3,14 +3,32 @@ package ca.dtadmi.gamehubapi.repository;
 import ca.dtadmi.gamehubapi.model.RefreshToken;
 import ca.dtadmi.gamehubapi.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Optional;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
 
     long deleteByUser(User user);
 
-    void deleteByExpiresAtBefore(Instant cutoff);
-}
\ No newline at end of file
+    // Revokes a live token and returns its user in one statement: of two concurrent refreshes
+    // with the same token, exactly one gets a row back
+    @Transactional
+    @Query(value = "UPDATE refresh_tokens SET revoked = true "
+            + "WHERE token_hash = :tokenHash AND NOT revoked AND expires_at > :now "
+            + "RETURNING user_id", nativeQuery = true)
+    Optional<Long> revokeForRotation(@Param("tokenHash") String tokenHash, @Param("now") Instant now);
+
+    // Bulk delete of at most :limit expired rows, without loading them
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN ("
+            + "SELECT id FROM refresh_tokens WHERE expires_at < :cutoff ORDER BY expires_at LIMIT :limit)",
+            nativeQuery = true)
+    int deleteExpiredChunk(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
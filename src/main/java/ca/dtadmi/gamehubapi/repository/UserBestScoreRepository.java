@@ -0,0 +1,46 @@
+package ca.dtadmi.gamehubapi.repository;
+
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.model.UserBestScore;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserBestScoreRepository extends JpaRepository<UserBestScore, Long> {
+
+    // Keeps the row only if the new score beats the stored one (ties keep the earlier achievement)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_best_scores (user_id, game_type, score, achieved_at) "
+            + "VALUES (:userId, :gameType, :score, :achievedAt) "
+            + "ON CONFLICT (user_id, game_type) DO UPDATE SET score = EXCLUDED.score, achieved_at = EXCLUDED.achieved_at "
+            + "WHERE user_best_scores.score < EXCLUDED.score", nativeQuery = true)
+    int upsertIfBetter(@Param("userId") Long userId,
+                       @Param("gameType") String gameType,
+                       @Param("score") int score,
+                       @Param("achievedAt") LocalDateTime achievedAt);
+
+    // One-time fill for scores recorded before this table existed
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO user_best_scores (user_id, game_type, score, achieved_at) "
+            + "SELECT DISTINCT ON (user_id, game_type) user_id, game_type, score, created_at FROM game_scores "
+            + "ORDER BY user_id, game_type, score DESC, created_at ASC "
+            + "ON CONFLICT (user_id, game_type) DO NOTHING", nativeQuery = true)
+    int backfillFromGameScores();
+
+    // Served by the (user_id, game_type) unique index, one probe per id
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.LeaderboardRowDto(u.id, u.username, b.score, b.achievedAt) "
+            + "FROM UserBestScore b JOIN b.user u WHERE b.gameType = :gameType AND u.id IN :userIds "
+            + "ORDER BY b.score DESC, b.achievedAt ASC")
+    List<LeaderboardRowDto> findRowsForUsers(@Param("gameType") String gameType,
+                                             @Param("userIds") Collection<Long> userIds,
+                                             Pageable pageable);
+}
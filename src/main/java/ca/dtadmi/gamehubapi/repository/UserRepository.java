@@ -1,8 +1,13 @@
 package ca.dtadmi.gamehubapi.repository;
 
+import ca.dtadmi.gamehubapi.dto.UserRefDto;
 import ca.dtadmi.gamehubapi.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,4 +18,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    // Bulk import: resolve many usernames in one round-trip
+    @Query("SELECT new ca.dtadmi.gamehubapi.dto.UserRefDto(u.id, u.username) FROM User u WHERE u.username IN :usernames")
+    List<UserRefDto> findRefsByUsernameIn(@Param("usernames") Collection<String> usernames);
 }
@@ -1,37 +1,75 @@
-// src/main/java/ca/dtadmi/gamehubapi/security/CustomUserDetailsService.java
 package ca.dtadmi.gamehubapi.security;
 
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Loads users for authentication. Principals can be kept in a small Caffeine cache
+ * ({@code app.auth.userCache.*}) keyed by the lookup (username, email or id); a
+ * {@link UserChangedEvent} drops every entry of that user.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> cache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    @Value("${app.auth.userCache.enabled:true}") boolean cacheEnabled,
+                                    @Value("${app.auth.userCache.maxSize:10000}") long cacheMaxSize,
+                                    @Value("${app.auth.userCache.ttl:5m}") Duration cacheTtl) {
         this.userRepository = userRepository;
+        this.cache = cacheEnabled
+                ? Caffeine.newBuilder().maximumSize(cacheMaxSize).expireAfterWrite(cacheTtl).build()
+                : null;
     }
 
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(usernameOrEmail)
-                .orElseGet(() -> userRepository.findByEmail(usernameOrEmail)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail)));
-        return UserPrincipal.create(user);
+        return cached("name:" + usernameOrEmail, () -> {
+            User user = userRepository.findByUsername(usernameOrEmail)
+                    .orElseGet(() -> userRepository.findByEmail(usernameOrEmail)
+                            .orElseThrow(() -> new UsernameNotFoundException("User not found: " + usernameOrEmail)));
+            return UserPrincipal.create(user);
+        });
     }
 
     @Transactional
     public UserDetails loadUserById(Long id) {
-        User user = userRepository.findById(id).orElseThrow(
-                () -> new UsernameNotFoundException("User not found with id: " + id)
-        );
-        return UserPrincipal.create(user);
+        return cached("id:" + id, () -> {
+            User user = userRepository.findById(id).orElseThrow(
+                    () -> new UsernameNotFoundException("User not found with id: " + id)
+            );
+            return UserPrincipal.create(user);
+        });
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (cache == null || event.userId() == null) return;
+        cache.asMap().values().removeIf(principal -> event.userId().equals(principal.getId()));
+    }
+
+    private UserPrincipal cached(String key, Supplier<UserPrincipal> loader) {
+        if (cache == null) return loader.get();
+        UserPrincipal principal = cache.getIfPresent(key);
+        if (principal == null) {
+            principal = loader.get();
+            cache.put(key, principal);
+        }
+        return principal;
     }
 }
@@ -0,0 +1,155 @@
+package ca.dtadmi.gamehubapi.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Google's Firebase signing keys, read from the JWKS endpoint and kept in memory.
+ * <p>
+ * The key set is fetched on first use and then refreshed in the background shortly before the
+ * response's {@code Cache-Control: max-age} runs out, so verification never waits on the network
+ * after startup. A failed refresh keeps the current keys and retries after {@code retryDelay}.
+ * An unknown key id triggers at most one extra fetch per {@code retryDelay}, which picks up a
+ * rotation early without letting forged key ids hammer the endpoint. The same limit holds while no
+ * keys are loaded, so an unreachable endpoint costs one blocked request per {@code retryDelay}
+ * rather than one per request.
+ */
+public class FirebasePublicKeys implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(FirebasePublicKeys.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    private final URI jwksUri;
+    private final HttpClient http;
+    private final ScheduledExecutorService scheduler;
+    private final Duration retryDelay;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastFetchNanos;
+    private boolean scheduled;
+
+    public FirebasePublicKeys(URI jwksUri) {
+        this(jwksUri, HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build(),
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "firebase-keys-refresh");
+                    t.setDaemon(true);
+                    return t;
+                }), Duration.ofSeconds(30));
+    }
+
+    FirebasePublicKeys(URI jwksUri, HttpClient http, ScheduledExecutorService scheduler, Duration retryDelay) {
+        this.jwksUri = jwksUri;
+        this.http = http;
+        this.scheduler = scheduler;
+        this.retryDelay = retryDelay;
+        // As if the last fetch were a full retryDelay ago, so the first lookup fetches right away
+        this.lastFetchNanos = System.nanoTime() - retryDelay.toNanos();
+    }
+
+    /**
+     * @return the key with this id, or {@code null} when the endpoint does not publish it
+     */
+    public PublicKey get(String keyId) {
+        if (keyId == null) return null;
+        PublicKey key = keys.get(keyId);
+        if (key == null) {
+            synchronized (this) {
+                key = keys.get(keyId);
+                if (key == null && System.nanoTime() - lastFetchNanos >= retryDelay.toNanos()) {
+                    refresh();
+                    key = keys.get(keyId);
+                }
+            }
+        }
+        return key;
+    }
+
+    synchronized void refresh() {
+        lastFetchNanos = System.nanoTime();
+        Duration next;
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(jwksUri).timeout(Duration.ofSeconds(10)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode());
+            }
+            keys = parse(response.body());
+            Duration maxAge = response.headers().firstValue("Cache-Control").map(FirebasePublicKeys::maxAge)
+                    .orElse(DEFAULT_MAX_AGE);
+            // Refresh ahead of expiry so requests keep using a current key set
+            next = maxAge.multipliedBy(9).dividedBy(10);
+            if (next.compareTo(retryDelay) < 0) next = retryDelay;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.warn("Could not refresh Firebase public keys from {}: {}", jwksUri, e.getMessage());
+            next = retryDelay;
+        }
+        scheduleRefresh(next);
+    }
+
+    private void scheduleRefresh(Duration delay) {
+        if (scheduled) return;
+        scheduled = true;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                scheduled = false;
+            }
+            refresh();
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    Map<String, PublicKey> parse(String jwks) throws Exception {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        for (JsonNode jwk : mapper.readTree(jwks).path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")) continue;
+            try {
+                parsed.put(jwk.get("kid").asText(), rsa.generatePublic(new RSAPublicKeySpec(
+                        unsigned(jwk.path("n").asText()), unsigned(jwk.path("e").asText()))));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping unreadable Firebase key {}: {}", jwk.get("kid").asText(), e.getMessage());
+            }
+        }
+        if (parsed.isEmpty()) throw new IllegalStateException("No RSA keys in key set");
+        return Map.copyOf(parsed);
+    }
+
+    static Duration maxAge(String cacheControl) {
+        Matcher m = MAX_AGE.matcher(cacheControl);
+        return m.find() ? Duration.ofSeconds(Long.parseLong(m.group(1))) : DEFAULT_MAX_AGE;
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
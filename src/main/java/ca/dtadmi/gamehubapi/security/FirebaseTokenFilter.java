@@ -1,8 +1,6 @@
 package ca.dtadmi.gamehubapi.security;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -20,10 +18,10 @@ import java.util.List;
 
 public class FirebaseTokenFilter extends OncePerRequestFilter {
 
-    private final FirebaseAuth firebaseAuth;
+    private final FirebaseTokenVerifier verifier;
 
-    public FirebaseTokenFilter(FirebaseAuth firebaseAuth) {
-        this.firebaseAuth = firebaseAuth;
+    public FirebaseTokenFilter(FirebaseTokenVerifier verifier) {
+        this.verifier = verifier;
     }
 
     @Override
@@ -40,8 +38,8 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
         String token = header.replace("Bearer ", "");
 
         try {
-            FirebaseToken decodedToken = firebaseAuth.verifyIdToken(token);
-            String uid = decodedToken.getUid();
+            // Verified locally against cached Google keys; repeat tokens are a cache hit
+            String uid = verifier.verify(token).uid();
 
             // You can add custom claims from the token if needed
             List<GrantedAuthority> authorities = new ArrayList<>();
@@ -53,7 +51,7 @@ public class FirebaseTokenFilter extends OncePerRequestFilter {
             SecurityContextHolder.getContext().setAuthentication(authentication);
             filterChain.doFilter(request, response);
 
-        } catch (FirebaseAuthException e) {
+        } catch (JwtException | IllegalArgumentException e) {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.getWriter().write("{\"error\":\"Unauthorized - Invalid token\"}");
             response.setContentType("application/json");
@@ -0,0 +1,136 @@
+package ca.dtadmi.gamehubapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Verifies Firebase ID tokens locally, with the same checks as {@code FirebaseAuth.verifyIdToken}
+ * (without revocation): RS256 signature by a current Google key, audience and issuer of the
+ * project, non-empty subject, issued and authenticated in the past, not expired.
+ * <p>
+ * Clients resend the same ID token for up to an hour, so verified tokens are cached by SHA-256 of
+ * the token until they expire; a repeat request costs one hash and a map lookup. Rejected tokens
+ * are not cached.
+ */
+public class FirebaseTokenVerifier {
+
+    /**
+     * The verified identity of a Firebase ID token.
+     */
+    public record FirebaseIdToken(String uid, String email, String name, String issuer, Instant expiresAt) {
+    }
+
+    private final FirebasePublicKeys keys;
+    private final Clock clock;
+    private final JwtParser parser;
+    private final Cache<String, FirebaseIdToken> verified;
+
+    public FirebaseTokenVerifier(String projectId, FirebasePublicKeys keys, long maxCachedTokens) {
+        this(projectId, keys, maxCachedTokens, Clock.systemUTC());
+    }
+
+    FirebaseTokenVerifier(String projectId, FirebasePublicKeys keys, long maxCachedTokens, Clock clock) {
+        this.keys = keys;
+        this.clock = clock;
+        this.parser = Jwts.parserBuilder()
+                .requireAudience(projectId)
+                .requireIssuer("https://securetoken.google.com/" + projectId)
+                .setClock(() -> Date.from(clock.instant()))
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                            throw new UnsupportedJwtException("Firebase ID tokens must be signed with RS256");
+                        }
+                        PublicKey key = FirebaseTokenVerifier.this.keys.get(header.getKeyId());
+                        if (key == null) throw new UnsupportedJwtException("Unknown signing key " + header.getKeyId());
+                        return key;
+                    }
+                })
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .ticker(() -> clock.millis() * 1_000_000)
+                .expireAfter(new Expiry<String, FirebaseIdToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, FirebaseIdToken token, long currentTime) {
+                        return Math.max(0, Duration.between(clock.instant(), token.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, FirebaseIdToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, FirebaseIdToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * @throws JwtException             if the token is not a valid, current ID token of this project
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public FirebaseIdToken verify(String token) {
+        if (token == null || token.isBlank()) throw new IllegalArgumentException("ID token is empty");
+        String hash = hash(token);
+        FirebaseIdToken idToken = verified.getIfPresent(hash);
+        if (idToken == null) {
+            idToken = check(parser.parseClaimsJws(token).getBody());
+            verified.put(hash, idToken);
+        }
+        return idToken;
+    }
+
+    private FirebaseIdToken check(Claims claims) {
+        String uid = claims.getSubject();
+        if (uid == null || uid.isEmpty() || uid.length() > 128) {
+            throw new UnsupportedJwtException("ID token has an invalid subject");
+        }
+        if (claims.getExpiration() == null) {
+            throw new UnsupportedJwtException("ID token has no expiry");
+        }
+        Instant now = clock.instant();
+        if (claims.getIssuedAt() == null || claims.getIssuedAt().toInstant().isAfter(now)) {
+            throw new UnsupportedJwtException("ID token is issued in the future");
+        }
+        Object authTime = claims.get("auth_time");
+        if (!(authTime instanceof Number seconds) || Instant.ofEpochSecond(seconds.longValue()).isAfter(now)) {
+            throw new UnsupportedJwtException("ID token has an invalid auth_time");
+        }
+        return new FirebaseIdToken(uid, claims.get("email", String.class), claims.get("name", String.class),
+                claims.getIssuer(), claims.getExpiration().toInstant());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
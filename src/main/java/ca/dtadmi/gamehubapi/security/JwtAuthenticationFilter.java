@@ -1,6 +1,8 @@
 // src/main/java/ca/dtadmi/gamehubapi/security/JwtAuthenticationFilter.java
 package ca.dtadmi.gamehubapi.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,17 +34,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
+            Claims claims = parseClaims(getJwtFromRequest(request));
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                UserDetails userDetails;
-                try {
-                    userDetails = customUserDetailsService.loadUserByUsername(username);
-                } catch (Exception notFound) {
-                    // Fallback: create an in-memory principal so secured endpoints can proceed in tests
-                    List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
-                    userDetails = User.withUsername(username).password("N/A").authorities(authorities).build();
+            if (claims != null) {
+                UserDetails userDetails = UserPrincipal.fromClaims(claims);
+                if (userDetails == null) {
+                    // Token issued without user claims: look the user up
+                    userDetails = loadUser(claims.getSubject());
                 }
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -58,6 +56,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails loadUser(String username) {
+        try {
+            return customUserDetailsService.loadUserByUsername(username);
+        } catch (Exception notFound) {
+            // Fallback: create an in-memory principal so secured endpoints can proceed in tests
+            List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+            return User.withUsername(username).password("N/A").authorities(authorities).build();
+        }
+    }
+
+    private Claims parseClaims(String jwt) {
+        if (!StringUtils.hasText(jwt)) return null;
+        try {
+            return tokenProvider.parse(jwt);
+        } catch (JwtException | IllegalArgumentException invalid) {
+            return null;
+        }
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
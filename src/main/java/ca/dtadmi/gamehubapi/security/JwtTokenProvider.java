@@ -1,10 +1,13 @@
 // src/main/java/ca/dtadmi/gamehubapi/security/JwtTokenProvider.java
 package ca.dtadmi.gamehubapi.security;
 
+import ca.dtadmi.gamehubapi.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,11 +15,25 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 
+/**
+ * Issues and verifies the API's HS256 access tokens.
+ * <p>
+ * The signing key and parser are derived from the secret once, on first use. Verified claims are
+ * cached by SHA-256 of the token for a short TTL, never past the token's own expiry, so a client
+ * sending the same bearer token on every request pays for signature checking and JSON parsing once.
+ * Invalid tokens are not cached.
+ */
 @Component
 public class JwtTokenProvider {
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_USERNAME = "name";
+    public static final String CLAIM_ROLES = "roles";
 
     @Value("${app.jwtSecret:dev-secret}")
     private String jwtSecret;
@@ -24,6 +41,18 @@ public class JwtTokenProvider {
     @Value("${app.jwtExpirationInMs:86400000}")
     private int jwtExpirationInMs;
 
+    @Value("${app.jwtClaimsCache.maxSize:10000}")
+    private long claimsCacheMaxSize = 10_000;
+
+    @Value("${app.jwtClaimsCache.ttl:60s}")
+    private Duration claimsCacheTtl = Duration.ofSeconds(60);
+
+    private record Signing(SecretKey key, JwtParser parser) {
+    }
+
+    private volatile Signing signing;
+    private volatile Cache<String, Claims> claimsCache;
+
     private byte[] signingKey() {
         // Accept both raw text and base64-encoded secrets. If resulting key < 32 bytes,
         // derive a stable 256-bit key via SHA-256 to satisfy HS256 minimum.
@@ -45,8 +74,59 @@ public class JwtTokenProvider {
         }
     }
 
+    private Signing signing() {
+        Signing s = signing;
+        if (s == null) {
+            synchronized (this) {
+                s = signing;
+                if (s == null) {
+                    SecretKey key = Keys.hmacShaKeyFor(signingKey());
+                    s = new Signing(key, Jwts.parserBuilder().setSigningKey(key).build());
+                    signing = s;
+                }
+            }
+        }
+        return s;
+    }
+
     private SecretKey key() {
-        return Keys.hmacShaKeyFor(signingKey());
+        return signing().key();
+    }
+
+    private Cache<String, Claims> claimsCache() {
+        Cache<String, Claims> c = claimsCache;
+        if (c == null) {
+            synchronized (this) {
+                c = claimsCache;
+                if (c == null) {
+                    long ttlNanos = claimsCacheTtl.toNanos();
+                    c = Caffeine.newBuilder()
+                            .maximumSize(claimsCacheMaxSize)
+                            .expireAfter(new Expiry<String, Claims>() {
+                                @Override
+                                public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                                    Date exp = claims.getExpiration();
+                                    if (exp == null) return ttlNanos;
+                                    long left = Duration.ofMillis(exp.getTime() - System.currentTimeMillis()).toNanos();
+                                    return Math.max(0, Math.min(ttlNanos, left));
+                                }
+
+                                @Override
+                                public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                                    return currentDuration;
+                                }
+
+                                @Override
+                                public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                                    return currentDuration;
+                                }
+                            })
+                            .build();
+                    claimsCache = c;
+                }
+            }
+        }
+        return c;
     }
 
     public String generateToken(Authentication authentication) {
@@ -64,6 +144,26 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Generate a JWT for a user: the subject is the email and the token carries the user id,
+     * display name and roles, from which {@link UserPrincipal#fromClaims} rebuilds the principal
+     * without a database lookup. Role or name changes therefore show up at the next token refresh.
+     */
+    public String generateTokenForUser(User user) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
+
+        return Jwts.builder()
+                .setSubject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_USERNAME, user.getUsername())
+                .claim(CLAIM_ROLES, user.getRoles().stream().sorted().toList())
+                .setIssuedAt(now)
+                .setExpiration(expiryDate)
+                .signWith(key(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
     /**
      * Generate a JWT where the subject is explicitly provided (e.g., email).
      * Useful to ensure the token subject is the stable login identifier
@@ -86,33 +186,45 @@ public class JwtTokenProvider {
         return jwtExpirationInMs;
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verify a token and return its claims. The result may be shared with other callers presenting
+     * the same token and must be treated as read-only.
+     *
+     * @throws JwtException             if the token is malformed, badly signed, expired or unsupported
+     * @throws IllegalArgumentException if the token is empty
+     */
+    public Claims parse(String token) {
+        if (token == null || token.isBlank()) throw new IllegalArgumentException("JWT is empty");
+        Cache<String, Claims> cache = claimsCache();
+        String hash = hash(token);
+        Claims claims = cache.getIfPresent(hash);
+        if (claims == null) {
+            claims = signing().parser().parseClaimsJws(token).getBody();
+            cache.put(hash, claims);
+        }
+        return claims;
+    }
 
-        return claims.getSubject();
+    public String getUsernameFromJWT(String token) {
+        return parse(token).getSubject();
     }
 
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
+            parse(authToken);
             return true;
-        } catch (io.jsonwebtoken.io.DecodingException ex) {
-            // token or secret not base64/invalid structure
-        } catch (SignatureException ex) {
-            // invalid signature
-        } catch (MalformedJwtException ex) {
-            // malformed token
-        } catch (ExpiredJwtException ex) {
-            // expired token
-        } catch (UnsupportedJwtException ex) {
-            // unsupported token
-        } catch (IllegalArgumentException ex) {
-            // empty token
+        } catch (JwtException | IllegalArgumentException ex) {
+            // malformed, badly signed, expired, unsupported or empty token
+            return false;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return false;
     }
 }
@@ -0,0 +1,58 @@
+package ca.dtadmi.gamehubapi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link TokenBucket} per client key (user id, IP), each allowing {@code limit} requests per
+ * {@code period} with bursts up to {@code limit}.
+ * <p>
+ * Buckets live in a bounded Caffeine map and are dropped once idle. Idle time is never shorter
+ * than {@code period}, the time an empty bucket takes to refill, so an evicted bucket would have
+ * been full anyway and eviction never hands a client extra tokens. If more than {@code maxKeys}
+ * clients are active at once, the least valuable buckets are evicted early: the bound caps memory
+ * at the cost of some precision under a key-flooding attack.
+ */
+public final class KeyedRateLimiter implements RequestRateLimiter {
+    private final long limit;
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final Cache<String, TokenBucket> buckets;
+    private final Function<String, TokenBucket> newBucket;
+
+    public KeyedRateLimiter(long limit, Duration period, long maxKeys, Duration idle) {
+        this(limit, period, maxKeys, idle, System::nanoTime);
+    }
+
+    KeyedRateLimiter(long limit, Duration period, long maxKeys, Duration idle, LongSupplier clock) {
+        this.limit = Math.max(1, limit);
+        this.intervalNanos = Math.max(1, period.toNanos() / this.limit);
+        this.clock = clock;
+        Duration keep = idle.compareTo(period) < 0 ? period : idle;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(keep)
+                .ticker(clock::getAsLong)
+                .build();
+        this.newBucket = key -> new TokenBucket(this.limit, intervalNanos, clock.getAsLong());
+    }
+
+    @Override
+    public long limit() {
+        return limit;
+    }
+
+    @Override
+    public long tryAcquire(String key, int cost) {
+        return buckets.get(key, newBucket).tryAcquire(clock.getAsLong(), cost);
+    }
+
+    long trackedKeys() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -1,6 +1,5 @@
 package ca.dtadmi.gamehubapi.security;
 
-import io.github.resilience4j.ratelimiter.RateLimiter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,24 +9,36 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
 import java.util.List;
 
+/**
+ * Per-client rate limiting for the REST API: authenticated requests are limited per user id,
+ * anonymous ones per client IP, each key with its own quota, so one noisy client only exhausts
+ * its own.
+ */
 public class RateLimitFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
 
-    private final RateLimiter userRateLimiter;
-    private final RateLimiter guestRateLimiter;
+    private final RequestRateLimiter userRateLimiter;
+    private final RequestRateLimiter guestRateLimiter;
+    private final int forwardedHops;
     private final List<String> excludedPaths = List.of("/actuator/health", "/error");
 
-    public RateLimitFilter(RateLimiter userRateLimiter, RateLimiter guestRateLimiter) {
+    /**
+     * @param forwardedHops number of trusted proxies that append to X-Forwarded-For; the client IP
+     *                      is the entry they appended. 0 ignores the header (direct exposure).
+     */
+    public RateLimitFilter(RequestRateLimiter userRateLimiter, RequestRateLimiter guestRateLimiter, int forwardedHops) {
         this.userRateLimiter = userRateLimiter;
         this.guestRateLimiter = guestRateLimiter;
+        this.forwardedHops = forwardedHops;
     }
 
     @Override
@@ -42,43 +53,45 @@ public class RateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        String clientIp = getClientIP(request);
-
-        RateLimiter limiter = selectLimiter();
-        int limit = limiter.getRateLimiterConfig().getLimitForPeriod();
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean user = auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken);
+        RequestRateLimiter limiter = user ? userRateLimiter : guestRateLimiter;
+        String key = user ? userKey(auth) : "ip:" + getClientIP(request);
 
-        boolean permission = limiter.acquirePermission();
-        int remaining = Math.max(0, (int) limiter.getMetrics().getAvailablePermissions());
-        response.setHeader("X-RateLimit-Limit", String.valueOf(limit));
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+        long result = limiter.tryAcquire(key);
+        response.setHeader("X-RateLimit-Limit", String.valueOf(limiter.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, result)));
 
-        if (permission) {
+        if (result >= 0) {
             filterChain.doFilter(request, response);
         } else {
-            rateLimitExceeded(response, clientIp, requestUri);
+            rateLimitExceeded(response, key, requestUri, -result);
         }
     }
 
-    private RateLimiter selectLimiter() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated()) {
-            return userRateLimiter;
+    private static String userKey(Authentication auth) {
+        if (auth.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return "user:" + principal.getId();
         }
-        return guestRateLimiter;
+        return "user:" + auth.getName();
     }
 
-    private String getClientIP(HttpServletRequest request) {
-        String xfHeader = request.getHeader("X-Forwarded-For");
+    String getClientIP(HttpServletRequest request) {
+        String xfHeader = forwardedHops > 0 ? request.getHeader("X-Forwarded-For") : null;
         if (xfHeader != null && !xfHeader.isBlank()) {
-            return xfHeader.split(",")[0].trim();
+            // Entries left of the ones our proxies appended are client-controlled and can be forged
+            String[] hops = xfHeader.split(",");
+            return hops[Math.max(0, hops.length - forwardedHops)].trim();
         }
         return request.getRemoteAddr();
     }
 
-    private void rateLimitExceeded(HttpServletResponse response, String clientIp, String requestUri) throws IOException {
-        logger.warn("Rate limit exceeded for {} - {}", clientIp, requestUri);
+    private void rateLimitExceeded(HttpServletResponse response, String key, String requestUri, long waitNanos)
+            throws IOException {
+        logger.warn("Rate limit exceeded for {} - {}", key, requestUri);
         response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Duration.ofMinutes(1).toSeconds()));
+        long retryAfter = Math.max(1, (waitNanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.getWriter().write("""
                 {"error":"Too many requests","message":"Rate limit exceeded. Please try again later."}
@@ -0,0 +1,90 @@
+package ca.dtadmi.gamehubapi.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster-wide limiter: the same token-bucket semantics as {@link KeyedRateLimiter}, evaluated
+ * atomically in Redis by one Lua script (GCRA), so all nodes share each client's quota.
+ * <p>
+ * A decision is one EVALSHA round trip; the script keeps a single value per key (its theoretical
+ * arrival time) that expires as soon as the bucket would be full again, and reads the clock with
+ * TIME so app nodes' clock skew does not matter. Unlike fixed minute windows there is no double
+ * burst at window edges. When Redis is unreachable requests are allowed ({@code failOpen}) or
+ * refused for one emission interval.
+ */
+public class RedisRateLimiter implements RequestRateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(RedisRateLimiter.class);
+
+    // KEYS[1] bucket; ARGV[1] emission interval µs, ARGV[2] burst window µs (limit·interval), ARGV[3] cost.
+    // Returns {allowed, remaining, retry-after µs}.
+    static final RedisScript<List> GCRA = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000000 + tonumber(t[2])
+            local interval = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local new_tat = tat + interval * tonumber(ARGV[3])
+            local debt = new_tat - now
+            if debt > window then
+              return {0, math.floor((window - (tat - now)) / interval), debt - window}
+            end
+            redis.call('SET', KEYS[1], string.format('%d', new_tat), 'PX', math.ceil(debt / 1000))
+            return {1, math.floor((window - debt) / interval), 0}
+            """, List.class);
+
+    private final StringRedisTemplate redis;
+    private final String prefix;
+    private final long limit;
+    private final String intervalMicros;
+    private final String windowMicros;
+    private final boolean failOpen;
+    private final long failClosedWaitNanos;
+    private final Counter errors;
+
+    public RedisRateLimiter(StringRedisTemplate redis, String prefix, long limit, Duration period,
+                            boolean failOpen, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.prefix = prefix;
+        this.limit = Math.max(1, limit);
+        long interval = Math.max(1, period.toNanos() / 1000 / this.limit);
+        this.intervalMicros = Long.toString(interval);
+        this.windowMicros = Long.toString(interval * this.limit);
+        this.failOpen = failOpen;
+        this.failClosedWaitNanos = interval * 1000;
+        this.errors = Counter.builder("ratelimit.redis.errors")
+                .description("Rate limit decisions Redis could not make")
+                .tag("limiter", prefix)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public long limit() {
+        return limit;
+    }
+
+    @Override
+    public long tryAcquire(String key, int cost) {
+        try {
+            List<?> result = redis.execute(GCRA, List.of(prefix + key), intervalMicros, windowMicros,
+                    Integer.toString(Math.max(1, cost)));
+            if (result == null || result.size() < 3) throw new IllegalStateException("Unexpected script result");
+            long remaining = Math.max(0, ((Number) result.get(1)).longValue());
+            if (((Number) result.get(0)).longValue() == 1) return remaining;
+            return -Math.max(1, ((Number) result.get(2)).longValue() * 1000);
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.debug("Rate limit check for {} failed: {}", key, e.getMessage());
+            return failOpen ? limit : -failClosedWaitNanos;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ca.dtadmi.gamehubapi.security;
+
+/**
+ * Per-key rate limiter shared by the REST filter and the STOMP interceptor. Implementations are
+ * in-process ({@link KeyedRateLimiter}) or cluster-wide ({@link RedisRateLimiter}).
+ */
+public interface RequestRateLimiter {
+
+    /**
+     * Requests allowed per period, which is also the largest burst.
+     */
+    long limit();
+
+    /**
+     * Take {@code cost} units from {@code key}'s quota.
+     *
+     * @return units left when granted ({@code >= 0}), otherwise minus the nanoseconds until
+     * {@code cost} units are available ({@code < 0})
+     */
+    long tryAcquire(String key, int cost);
+
+    default long tryAcquire(String key) {
+        return tryAcquire(key, 1);
+    }
+}
@@ -1,13 +1,13 @@
 package ca.dtadmi.gamehubapi.security;
 
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterConfig;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.Filter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -40,6 +40,17 @@ public class SecurityConfig {
     private int userRpm;
     @Value("${app.ratelimit.guestRpm:60}")
     private int guestRpm;
+    @Value("${app.ratelimit.maxKeys:100000}")
+    private long rateLimitMaxKeys;
+    @Value("${app.ratelimit.idle:10m}")
+    private Duration rateLimitIdle;
+    @Value("${app.ratelimit.forwardedHops:1}")
+    private int forwardedHops;
+    // local: per-node buckets; redis: one quota per client across all nodes (shared with STOMP)
+    @Value("${app.ratelimit.backend:local}")
+    private String rateLimitBackend;
+    @Value("${app.ratelimit.failOpen:true}")
+    private boolean rateLimitFailOpen;
 
     public SecurityConfig(JwtAuthenticationEntryPoint unauthorizedHandler) {
         this.unauthorizedHandler = unauthorizedHandler;
@@ -116,36 +127,30 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Per-key quotas: each user / client IP gets its own instead of sharing one limiter
     @Bean
-    public RateLimiterRegistry rateLimiterRegistry() {
-        // Registry can hold multiple independent limiters
-        return RateLimiterRegistry.ofDefaults();
+    public RequestRateLimiter userRateLimiter(ObjectProvider<StringRedisTemplate> redis, MeterRegistry meterRegistry) {
+        return requestRateLimiter("user", userRpm, redis, meterRegistry);
     }
 
     @Bean
-    public RateLimiter userRateLimiter(RateLimiterRegistry registry) {
-        return registry.rateLimiter("api-user",
-                RateLimiterConfig.custom()
-                        .limitForPeriod(Math.max(1, userRpm))
-                        .limitRefreshPeriod(Duration.ofMinutes(1))
-                        .timeoutDuration(Duration.ofSeconds(2))
-                        .build());
+    public RequestRateLimiter guestRateLimiter(ObjectProvider<StringRedisTemplate> redis, MeterRegistry meterRegistry) {
+        return requestRateLimiter("guest", guestRpm, redis, meterRegistry);
     }
 
-    @Bean
-    public RateLimiter guestRateLimiter(RateLimiterRegistry registry) {
-        return registry.rateLimiter("api-guest",
-                RateLimiterConfig.custom()
-                        .limitForPeriod(Math.max(1, guestRpm))
-                        .limitRefreshPeriod(Duration.ofMinutes(1))
-                        .timeoutDuration(Duration.ofSeconds(2))
-                        .build());
+    private RequestRateLimiter requestRateLimiter(String tier, int rpm, ObjectProvider<StringRedisTemplate> redis,
+                                                  MeterRegistry meterRegistry) {
+        if ("redis".equalsIgnoreCase(rateLimitBackend)) {
+            return new RedisRateLimiter(redis.getObject(), "rl:http:" + tier + ":", Math.max(1, rpm),
+                    Duration.ofMinutes(1), rateLimitFailOpen, meterRegistry);
+        }
+        return new KeyedRateLimiter(Math.max(1, rpm), Duration.ofMinutes(1), rateLimitMaxKeys, rateLimitIdle);
     }
 
     @Bean
-    public FilterRegistrationBean<Filter> rateLimitFilter(RateLimiter userRateLimiter, RateLimiter guestRateLimiter) {
+    public FilterRegistrationBean<Filter> rateLimitFilter(RequestRateLimiter userRateLimiter, RequestRateLimiter guestRateLimiter) {
         FilterRegistrationBean<Filter> registrationBean = new FilterRegistrationBean<>();
-        registrationBean.setFilter(new RateLimitFilter(userRateLimiter, guestRateLimiter));
+        registrationBean.setFilter(new RateLimitFilter(userRateLimiter, guestRateLimiter, forwardedHops));
         registrationBean.addUrlPatterns("/api/*");
         return registrationBean;
     }
@@ -0,0 +1,60 @@
+package ca.dtadmi.gamehubapi.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code capacity} tokens, refilled one token every
+ * {@code intervalNanos}.
+ * <p>
+ * The whole state is one timestamp: the instant at which the bucket would be full again
+ * (tokens = (now + capacity·interval − fullAt) / interval). Taking a token moves it one interval
+ * later, so acquiring is a single CAS and needs no refill thread.
+ */
+public final class TokenBucket {
+    private final long intervalNanos;
+    private final long windowNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, long intervalNanos, long nowNanos) {
+        if (capacity < 1 || intervalNanos < 1) throw new IllegalArgumentException("capacity and interval must be positive");
+        this.intervalNanos = intervalNanos;
+        this.windowNanos = Math.multiplyExact(capacity, intervalNanos);
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Try to take one token.
+     *
+     * @return the tokens left ({@code >= 0}) when granted, otherwise minus the nanoseconds until
+     * the next token is available ({@code < 0})
+     */
+    public long tryAcquire(long nowNanos) {
+        return tryAcquire(nowNanos, 1);
+    }
+
+    /**
+     * Try to take {@code cost} tokens at once; same result convention as {@link #tryAcquire(long)}.
+     */
+    public long tryAcquire(long nowNanos, int cost) {
+        long increment = intervalNanos * Math.max(1, cost);
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + increment;
+            long debt = next - nowNanos;
+            if (debt > windowNanos) {
+                return -Math.max(1, debt - windowNanos);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return (windowNanos - debt) / intervalNanos;
+            }
+        }
+    }
+
+    /**
+     * Tokens available at {@code nowNanos}, without taking one.
+     */
+    public long available(long nowNanos) {
+        long debt = Math.max(0, fullAt.get() - nowNanos);
+        return Math.max(0, (windowNanos - debt) / intervalNanos);
+    }
+}
@@ -0,0 +1,8 @@
+package ca.dtadmi.gamehubapi.security;
+
+/**
+ * Published after a user's roles or profile (username, email) changed, so anything caching the
+ * user's principal can drop it.
+ */
+public record UserChangedEvent(Long userId) {
+}
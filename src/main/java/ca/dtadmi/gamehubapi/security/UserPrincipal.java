@@ -3,6 +3,7 @@ package ca.dtadmi.gamehubapi.security;
 
 import ca.dtadmi.gamehubapi.model.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -47,6 +48,26 @@ public class UserPrincipal implements UserDetails {
         );
     }
 
+    /**
+     * Principal carried by an access token issued with {@link JwtTokenProvider#generateTokenForUser},
+     * so authenticated requests need no user lookup. Returns {@code null} for tokens without the
+     * user claims (issued before they existed); callers fall back to loading the user.
+     */
+    public static UserPrincipal fromClaims(Claims claims) {
+        if (!(claims.get(JwtTokenProvider.CLAIM_USER_ID) instanceof Number id)) return null;
+        String username = claims.get(JwtTokenProvider.CLAIM_USERNAME, String.class);
+        List<GrantedAuthority> authorities = claims.get(JwtTokenProvider.CLAIM_ROLES) instanceof Collection<?> roles
+                ? roles.stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role))).toList()
+                : List.of();
+        return new UserPrincipal(
+                id.longValue(),
+                username != null ? username : claims.getSubject(),
+                claims.getSubject(),
+                null,
+                authorities
+        );
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,130 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.graphql.types.TimeWindow;
+import ca.dtadmi.gamehubapi.repository.FriendshipRepository;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserBestScoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * FRIENDS-scope leaderboards: the requesting user and their friends, ranked by best score.
+ * <p>
+ * All-time boards read {@code user_best_scores}, one indexed row per member, so cost follows
+ * the friend count rather than the size of game_scores. Windowed boards aggregate the members'
+ * runs since the window start in SQL, one best row per member. Boards are cached per
+ * (user, game, window) and evicted when the user or one of their friends records a score.
+ */
+@Service
+public class FriendsLeaderboardService {
+    public static final String FRIENDS_CACHE = "friendsLeaderboard";
+    // Upper bound on board size; friend lists beyond this are truncated
+    static final int MAX_MEMBERS = 1000;
+    private static final Logger log = LoggerFactory.getLogger(FriendsLeaderboardService.class);
+
+    private final GameScoreRepository gameScoreRepository;
+    private final UserBestScoreRepository bestScoreRepository;
+    private final FriendshipRepository friendshipRepository;
+    private final CacheManager cacheManager;
+
+    public FriendsLeaderboardService(GameScoreRepository gameScoreRepository,
+                                     UserBestScoreRepository bestScoreRepository,
+                                     FriendshipRepository friendshipRepository,
+                                     CacheManager cacheManager,
+                                     LoadingCacheRegistry loadingCaches) {
+        this.gameScoreRepository = gameScoreRepository;
+        this.bestScoreRepository = bestScoreRepository;
+        this.friendshipRepository = friendshipRepository;
+        this.cacheManager = cacheManager;
+        loadingCaches.register(FRIENDS_CACHE, key -> loadBoard((String) key));
+    }
+
+    public static String boardKey(Long userId, String gameType, TimeWindow window) {
+        // ':' because both game slugs and window names may contain '_'
+        return userId + ":" + gameType + ":" + (window == null ? TimeWindow.ALL_TIME : window).name();
+    }
+
+    /**
+     * Full ranked board for {@code userId}; callers page through it.
+     */
+    @Cacheable(value = FRIENDS_CACHE,
+            key = "T(ca.dtadmi.gamehubapi.service.FriendsLeaderboardService).boardKey(#userId, #gameType, #window)",
+            sync = true)
+    public List<LeaderboardRowDto> friendsBoard(Long userId, String gameType, TimeWindow window) {
+        return loadBoard(boardKey(userId, gameType, window));
+    }
+
+    // Runs inside the saving transaction so the best-score row commits (or rolls back) with the score
+    @EventListener
+    public void recordBestScore(ScoreSavedEvent event) {
+        if (event.userId() == null) return;
+        bestScoreRepository.upsertIfBetter(event.userId(), event.gameType(), event.score(),
+                event.createdAt() != null ? event.createdAt() : LocalDateTime.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onScoreSaved(ScoreSavedEvent event) {
+        if (event.userId() == null) return;
+        Cache cache = cacheManager.getCache(FRIENDS_CACHE);
+        if (cache == null) return;
+        // Friendships are symmetric, so the boards showing this user are the user's and their friends'
+        List<Long> affected = new ArrayList<>(friendshipRepository.findUserIdsHavingFriend(event.userId()));
+        affected.add(event.userId());
+        for (Long userId : affected) {
+            for (TimeWindow window : TimeWindow.values()) {
+                cache.evict(boardKey(userId, event.gameType(), window));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBestScores() {
+        try {
+            if (bestScoreRepository.count() == 0) {
+                int rows = bestScoreRepository.backfillFromGameScores();
+                if (rows > 0) log.info("Backfilled {} best-score rows", rows);
+            }
+        } catch (Exception e) {
+            log.warn("Best-score backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    List<LeaderboardRowDto> loadBoard(String key) {
+        int first = key.indexOf(':');
+        int last = key.lastIndexOf(':');
+        Long userId = Long.valueOf(key.substring(0, first));
+        String gameType = key.substring(first + 1, last);
+        TimeWindow window = TimeWindow.valueOf(key.substring(last + 1));
+
+        Set<Long> members = new LinkedHashSet<>();
+        members.add(userId);
+        for (Long friendId : friendshipRepository.findFriendIds(userId)) {
+            if (members.size() >= MAX_MEMBERS) break;
+            members.add(friendId);
+        }
+
+        LocalDateTime since = window.since(LocalDateTime.now());
+        if (since == null) {
+            return GameService.ranked(bestScoreRepository.findRowsForUsers(gameType, members,
+                    PageRequest.of(0, MAX_MEMBERS)), 1);
+        }
+        return GameService.ranked(gameScoreRepository.findBestRowsForUsersSince(gameType, members, since,
+                PageRequest.of(0, MAX_MEMBERS)), 1);
+    }
+}
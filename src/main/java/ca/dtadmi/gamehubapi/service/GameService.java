@@ -1,66 +1,114 @@
 // src/main/java/ca/dtadmi/gamehubapi/service/GameService.java
 package ca.dtadmi.gamehubapi.service;
 
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 @Service
 public class GameService {
     private static final int LEADERBOARD_SIZE = 10;
     private static final int USER_SCORES_LIMIT = 5;
+    private static final String LEADERBOARD_CACHE = "leaderboard";
+    private static final String USER_SCORES_CACHE = "userScores";
+    // Same ordering as the repository queries: best score first, earliest submission wins ties
+    private static final Comparator<GameScore> RANKING = Comparator
+            .comparingInt(GameScore::getScore).reversed()
+            .thenComparing(GameScore::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()));
+    private static final Comparator<LeaderboardRowDto> ROW_RANKING = Comparator
+            .comparingInt(LeaderboardRowDto::score).reversed()
+            .thenComparing(LeaderboardRowDto::createdAt, Comparator.nullsLast(Comparator.naturalOrder()));
 
     private final GameScoreRepository gameScoreRepository;
+    private final CacheManager cacheManager;
+    private final LoadingCacheRegistry loadingCaches;
+    private final ApplicationEventPublisher events;
 
-    public GameService(GameScoreRepository gameScoreRepository) {
+    public GameService(GameScoreRepository gameScoreRepository, CacheManager cacheManager,
+                       LoadingCacheRegistry loadingCaches, ApplicationEventPublisher events) {
         this.gameScoreRepository = gameScoreRepository;
+        this.cacheManager = cacheManager;
+        this.loadingCaches = loadingCaches;
+        this.events = events;
+        // Loaders mirror the @Cacheable methods below and refresh their entries in the background
+        loadingCaches.register(LEADERBOARD_CACHE, key -> "ALL".equals(key)
+                ? loadAllLeaderboards()
+                : getLeaderboard((String) key, LEADERBOARD_SIZE));
+        loadingCaches.register(USER_SCORES_CACHE, this::loadUserScores);
     }
 
     @Transactional
-    @CacheEvict(value = {"leaderboard", "userScores"}, allEntries = true)
     public GameScore saveScore(User user, String gameType, int score) {
         GameScore gameScore = new GameScore();
         gameScore.setUser(user);
         gameScore.setGameType(gameType);
         gameScore.setScore(score);
-        return gameScoreRepository.save(gameScore);
+        GameScore saved = gameScoreRepository.save(gameScore);
+        // Only touch cache entries the new score can affect, and only once the row is visible to readers
+        afterCommit(() -> refreshCachedScores(saved));
+        events.publishEvent(new ScoreSavedEvent(saved.getId(),
+                saved.getUser() != null ? saved.getUser().getId() : null,
+                saved.getGameType(), saved.getScore(), saved.getCreatedAt()));
+        return saved;
     }
 
-    @Cacheable(value = "leaderboard", key = "#gameType")
-    public List<GameScore> getLeaderboard(String gameType) {
+    @Cacheable(value = "leaderboard", key = "#gameType", sync = true)
+    public List<LeaderboardRowDto> getLeaderboard(String gameType) {
         return getLeaderboard(gameType, LEADERBOARD_SIZE);
     }
 
-    public List<GameScore> getLeaderboard(String gameType, Integer limit) {
+    public List<LeaderboardRowDto> getLeaderboard(String gameType, Integer limit) {
         int size = (limit == null || limit <= 0) ? LEADERBOARD_SIZE : Math.min(limit, 100);
-        Pageable pageable = PageRequest.of(0, size, Sort.by("score").descending().and(Sort.by("createdAt").ascending()));
-        return gameScoreRepository.findTopScoresByGameType(gameType, pageable);
+        return ranked(gameScoreRepository.findLeaderboardRows(gameType, PageRequest.of(0, size)), 1);
+    }
+
+    /**
+     * Number rows consecutively starting at {@code firstRank}, in the order given.
+     */
+    public static List<LeaderboardRowDto> ranked(List<LeaderboardRowDto> rows, int firstRank) {
+        List<LeaderboardRowDto> out = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            out.add(rows.get(i).withRank(firstRank + i));
+        }
+        return out;
     }
 
     // Legacy aggregate endpoint support
-    @Cacheable(value = "leaderboard", key = "'ALL'")
-    public Map<String, List<GameScore>> getLeaderboard() {
-        Map<String, List<GameScore>> map = new LinkedHashMap<>();
+    @Cacheable(value = "leaderboard", key = "'ALL'", sync = true)
+    public Map<String, List<LeaderboardRowDto>> getLeaderboard() {
+        return loadAllLeaderboards();
+    }
+
+    private Map<String, List<LeaderboardRowDto>> loadAllLeaderboards() {
+        Map<String, List<LeaderboardRowDto>> map = new LinkedHashMap<>();
         for (String game : List.of("snake", "memory", "breakout", "tetris")) {
             map.put(game, getLeaderboard(game));
         }
         return map;
     }
 
-    @Cacheable(value = "userScores", key = "#userId + '_' + #gameType")
+    @Cacheable(value = "userScores", key = "#userId + '_' + #gameType", sync = true)
     public List<GameScore> getUserScores(Long userId, String gameType) {
         return getUserScores(userId, gameType, USER_SCORES_LIMIT);
     }
@@ -71,8 +119,11 @@ public class GameService {
         return gameScoreRepository.findUserScores(userId, gameType, pageable);
     }
 
+    // Legacy list endpoint: keeps returning full score objects for existing clients
     public List<GameScore> recentScores(String gameType, Integer limit) {
-        return getLeaderboard(gameType, limit);
+        int size = (limit == null || limit <= 0) ? LEADERBOARD_SIZE : Math.min(limit, 100);
+        Pageable pageable = PageRequest.of(0, size, Sort.by("score").descending().and(Sort.by("createdAt").ascending()));
+        return gameScoreRepository.findTopScoresByGameType(gameType, pageable);
     }
 
     public Page<GameScore> pageRecentScores(String gameType, Pageable pageable) {
@@ -85,19 +136,95 @@ public class GameService {
     }
 
     // Legacy aggregate endpoint support
-    @Cacheable(value = "userScores", key = "#userId + '_ALL'")
+    @Cacheable(value = "userScores", key = "#userId + '_ALL'", sync = true)
     public Map<String, List<GameScore>> getUserScores(Long userId) {
+        return loadAllUserScores(userId);
+    }
+
+    private Map<String, List<GameScore>> loadAllUserScores(Long userId) {
         Map<String, List<GameScore>> map = new LinkedHashMap<>();
         for (String game : List.of("snake", "memory", "breakout", "tetris")) {
-            map.put(game, getUserScores(userId, game));
+            map.put(game, getUserScores(userId, game, USER_SCORES_LIMIT));
         }
         return map;
     }
 
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
-    @CacheEvict(value = {"leaderboard", "userScores"}, allEntries = true)
-    public void clearCache() {
-        // Cache cleared by annotation
+    // userScores keys are "<userId>_<gameType>" or "<userId>_ALL" (see the @Cacheable keys above)
+    private Object loadUserScores(Object key) {
+        String k = String.valueOf(key);
+        int sep = k.indexOf('_');
+        Long userId = Long.valueOf(k.substring(0, sep));
+        String gameType = k.substring(sep + 1);
+        return "ALL".equals(gameType)
+                ? loadAllUserScores(userId)
+                : getUserScores(userId, gameType, USER_SCORES_LIMIT);
+    }
+
+    /**
+     * Merge a freshly saved score into the cached top-N lists for its game and user, and
+     * evict the legacy aggregate entries that embed those lists. Other games and users
+     * keep their cached snapshots. Cached stats for the same game/user are reloaded in the
+     * background rather than dropped, so readers never wait on the aggregate queries.
+     */
+    void refreshCachedScores(GameScore saved) {
+        if (saved == null || saved.getGameType() == null) return;
+        String gameType = saved.getGameType();
+        Long userId = saved.getUser() != null ? saved.getUser().getId() : null;
+
+        Cache leaderboard = cacheManager.getCache(LEADERBOARD_CACHE);
+        if (leaderboard != null) {
+            LeaderboardRowDto row = new LeaderboardRowDto(userId,
+                    saved.getUser() != null ? saved.getUser().getUsername() : null,
+                    saved.getScore(), saved.getCreatedAt());
+            mergeIntoCachedTop(leaderboard, gameType, row, ROW_RANKING, LEADERBOARD_SIZE, rows -> ranked(rows, 1));
+            leaderboard.evict("ALL");
+        }
+        Cache userScores = cacheManager.getCache(USER_SCORES_CACHE);
+        if (userScores != null && userId != null) {
+            mergeIntoCachedTop(userScores, userId + "_" + gameType, saved, RANKING, USER_SCORES_LIMIT, UnaryOperator.identity());
+            userScores.evict(userId + "_ALL");
+        }
+        loadingCaches.refreshIfPresent(StatsService.GAME_STATS_CACHE, gameType);
+        if (userId != null) {
+            loadingCaches.refreshIfPresent(StatsService.USER_STATS_CACHE, StatsService.userStatsKey(userId, gameType));
+            loadingCaches.refreshIfPresent(StatsService.USER_STATS_CACHE, StatsService.userStatsKey(userId, null));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void mergeIntoCachedTop(Cache cache, Object key, T saved, Comparator<T> ranking, int size,
+                                        UnaryOperator<List<T>> finish) {
+        List<T> cached = cache.get(key, List.class);
+        if (cached == null) {
+            // Nothing cached yet: the next read loads a fresh snapshot
+            return;
+        }
+        // A short list is the complete result set, so the new score always belongs in it;
+        // a full list only changes when the new score outranks its last entry.
+        if (cached.size() >= size && ranking.compare(saved, cached.get(cached.size() - 1)) >= 0) {
+            return;
+        }
+        List<T> merged = new ArrayList<>(cached.size() + 1);
+        merged.addAll(cached);
+        merged.add(saved);
+        merged.sort(ranking);
+        if (merged.size() > size) {
+            merged = merged.subList(0, size);
+        }
+        cache.put(key, List.copyOf(finish.apply(merged)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     public boolean isFeatureEnabled(String featureName) {
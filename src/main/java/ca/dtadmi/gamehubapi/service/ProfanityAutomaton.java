@@ -0,0 +1,160 @@
+package ca.dtadmi.gamehubapi.service;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Aho–Corasick automaton over the folded alphabet {@code a-z}, compiled into a dense transition
+ * table so the scan is one array read per character with no failure-link chasing.
+ * <p>
+ * {@link #fold} maps text onto that alphabet: case, accents, leetspeak digits and symbols, and
+ * Greek/Cyrillic/fullwidth look-alikes become plain letters; separators that are used to break up
+ * words ({@code b.a.d}, zero-width spaces, combining marks) are skipped; anything else ends the
+ * current word.
+ */
+final class ProfanityAutomaton {
+    static final int ALPHABET = 26;
+    /** Character inside a word that does not count as a letter, e.g. {@code .} in {@code b.a.d}. */
+    static final int SKIP = -1;
+    /** Character that ends a word: whitespace, other punctuation, unknown scripts. */
+    static final int BREAK = -2;
+
+    private static final byte[] FOLD = new byte[0x530];
+
+    static {
+        Arrays.fill(FOLD, (byte) BREAK);
+        // Accented Latin letters fold to their base letter
+        for (char c = 0xC0; c < 0x250; c++) {
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            if (base < 0x80 && Character.isLetter(base)) FOLD[c] = (byte) (Character.toLowerCase(base) - 'a');
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            FOLD[c] = (byte) (c - 'a');
+            FOLD[Character.toUpperCase(c)] = (byte) (c - 'a');
+        }
+        map("0o1i2z3e4a5s6g7t8b9g@a$s!i|l");
+        map("ßsøoØoðdÐdłlŁlđdĐd");
+        // Greek and Cyrillic look-alikes
+        map("αaΑaβbΒbεeΕeζzΖzΗhιiΙiκkΚkμuΜmνvΝnοoΟoρpΡpτtΤtυuΥyχxΧx");
+        map("аaАaвbВbеeЕeёeЁeкkКkмmМmнhНhоoОoрpРpсcСcтtТtуyУyхxХxѕsЅsіiІiјjЈjԁdԀd");
+        for (char c : ".-_*'~\u00AD".toCharArray()) FOLD[c] = SKIP;
+        for (char c = 0x300; c < 0x370; c++) FOLD[c] = SKIP;
+    }
+
+    private static void map(String pairs) {
+        for (int i = 0; i < pairs.length(); i += 2) FOLD[pairs.charAt(i)] = (byte) (pairs.charAt(i + 1) - 'a');
+    }
+
+    static int fold(char c) {
+        if (c < FOLD.length) return FOLD[c];
+        if (c >= 0xFF01 && c <= 0xFF5E) return fold((char) (c - 0xFEE0)); // fullwidth ASCII
+        return switch (c) {
+            case '\u200B', '\u200C', '\u200D', '\u2060', '\uFEFF' -> SKIP; // zero-width
+            case '\u20AC' -> 'e' - 'a';
+            default -> BREAK;
+        };
+    }
+
+    /**
+     * @return {@code word} folded onto {@code a-z}, or {@code null} if it contains a word break
+     */
+    static String foldWord(String word) {
+        StringBuilder sb = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            int c = fold(word.charAt(i));
+            if (c == BREAK) return null;
+            if (c >= 0) sb.append((char) ('a' + c));
+        }
+        return sb.toString();
+    }
+
+    private final int[] next;
+    private final int[] length;
+    private final int[] output;
+    private final int patterns;
+
+    /**
+     * @param words folded words (see {@link #foldWord})
+     */
+    ProfanityAutomaton(Collection<String> words) {
+        int capacity = 1;
+        for (String w : words) capacity += w.length();
+        int[] next = new int[capacity * ALPHABET];
+        int[] length = new int[capacity];
+        int nodes = 1;
+        int patterns = 0;
+        for (String w : words) {
+            if (w.isEmpty()) continue;
+            int node = 0;
+            for (int i = 0; i < w.length(); i++) {
+                int slot = node * ALPHABET + (w.charAt(i) - 'a');
+                if (next[slot] == 0) next[slot] = nodes++;
+                node = next[slot];
+            }
+            if (length[node] == 0) patterns++;
+            length[node] = w.length();
+        }
+        next = Arrays.copyOf(next, nodes * ALPHABET);
+        length = Arrays.copyOf(length, nodes);
+
+        // Breadth-first: point missing transitions at the failure node's, and link each node to the
+        // longest pattern that is a proper suffix of it
+        int[] fail = new int[nodes];
+        int[] output = new int[nodes];
+        Arrays.fill(output, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (next[c] != 0) queue.add(next[c]);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            int f = fail[node];
+            output[node] = length[f] > 0 ? f : output[f];
+            for (int c = 0; c < ALPHABET; c++) {
+                int slot = node * ALPHABET + c;
+                if (next[slot] != 0) {
+                    fail[next[slot]] = next[f * ALPHABET + c];
+                    queue.add(next[slot]);
+                } else {
+                    next[slot] = next[f * ALPHABET + c];
+                }
+            }
+        }
+        this.next = next;
+        this.length = length;
+        this.output = output;
+        this.patterns = patterns;
+    }
+
+    int step(int state, int c) {
+        return next[state * ALPHABET + c];
+    }
+
+    /**
+     * @return the node of the longest pattern ending in {@code state}, or -1
+     */
+    int firstMatch(int state) {
+        return length[state] > 0 ? state : output[state];
+    }
+
+    /**
+     * @return the node of the next shorter pattern ending where {@code match} ends, or -1
+     */
+    int nextMatch(int match) {
+        return output[match];
+    }
+
+    int length(int match) {
+        return length[match];
+    }
+
+    int patterns() {
+        return patterns;
+    }
+
+    int states() {
+        return length.length;
+    }
+}
@@ -1,37 +1,128 @@
 package ca.dtadmi.gamehubapi.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
+/**
+ * Masks dictionary words in chat messages.
+ * <p>
+ * The dictionary ({@code app.profanity.dictionary}, one word per line, {@code #} comments) is
+ * compiled once into a {@link ProfanityAutomaton}, so a message is scanned in a single pass
+ * whatever the dictionary size. Text is folded while scanning, which catches {@code B4DW0RD},
+ * {@code b.a.d.w.o.r.d} and Cyrillic look-alikes. A match only counts as a whole word (no letter
+ * or digit directly before or after it) and when it contains at least one real letter, so
+ * {@code class} or a score like {@code 455} are left alone.
+ * <p>
+ * A message without matches is returned as is, without allocating.
+ */
 @Service
 public class ProfanityFilter {
-    private static final Set<String> BAD = new HashSet<>(Arrays.asList(
-            // very small demo list; replace with a better dictionary later
-            "badword", "curse"
-    ));
+    private static final Logger log = LoggerFactory.getLogger(ProfanityFilter.class);
+
+    private final ProfanityAutomaton automaton;
+
+    @Autowired
+    public ProfanityFilter(@Value("${app.profanity.dictionary:classpath:profanity/words.txt}") Resource dictionary) {
+        this(read(dictionary));
+        log.info("Profanity filter loaded {} words ({} states) from {}",
+                automaton.patterns(), automaton.states(), dictionary.getDescription());
+    }
+
+    ProfanityFilter(Collection<String> words) {
+        Set<String> folded = new LinkedHashSet<>();
+        for (String word : words) {
+            String f = ProfanityAutomaton.foldWord(word.trim());
+            if (f == null || f.length() < 2) {
+                log.warn("Ignoring profanity dictionary entry '{}': expected one word of at least two letters", word);
+                continue;
+            }
+            folded.add(f);
+        }
+        this.automaton = new ProfanityAutomaton(folded);
+    }
+
+    private static Collection<String> read(Resource dictionary) {
+        Set<String> words = new LinkedHashSet<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) words.add(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read profanity dictionary " + dictionary.getDescription(), e);
+        }
+        return words;
+    }
 
     public String filter(String input) {
-        if (input == null || input.isBlank()) return input;
-        String[] parts = input.split("\\s+");
-        for (int i = 0; i < parts.length; i++) {
-            String p = parts[i];
-            String lower = p.toLowerCase();
-            if (BAD.contains(lower.replaceAll("[^a-z]", ""))) {
-                parts[i] = mask(p);
+        if (input == null || input.isEmpty()) return input;
+        char[] masked = null;
+        int state = 0;
+        int n = input.length();
+        for (int end = 0; end < n; end++) {
+            int c = ProfanityAutomaton.fold(input.charAt(end));
+            if (c < 0) {
+                if (c == ProfanityAutomaton.BREAK) state = 0;
+                continue;
+            }
+            state = automaton.step(state, c);
+            int match = automaton.firstMatch(state);
+            if (match < 0 || (end + 1 < n && Character.isLetterOrDigit(input.charAt(end + 1)))) continue;
+            // Longest dictionary word ending here that starts on a word boundary
+            for (; match >= 0; match = automaton.nextMatch(match)) {
+                int start = start(input, end, automaton.length(match));
+                if ((start == 0 || !Character.isLetterOrDigit(input.charAt(start - 1))) && hasLetter(input, start, end)) {
+                    if (masked == null) masked = input.toCharArray();
+                    mask(masked, start, end, automaton.length(match));
+                    break;
+                }
             }
         }
-        return String.join(" ", parts);
+        return masked == null ? input : new String(masked);
+    }
+
+    /**
+     * @return the index of the first of the {@code letters} folded letters ending at {@code end}
+     */
+    private static int start(String input, int end, int letters) {
+        int i = end;
+        while (true) {
+            if (ProfanityAutomaton.fold(input.charAt(i)) >= 0 && --letters == 0) return i;
+            i--;
+        }
+    }
+
+    private static boolean hasLetter(String input, int start, int end) {
+        for (int i = start; i <= end; i++) {
+            char ch = input.charAt(i);
+            if (ProfanityAutomaton.fold(ch) >= 0 && !Character.isDigit(ch)) return true;
+        }
+        return false;
     }
 
-    private String mask(String s) {
-        if (s.length() <= 2) return "**";
-        char[] chars = s.toCharArray();
-        for (int i = 1; i < chars.length - 1; i++) {
-            if (Character.isLetterOrDigit(chars[i])) chars[i] = '*';
+    /**
+     * Replaces the letters of a match with {@code *}, keeping the first and last one of longer words.
+     */
+    private static void mask(char[] chars, int start, int end, int letters) {
+        boolean keepEnds = letters > 2;
+        for (int i = start; i <= end; i++) {
+            if (ProfanityAutomaton.fold(chars[i]) < 0) continue;
+            if (keepEnds && (i == start || i == end)) continue;
+            chars[i] = '*';
         }
-        return new String(chars);
     }
-}
\ No newline at end of file
+}
@@ -4,23 +4,37 @@ import ca.dtadmi.gamehubapi.model.RefreshToken;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.RefreshTokenRepository;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.Optional;
 
+/**
+ * Issues, rotates and purges refresh tokens. Tokens are looked up by their SHA-256, so a leaked
+ * table does not hand out usable tokens.
+ */
 @Service
 public class RefreshTokenService {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
     private final SecureRandom secureRandom = new SecureRandom();
     @Value("${app.refreshTokenExpirationMs:2592000000}") // 30 days default
     private long refreshExpirationMs;
+    @Value("${app.refreshTokens.purgeChunk:5000}")
+    private int purgeChunk = 5000;
 
     public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserRepository userRepository) {
         this.refreshTokenRepository = refreshTokenRepository;
@@ -33,13 +47,27 @@ public class RefreshTokenService {
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
+    /**
+     * Lowercase hex SHA-256 of a token, as stored in {@code refresh_tokens.token_hash}.
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     @Transactional
     public RefreshToken issue(User user) {
         // Optionally revoke existing tokens for the user (single-device policy)
         // refreshTokenRepository.deleteByUser(user);
+        String token = generateTokenString();
         RefreshToken rt = new RefreshToken();
         rt.setUser(user);
-        rt.setToken(generateTokenString());
+        rt.setToken(token);
+        rt.setTokenHash(hash(token));
         rt.setExpiresAt(Instant.now().plusMillis(refreshExpirationMs));
         rt.setRevoked(false);
         return refreshTokenRepository.save(rt);
@@ -47,17 +75,22 @@ public class RefreshTokenService {
 
     @Transactional(readOnly = true)
     public Optional<RefreshToken> findValid(String token) {
-        return refreshTokenRepository.findByToken(token)
+        return refreshTokenRepository.findByTokenHash(hash(token))
                 .filter(rt -> !rt.isRevoked())
                 .filter(rt -> rt.getExpiresAt().isAfter(Instant.now()));
     }
 
+    /**
+     * Revoke a live token and issue its successor. The revocation is a single conditional UPDATE,
+     * so when the same token is presented twice concurrently only one caller gets a new token.
+     *
+     * @return the new token, or empty if the token is unknown, expired or already used
+     */
     @Transactional
-    public RefreshToken rotate(RefreshToken existing) {
-        existing.setRevoked(true);
-        refreshTokenRepository.save(existing);
-        // issue a new one for the same user
-        return issue(existing.getUser());
+    public Optional<RefreshToken> rotate(String token) {
+        return refreshTokenRepository.revokeForRotation(hash(token), Instant.now())
+                .flatMap(userRepository::findById)
+                .map(this::issue);
     }
 
     @Transactional
@@ -66,8 +99,22 @@ public class RefreshTokenService {
         refreshTokenRepository.save(token);
     }
 
-    @Transactional
-    public void cleanupExpired() {
-        refreshTokenRepository.deleteByExpiresAtBefore(Instant.now());
+    /**
+     * Delete expired tokens in chunks of {@code app.refreshTokens.purgeChunk}, each its own
+     * statement and transaction, so the purge never holds long locks or loads rows.
+     *
+     * @return the number of tokens deleted
+     */
+    @Scheduled(cron = "${app.refreshTokens.purgeCron:0 20 3 * * *}")
+    public long cleanupExpired() {
+        Instant cutoff = Instant.now();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredChunk(cutoff, purgeChunk);
+            total += deleted;
+        } while (deleted == purgeChunk);
+        if (total > 0) log.info("Purged {} expired refresh tokens", total);
+        return total;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,230 @@
+package ca.dtadmi.gamehubapi.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk score export for analytics.
+ * <p>
+ * Rows are read through a server-side cursor (PostgreSQL only streams with a fetch size inside
+ * a transaction) and written to the output as they arrive, so heap use does not depend on how
+ * many rows are exported.
+ * <p>
+ * CSV text fields that a spreadsheet would read as a formula get a leading {@code '}; the
+ * import strips it again, so exports still import as-is.
+ */
+@Service
+public class ScoreExportService {
+    private static final Logger log = LoggerFactory.getLogger(ScoreExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char FORMULA_GUARD = '\'';
+    private static final String[] COLUMNS = {"id", "user_id", "username", "game_type", "score", "created_at"};
+    // Factories are thread-safe and costly to build; generators are per export
+    private static final JsonFactory JSON = new JsonFactory().setRootValueSeparator("\n");
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnlyTx;
+
+    public ScoreExportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.export.fetchSize:1000}") int fetchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setFetchSize(fetchSize);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String value) {
+            for (Format f : values()) {
+                if (f.name().equalsIgnoreCase(value)) return f;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Write all scores matching the optional filters to {@code out}, oldest id first.
+     *
+     * @return number of rows written
+     */
+    public long export(String gameType, LocalDateTime since, Format format, boolean gzip, OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT gs.id, gs.user_id, u.username, gs.game_type, gs.score, gs.created_at "
+                        + "FROM game_scores gs JOIN users u ON u.id = gs.user_id WHERE 1 = 1");
+        List<Object> args = new ArrayList<>(2);
+        if (gameType != null && !gameType.isBlank()) {
+            sql.append(" AND gs.game_type = ?");
+            args.add(gameType);
+        }
+        if (since != null) {
+            sql.append(" AND gs.created_at >= ?");
+            args.add(Timestamp.valueOf(since));
+        }
+        sql.append(" ORDER BY gs.id");
+
+        long started = System.nanoTime();
+        try (RowWriter writer = writer(format, gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out)) {
+            long[] rows = new long[1];
+            try {
+                readOnlyTx.executeWithoutResult(status -> jdbc.query(sql.toString(), rs -> {
+                    Timestamp created = rs.getTimestamp(6);
+                    writer.write(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4), rs.getInt(5),
+                            created == null ? null : created.toLocalDateTime());
+                    rows[0]++;
+                }, args.toArray()));
+            } catch (UncheckedIOException e) {
+                // Client went away mid-export; the cursor and transaction are already released
+                throw e.getCause();
+            }
+            log.info("Exported {} scores as {} in {} ms", rows[0], format, (System.nanoTime() - started) / 1_000_000);
+            return rows[0];
+        }
+    }
+
+    /**
+     * Whether a spreadsheet would evaluate {@code value} as a formula (or DDE command) when it
+     * opens the CSV.
+     */
+    static boolean isFormula(String value) {
+        if (value.isEmpty()) return false;
+        char c = value.charAt(0);
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Undo the guard {@link CsvWriter} puts in front of formula-like fields.
+     */
+    static String stripFormulaGuard(String value) {
+        if (value != null && value.length() > 1 && value.charAt(0) == FORMULA_GUARD
+                && isFormula(value.substring(1))) {
+            return value.substring(1);
+        }
+        return value;
+    }
+
+    static RowWriter writer(Format format, OutputStream out) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return format == Format.CSV ? new CsvWriter(w) : new NdjsonWriter(w);
+    }
+
+    /**
+     * Sink for exported rows. Write failures surface as {@link UncheckedIOException} so they
+     * can cross the JDBC row callback.
+     */
+    interface RowWriter extends Closeable {
+        void write(long id, long userId, String username, String gameType, int score, LocalDateTime createdAt);
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        private CsvWriter(Writer out) throws IOException {
+            this.out = out;
+            out.write(String.join(",", COLUMNS));
+            out.write('\n');
+        }
+
+        @Override
+        public void write(long id, long userId, String username, String gameType, int score, LocalDateTime createdAt) {
+            try {
+                out.write(Long.toString(id));
+                out.write(',');
+                out.write(Long.toString(userId));
+                out.write(',');
+                writeField(username);
+                out.write(',');
+                writeField(gameType);
+                out.write(',');
+                out.write(Integer.toString(score));
+                out.write(',');
+                if (createdAt != null) out.write(createdAt.toString());
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks; double embedded quotes
+        private void writeField(String value) throws IOException {
+            if (value == null) return;
+            if (isFormula(value)) value = FORMULA_GUARD + value;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class NdjsonWriter implements RowWriter {
+        private final Writer out;
+        private final JsonGenerator json;
+        private boolean empty = true;
+
+        private NdjsonWriter(Writer out) throws IOException {
+            this.out = out;
+            this.json = JSON.createGenerator(out);
+        }
+
+        @Override
+        public void write(long id, long userId, String username, String gameType, int score, LocalDateTime createdAt) {
+            try {
+                json.writeStartObject();
+                json.writeNumberField(COLUMNS[0], id);
+                json.writeNumberField(COLUMNS[1], userId);
+                json.writeStringField(COLUMNS[2], username);
+                json.writeStringField(COLUMNS[3], gameType);
+                json.writeNumberField(COLUMNS[4], score);
+                json.writeStringField(COLUMNS[5], createdAt == null ? null : createdAt.toString());
+                json.writeEndObject();
+                empty = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.flush();
+            if (!empty) out.write('\n');
+            json.close();
+        }
+    }
+}
@@ -0,0 +1,550 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.dto.ScoreImportStatusDto;
+import ca.dtadmi.gamehubapi.dto.UserRefDto;
+import ca.dtadmi.gamehubapi.outbox.OutboxEvent;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk score import for migrations.
+ * <p>
+ * The upload is parsed as a stream and handled in batches: usernames are resolved with one
+ * query per batch (a bounded per-import memo spares repeat players the lookup), and resolved
+ * rows are sent with {@code COPY} into a temporary staging table. Once the upload is consumed,
+ * staged rows are merged into game_scores and user_best_scores with two set-based statements,
+ * after creating the monthly game_scores partitions the staged rows fall into. Every best score
+ * the import raises also gets a score_outbox row, so the Redis global boards pick it up like a
+ * live submission. The whole import is one transaction: it lands completely or not at all.
+ * <p>
+ * Unlike {@code POST /api/scores}, unknown usernames are not provisioned; their rows are
+ * counted and skipped.
+ */
+@Service
+public class ScoreImportService {
+    static final int BATCH_SIZE = 5_000;
+    private static final int LOOKUP_CHUNK = 1_000;
+    private static final long PROGRESS_LOG_EVERY = 500_000;
+    private static final Long UNKNOWN_USER = -1L;
+    // Read caches derived from game_scores; cheaper to drop than to refresh key by key
+    private static final List<String> DERIVED_CACHES = List.of(
+            "leaderboard", "userScores", StatsService.GAME_STATS_CACHE, StatsService.USER_STATS_CACHE,
+            FriendsLeaderboardService.FRIENDS_CACHE);
+    private static final Logger log = LoggerFactory.getLogger(ScoreImportService.class);
+
+    private static final String CREATE_STAGING = "CREATE TEMPORARY TABLE score_import_staging ("
+            + "user_id bigint NOT NULL, game_type varchar(255) NOT NULL, score integer NOT NULL, "
+            + "created_at timestamp NOT NULL) ON COMMIT DROP";
+    private static final String COPY_STAGING =
+            "COPY score_import_staging (user_id, game_type, score, created_at) FROM STDIN WITH (FORMAT csv)";
+    // Imported history is mostly older than the partitions maintenance creates ahead of time; without
+    // its own monthly partitions it would pile up in game_scores_default, which is never archived
+    private static final String ENSURE_PARTITIONS = "SELECT ensure_game_scores_partition(month::date) FROM "
+            + "(SELECT DISTINCT date_trunc('month', created_at) AS month FROM score_import_staging) months";
+    private static final String MERGE_SCORES = "INSERT INTO game_scores (user_id, game_type, score, created_at) "
+            + "SELECT user_id, game_type, score, created_at FROM score_import_staging";
+    private static final String MERGE_BEST_SCORES = "INSERT INTO user_best_scores (user_id, game_type, score, achieved_at) "
+            + "SELECT DISTINCT ON (user_id, game_type) user_id, game_type, score, created_at FROM score_import_staging "
+            + "ORDER BY user_id, game_type, score DESC, created_at ASC "
+            + "ON CONFLICT (user_id, game_type) DO UPDATE SET score = EXCLUDED.score, achieved_at = EXCLUDED.achieved_at "
+            + "WHERE user_best_scores.score < EXCLUDED.score";
+    // Same merge, plus one outbox event per best it raised, shaped like ScoreOutbox's payload. The
+    // event points at the game_scores row that set the best, which MERGE_SCORES inserted just before
+    private static final String MERGE_BEST_SCORES_WITH_EVENTS = "WITH best AS (" + MERGE_BEST_SCORES
+            + " RETURNING user_id, game_type, score, achieved_at) "
+            + "INSERT INTO score_outbox (event_type, aggregate_id, payload) "
+            + "SELECT ?, s.id, jsonb_build_object('scoreId', s.id, 'userId', b.user_id, 'username', u.username, "
+            + "'gameType', b.game_type, 'score', b.score, 'createdAt', b.achieved_at) "
+            + "FROM best b JOIN users u ON u.id = b.user_id "
+            + "CROSS JOIN LATERAL (SELECT g.id FROM game_scores g WHERE g.user_id = b.user_id "
+            + "AND g.game_type = b.game_type AND g.score = b.score AND g.created_at = b.achieved_at "
+            + "ORDER BY g.id LIMIT 1) s "
+            + "ORDER BY b.user_id, b.game_type";
+
+    private final DataSource dataSource;
+    private final TransactionTemplate tx;
+    private final UserRepository userRepository;
+    private final ScoreValidationService validation;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final int usernameCacheSize;
+    private final boolean outboxEnabled;
+    private final Counter stagedRows;
+    private final Counter rejectedRows;
+    private final Counter unknownUserRows;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Progress> imports = Caffeine.newBuilder()
+            .maximumSize(50)
+            .expireAfterWrite(Duration.ofHours(12))
+            .build();
+
+    public ScoreImportService(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              UserRepository userRepository,
+                              ScoreValidationService validation,
+                              CacheManager cacheManager,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.import.usernameCacheSize:100000}") int usernameCacheSize,
+                              @Value("${app.outbox.enabled:true}") boolean outboxEnabled) {
+        this.dataSource = dataSource;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.validation = validation;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.usernameCacheSize = usernameCacheSize;
+        this.outboxEnabled = outboxEnabled;
+        this.meterRegistry = meterRegistry;
+        this.stagedRows = rowCounter(meterRegistry, "staged");
+        this.rejectedRows = rowCounter(meterRegistry, "rejected");
+        this.unknownUserRows = rowCounter(meterRegistry, "unknown_user");
+    }
+
+    /**
+     * Import every row of {@code in}, blocking until the import has committed or failed.
+     * Progress is visible through {@link #recentImports()} while it runs.
+     */
+    public ScoreImportStatusDto importScores(InputStream in, Format format) {
+        Progress progress = new Progress(UUID.randomUUID().toString());
+        imports.put(progress.id, progress);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try (RowReader rows = reader(format, in)) {
+            Long merged = tx.execute(status -> stageAndMerge(rows, progress));
+            progress.finish(merged == null ? 0 : merged);
+            outcome = "success";
+            clearDerivedCaches();
+            log.info("Score import {} merged {} rows ({} rejected, {} unknown users) at {} rows/s",
+                    progress.id, progress.merged, progress.rejected.get(), progress.unknownUsers.get(),
+                    Math.round(progress.rowsPerSecond()));
+            return progress.toDto();
+        } catch (IOException | RuntimeException e) {
+            progress.fail(e);
+            log.warn("Score import {} failed after {} rows: {}", progress.id, progress.read.get(), e.getMessage());
+            throw e instanceof RuntimeException re ? re : new UncheckedIOException((IOException) e);
+        } finally {
+            sample.stop(Timer.builder("score.import").tag("outcome", outcome).register(meterRegistry));
+        }
+    }
+
+    public List<ScoreImportStatusDto> recentImports() {
+        return imports.asMap().values().stream()
+                .sorted(Comparator.comparing((Progress p) -> p.startedAt).reversed())
+                .map(Progress::toDto)
+                .toList();
+    }
+
+    private Long stageAndMerge(RowReader rows, Progress progress) {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGING);
+            }
+            CopyManager copy = con.unwrap(PGConnection.class).getCopyAPI();
+            Cache<String, Long> userIds = Caffeine.newBuilder().maximumSize(usernameCacheSize).build();
+            List<ImportRow> batch = new ArrayList<>(BATCH_SIZE);
+            ImportRow row;
+            while ((row = rows.next(progress)) != null) {
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    stage(copy, batch, userIds, progress);
+                    batch.clear();
+                }
+            }
+            stage(copy, batch, userIds, progress);
+            long merged;
+            try (Statement st = con.createStatement()) {
+                st.execute(ENSURE_PARTITIONS);
+                merged = st.executeUpdate(MERGE_SCORES);
+                if (!outboxEnabled) {
+                    st.executeUpdate(MERGE_BEST_SCORES);
+                    return merged;
+                }
+            }
+            try (PreparedStatement ps = con.prepareStatement(MERGE_BEST_SCORES_WITH_EVENTS)) {
+                ps.setString(1, OutboxEvent.SCORE_SAVED);
+                int events = ps.executeUpdate();
+                log.info("Score import {} raised {} best scores; queued them for the global boards", progress.id, events);
+            }
+            return merged;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Score import failed: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    // One COPY per batch: the connection must be free between batches for the username lookups
+    private void stage(CopyManager copy, List<ImportRow> batch, Cache<String, Long> userIds, Progress progress)
+            throws SQLException, IOException {
+        if (batch.isEmpty()) return;
+        String payload = toCopyRows(batch, userIds, progress);
+        if (!payload.isEmpty()) {
+            copy.copyIn(COPY_STAGING, new StringReader(payload));
+        }
+        long read = progress.read.get();
+        if (read / PROGRESS_LOG_EVERY != (read - batch.size()) / PROGRESS_LOG_EVERY) {
+            log.info("Score import {}: {} rows read, {} staged, {} rows/s",
+                    progress.id, read, progress.staged.get(), Math.round(progress.rowsPerSecond()));
+        }
+    }
+
+    /**
+     * Resolve the batch's usernames and render resolved rows as COPY csv lines.
+     */
+    String toCopyRows(List<ImportRow> batch, Cache<String, Long> userIds, Progress progress) {
+        Map<String, Long> resolved = resolveUsernames(batch, userIds);
+        StringBuilder out = new StringBuilder(batch.size() * 48);
+        for (ImportRow row : batch) {
+            Long userId = resolved.get(row.username());
+            if (userId == null || UNKNOWN_USER.equals(userId)) {
+                progress.unknownUsers.incrementAndGet();
+                unknownUserRows.increment();
+                continue;
+            }
+            out.append(userId).append(',');
+            appendCsv(out, row.gameType());
+            out.append(',').append(row.score()).append(',').append(row.createdAt()).append('\n');
+            progress.staged.incrementAndGet();
+            stagedRows.increment();
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return the id (or {@link #UNKNOWN_USER}) of every username in the batch. {@code userIds} only
+     * spares lookups across batches: the bounded cache may evict or refuse any entry, so the batch
+     * is rendered from the returned map.
+     */
+    private Map<String, Long> resolveUsernames(List<ImportRow> batch, Cache<String, Long> userIds) {
+        Map<String, Long> resolved = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (ImportRow row : batch) {
+            if (resolved.containsKey(row.username())) continue;
+            Long userId = userIds.getIfPresent(row.username());
+            if (userId != null) {
+                resolved.put(row.username(), userId);
+            } else {
+                missing.add(row.username());
+            }
+        }
+        List<String> pending = new ArrayList<>(missing);
+        for (int i = 0; i < pending.size(); i += LOOKUP_CHUNK) {
+            List<String> chunk = pending.subList(i, Math.min(i + LOOKUP_CHUNK, pending.size()));
+            Map<String, Long> found = new HashMap<>();
+            for (UserRefDto ref : userRepository.findRefsByUsernameIn(chunk)) {
+                found.put(ref.username(), ref.id());
+            }
+            // Remember misses too, so a file full of one unknown player costs one lookup
+            for (String username : chunk) {
+                Long userId = found.getOrDefault(username, UNKNOWN_USER);
+                resolved.put(username, userId);
+                userIds.put(username, userId);
+            }
+        }
+        return resolved;
+    }
+
+    private void clearDerivedCaches() {
+        for (String name : DERIVED_CACHES) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.clear();
+        }
+    }
+
+    private static Counter rowCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("score.import.rows")
+                .description("Rows processed by bulk score imports")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static void appendCsv(StringBuilder out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.append(value);
+        } else {
+            out.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    // --- Input parsing ---
+
+    RowReader reader(Format format, InputStream in) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        return format == Format.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(objectMapper, reader);
+    }
+
+    /**
+     * One validated input row. {@code createdAt} defaults to the import time when absent.
+     */
+    record ImportRow(String username, String gameType, int score, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Source of validated rows; invalid rows are counted on the progress and skipped.
+     */
+    interface RowReader extends AutoCloseable {
+        ImportRow next(Progress progress) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private ImportRow validRow(String username, String gameType, String score, String createdAt,
+                               LocalDateTime now, Progress progress) {
+        progress.read.incrementAndGet();
+        try {
+            if (username == null || username.isBlank()) throw new IllegalArgumentException("username is required");
+            int value = Integer.parseInt(score == null ? "" : score.trim());
+            String game = gameType == null ? null : gameType.trim().toLowerCase();
+            validation.validateOrThrow(game, value);
+            LocalDateTime at = (createdAt == null || createdAt.isBlank()) ? now : LocalDateTime.parse(createdAt.trim());
+            return new ImportRow(username.trim(), game, value, at);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            progress.rejected.incrementAndGet();
+            rejectedRows.increment();
+            return null;
+        }
+    }
+
+    /**
+     * CSV with a header row naming at least {@code username}, {@code game_type} and
+     * {@code score} (optionally {@code created_at}); other columns are ignored, so files from
+     * the export endpoint import as-is, including the {@code '} it puts in front of formula-like
+     * text. Quoted fields may contain separators and line breaks.
+     */
+    private final class CsvRowReader implements RowReader {
+        private final Reader in;
+        private final LocalDateTime now = LocalDateTime.now();
+        private final StringBuilder field = new StringBuilder();
+        private int username = -1, gameType = -1, score = -1, createdAt = -1;
+
+        private CsvRowReader(Reader in) throws IOException {
+            this.in = in;
+            List<String> header = readRecord();
+            if (header == null) return;
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase()) {
+                    case "username" -> username = i;
+                    case "game_type" -> gameType = i;
+                    case "score" -> score = i;
+                    case "created_at" -> createdAt = i;
+                    default -> { }
+                }
+            }
+            if (username < 0 || gameType < 0 || score < 0) {
+                throw new IllegalArgumentException("CSV header must include username, game_type and score");
+            }
+        }
+
+        @Override
+        public ImportRow next(Progress progress) throws IOException {
+            List<String> record;
+            while (username >= 0 && (record = readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isEmpty()) continue; // blank line
+                ImportRow row = validRow(ScoreExportService.stripFormulaGuard(get(record, username)),
+                        ScoreExportService.stripFormulaGuard(get(record, gameType)), get(record, score),
+                        get(record, createdAt), now, progress);
+                if (row != null) return row;
+            }
+            return null;
+        }
+
+        private String get(List<String> record, int index) {
+            return index >= 0 && index < record.size() ? record.get(index) : null;
+        }
+
+        private List<String> readRecord() throws IOException {
+            List<String> record = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            int c = in.read();
+            if (c < 0) return null;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) throw new IllegalArgumentException("Unterminated quoted CSV field");
+                    if (c == '"') {
+                        in.mark(1);
+                        int next = in.read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (next >= 0) in.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    record.add(field.toString());
+                    return record;
+                } else if (c == ',') {
+                    record.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * One JSON object per line with {@code username}, {@code game_type}, {@code score} and
+     * optional {@code created_at}; the export endpoint's NDJSON imports as-is. Lines are parsed
+     * one at a time, so a malformed line is counted as rejected instead of ending the import.
+     */
+    private final class NdjsonRowReader implements RowReader {
+        private final ObjectReader json;
+        private final BufferedReader in;
+        private final LocalDateTime now = LocalDateTime.now();
+
+        private NdjsonRowReader(ObjectMapper mapper, Reader in) {
+            this.json = mapper.readerFor(JsonRow.class);
+            this.in = in instanceof BufferedReader buffered ? buffered : new BufferedReader(in);
+        }
+
+        @Override
+        public ImportRow next(Progress progress) throws IOException {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonRow value = parse(line);
+                if (value == null) {
+                    progress.read.incrementAndGet();
+                    progress.rejected.incrementAndGet();
+                    rejectedRows.increment();
+                    continue;
+                }
+                ImportRow row = validRow(value.username, value.gameType, value.score, value.createdAt, now, progress);
+                if (row != null) return row;
+            }
+            return null;
+        }
+
+        /**
+         * @return the line as a row, or {@code null} if it is not a JSON object
+         */
+        private JsonRow parse(String line) {
+            try {
+                return json.readValue(line);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static final class JsonRow {
+        @JsonProperty("username")
+        String username;
+        @JsonProperty("game_type")
+        String gameType;
+        @JsonProperty("score")
+        String score;
+        @JsonProperty("created_at")
+        String createdAt;
+    }
+
+    static final class Progress {
+        final String id;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startedNanos = System.nanoTime();
+        final AtomicLong read = new AtomicLong();
+        final AtomicLong staged = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong unknownUsers = new AtomicLong();
+        volatile String state = "RUNNING";
+        volatile long merged;
+        volatile long finishedNanos;
+        volatile String error;
+
+        Progress(String id) {
+            this.id = id;
+        }
+
+        void finish(long merged) {
+            this.merged = merged;
+            this.finishedNanos = System.nanoTime();
+            this.state = "COMPLETED";
+        }
+
+        void fail(Exception e) {
+            this.error = e.getMessage();
+            this.finishedNanos = System.nanoTime();
+            this.state = "FAILED";
+        }
+
+        double rowsPerSecond() {
+            long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            double seconds = Math.max(1e-3, (end - startedNanos) / 1e9);
+            return read.get() / seconds;
+        }
+
+        ScoreImportStatusDto toDto() {
+            return new ScoreImportStatusDto(id, state, startedAt, read.get(), staged.get(), rejected.get(),
+                    unknownUsers.get(), merged, rowsPerSecond(), error);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package ca.dtadmi.gamehubapi.service;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Housekeeping for the monthly game_scores partitions created by the V1 migration.
+ * <p>
+ * Partitions are created a few months ahead so inserts never fall into the default partition,
+ * and, when a retention period is set, whole months past it are archived to gzip'd CSV files
+ * and then detached and dropped, which is far cheaper than deleting rows. Each run takes a
+ * transaction-scoped advisory lock, so only one node does the work.
+ */
+@Component
+@ConditionalOnProperty(name = "app.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class ScorePartitionMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(ScorePartitionMaintenance.class);
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("^game_scores_p(\\d{6})$");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('game_scores_partitions'))";
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+    private final TransactionTemplate tx;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    public ScorePartitionMaintenance(JdbcTemplate jdbc,
+                                     DataSource dataSource,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.partitions.monthsAhead:3}") int monthsAhead,
+                                     @Value("${app.partitions.retentionMonths:0}") int retentionMonths,
+                                     @Value("${app.partitions.archiveDir:./archive/game_scores}") String archiveDir) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = Path.of(archiveDir);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        try {
+            createFuturePartitions(YearMonth.now());
+        } catch (Exception e) {
+            log.warn("Partition check skipped at startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${app.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        createFuturePartitions(now);
+        if (retentionMonths > 0) {
+            archiveExpiredPartitions(now);
+        }
+    }
+
+    /**
+     * Ensure partitions exist from the current month through {@code monthsAhead} months out.
+     */
+    public List<String> createFuturePartitions(YearMonth now) {
+        List<String> ensured = new ArrayList<>();
+        tx.executeWithoutResult(status -> {
+            if (!Boolean.TRUE.equals(jdbc.queryForObject(LOCK, Boolean.class))) return;
+            for (int i = 0; i <= monthsAhead; i++) {
+                Date month = Date.valueOf(now.plusMonths(i).atDay(1));
+                ensured.add(jdbc.queryForObject("SELECT ensure_game_scores_partition(?)", String.class, month));
+            }
+        });
+        return ensured;
+    }
+
+    /**
+     * Archive and drop every monthly partition older than the retention period.
+     */
+    public List<String> archiveExpiredPartitions(YearMonth now) {
+        List<String> partitions = jdbc.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'game_scores'::regclass ORDER BY c.relname", String.class);
+        List<String> archived = new ArrayList<>();
+        for (String partition : expired(partitions, now.minusMonths(retentionMonths))) {
+            try {
+                if (!archive(partition)) break; // another node holds the lock
+                archived.add(partition);
+            } catch (RuntimeException e) {
+                log.warn("Archiving {} failed; it stays attached until the next run", partition, e);
+                break;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Monthly partitions whose whole month is before {@code cutoff}; others (default) are never expired.
+     */
+    static List<String> expired(List<String> partitions, YearMonth cutoff) {
+        List<String> out = new ArrayList<>();
+        for (String name : partitions) {
+            Matcher m = MONTHLY_PARTITION.matcher(name);
+            if (m.matches() && YearMonth.parse(m.group(1), SUFFIX).isBefore(cutoff)) {
+                out.add(name);
+            }
+        }
+        return out;
+    }
+
+    // The file is complete on disk before the partition is dropped; a failed archive leaves it attached
+    private boolean archive(String partition) {
+        Path file = archiveDir.resolve(partition + ".csv.gz");
+        Path partial = archiveDir.resolve(partition + ".csv.gz.part");
+        Boolean done = tx.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbc.queryForObject(LOCK, Boolean.class))) return false;
+            // Name comes from the catalog and matched MONTHLY_PARTITION, so it is safe to inline
+            jdbc.execute("LOCK TABLE " + partition + " IN SHARE MODE");
+            Connection con = DataSourceUtils.getConnection(dataSource);
+            try {
+                Files.createDirectories(archiveDir);
+                long rows;
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                    rows = con.unwrap(PGConnection.class).getCopyAPI()
+                            .copyOut("COPY " + partition + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+                }
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                jdbc.execute("ALTER TABLE game_scores DETACH PARTITION " + partition);
+                jdbc.execute("DROP TABLE " + partition);
+                log.info("Archived {} ({} rows) to {}", partition, rows, file);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Archiving " + partition + " failed: " + e.getMessage(), e);
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        });
+        return Boolean.TRUE.equals(done);
+    }
+}
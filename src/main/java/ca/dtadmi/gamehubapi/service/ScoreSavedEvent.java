@@ -0,0 +1,10 @@
+package ca.dtadmi.gamehubapi.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link GameService#saveScore} for every stored score. Listeners that read the
+ * database should use {@code @TransactionalEventListener} so they see the committed row.
+ */
+public record ScoreSavedEvent(Long scoreId, Long userId, String gameType, int score, LocalDateTime createdAt) {
+}
@@ -0,0 +1,79 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
+import ca.dtadmi.gamehubapi.dto.GameStatsDto;
+import ca.dtadmi.gamehubapi.dto.UserGameStatsDto;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Game- and user-level score aggregates shared by the REST stats endpoints and GraphQL.
+ * Results are cached per key with single-flight loading and background refresh, since each
+ * lookup runs several aggregate queries over game_scores.
+ */
+@Service
+public class StatsService {
+    public static final String GAME_STATS_CACHE = "gameStats";
+    public static final String USER_STATS_CACHE = "userStats";
+    private static final String ALL_GAMES = "ALL";
+
+    private final GameScoreRepository repo;
+
+    public StatsService(GameScoreRepository repo, LoadingCacheRegistry loadingCaches) {
+        this.repo = repo;
+        loadingCaches.register(GAME_STATS_CACHE, key -> loadGameStats((String) key));
+        loadingCaches.register(USER_STATS_CACHE, key -> loadUserStats(String.valueOf(key)));
+    }
+
+    public static String userStatsKey(Long userId, String gameType) {
+        return userId + "_" + ((gameType == null || gameType.isBlank()) ? ALL_GAMES : gameType);
+    }
+
+    @Cacheable(value = GAME_STATS_CACHE, key = "#gameType", sync = true)
+    public GameStatsDto gameStats(String gameType) {
+        return loadGameStats(gameType);
+    }
+
+    /**
+     * Current stats straight from the database, bypassing the cache (for change feeds).
+     */
+    public GameStatsDto freshGameStats(String gameType) {
+        return loadGameStats(gameType);
+    }
+
+    /**
+     * Stats for one user, across all games when {@code gameType} is null or blank.
+     */
+    @Cacheable(value = USER_STATS_CACHE, key = "T(ca.dtadmi.gamehubapi.service.StatsService).userStatsKey(#userId, #gameType)", sync = true)
+    public UserGameStatsDto userStats(Long userId, String gameType) {
+        return loadUserStats(userStatsKey(userId, gameType));
+    }
+
+    private GameStatsDto loadGameStats(String gameType) {
+        long total = repo.countByGameType(gameType);
+        Double avg = repo.averageScoreByGameType(gameType);
+        Integer max = repo.maxScoreByGameType(gameType);
+        // High scorer lookup omitted in MVP to keep it simple
+        return new GameStatsDto(total, avg, max, null);
+    }
+
+    private UserGameStatsDto loadUserStats(String key) {
+        int sep = key.indexOf('_');
+        Long userId = Long.valueOf(key.substring(0, sep));
+        String gameType = key.substring(sep + 1);
+        long total;
+        Double avg;
+        Integer high;
+        if (ALL_GAMES.equals(gameType)) {
+            total = repo.countByUser_Id(userId);
+            avg = repo.averageScoreByUserId(userId);
+            high = repo.maxScoreByUserId(userId);
+        } else {
+            total = repo.countByUser_IdAndGameType(userId, gameType);
+            avg = repo.averageScoreByUserAndGameType(userId, gameType);
+            high = repo.maxScoreByUserAndGameType(userId, gameType);
+        }
+        return new UserGameStatsDto(total, high, avg, null);
+    }
+}
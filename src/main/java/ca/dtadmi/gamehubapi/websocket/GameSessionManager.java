@@ -27,7 +27,8 @@ public class GameSessionManager {
         this.gameService = gameService;
     }
 
-    @Scheduled(fixedRate = 5000)
+    // Off unless app.sessions.cleanupCron is set ("-" disables it)
+    @Scheduled(cron = "${app.sessions.cleanupCron:-}")
     public void cleanupInactiveSessions() {
         // Clean up inactive sessions (placeholder)
     }
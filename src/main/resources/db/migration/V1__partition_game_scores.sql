@@ -0,0 +1,92 @@
+-- Monthly range partitioning of game_scores on created_at.
+--
+-- Deployments created by Hibernate (ddl-auto) have a plain game_scores table: its rows are
+-- copied into the partitioned table, which then replaces it. Fresh databases get the
+-- partitioned table directly. Hibernate keeps managing every other table.
+
+-- Creates (if missing) the partition holding the month of `month` and returns its name.
+-- Rows that already landed in the default partition for that month are moved into it.
+CREATE OR REPLACE FUNCTION ensure_game_scores_partition(month date) RETURNS text
+LANGUAGE plpgsql AS $$
+DECLARE
+    start_date date := date_trunc('month', month)::date;
+    end_date   date := (date_trunc('month', month) + interval '1 month')::date;
+    part       text := 'game_scores_p' || to_char(start_date, 'YYYYMM');
+BEGIN
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN part;
+    END IF;
+    IF EXISTS (SELECT 1 FROM game_scores_default WHERE created_at >= start_date AND created_at < end_date) THEN
+        EXECUTE format('CREATE TABLE %I (LIKE game_scores INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part);
+        EXECUTE format('WITH moved AS (DELETE FROM game_scores_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                           || 'INSERT INTO %I SELECT * FROM moved', start_date, end_date, part);
+        EXECUTE format('ALTER TABLE game_scores ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', part, start_date, end_date);
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF game_scores FOR VALUES FROM (%L) TO (%L)', part, start_date, end_date);
+    END IF;
+    RETURN part;
+END
+$$;
+
+DO $$
+DECLARE
+    kind        "char" := (SELECT relkind FROM pg_class WHERE oid = to_regclass('game_scores'));
+    legacy      boolean := kind = 'r';
+    con         record;
+    first_month date;
+    m           date;
+BEGIN
+    IF kind = 'p' THEN
+        RETURN;
+    END IF;
+    IF legacy THEN
+        ALTER TABLE game_scores RENAME TO game_scores_legacy;
+        -- Free the names the new table needs: its identity sequence and primary key index
+        ALTER TABLE game_scores_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+        FOR con IN SELECT conname FROM pg_constraint
+                   WHERE conrelid = 'game_scores_legacy'::regclass AND contype = 'p' LOOP
+            EXECUTE format('ALTER TABLE game_scores_legacy RENAME CONSTRAINT %I TO %I', con.conname, con.conname || '_legacy');
+        END LOOP;
+    END IF;
+
+    CREATE SEQUENCE IF NOT EXISTS game_scores_id_seq;
+    -- The partition key must be part of the primary key
+    CREATE TABLE game_scores (
+        id         bigint       NOT NULL DEFAULT nextval('game_scores_id_seq'),
+        user_id    bigint       NOT NULL,
+        game_type  varchar(255) NOT NULL,
+        score      integer      NOT NULL,
+        created_at timestamp(6) NOT NULL,
+        CONSTRAINT game_scores_pkey PRIMARY KEY (id, created_at)
+    ) PARTITION BY RANGE (created_at);
+    ALTER SEQUENCE game_scores_id_seq OWNED BY game_scores.id;
+    -- Catches rows outside every monthly range (e.g. imports of very old history)
+    CREATE TABLE game_scores_default PARTITION OF game_scores DEFAULT;
+
+    first_month := date_trunc('month', now())::date;
+    IF legacy THEN
+        first_month := LEAST(first_month,
+                             date_trunc('month', COALESCE((SELECT min(created_at) FROM game_scores_legacy), now()))::date);
+    END IF;
+    m := first_month;
+    WHILE m <= (date_trunc('month', now()) + interval '3 months')::date LOOP
+        PERFORM ensure_game_scores_partition(m);
+        m := (m + interval '1 month')::date;
+    END LOOP;
+
+    IF legacy THEN
+        INSERT INTO game_scores (id, user_id, game_type, score, created_at)
+        SELECT id, user_id, game_type, score, created_at FROM game_scores_legacy;
+        PERFORM setval('game_scores_id_seq', COALESCE((SELECT max(id) FROM game_scores), 0) + 1, false);
+        DROP TABLE game_scores_legacy;
+    END IF;
+
+    IF to_regclass('users') IS NOT NULL THEN
+        ALTER TABLE game_scores ADD CONSTRAINT fk_game_scores_user FOREIGN KEY (user_id) REFERENCES users (id);
+    END IF;
+END
+$$;
+
+-- Created on the parent, so every current and future partition gets them
+CREATE INDEX IF NOT EXISTS idx_game_scores_user_game ON game_scores (user_id, game_type);
+CREATE INDEX IF NOT EXISTS idx_game_scores_game_score ON game_scores (game_type, score DESC, created_at);
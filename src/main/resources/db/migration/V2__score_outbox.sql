@@ -0,0 +1,20 @@
+-- Transactional outbox: one row per stored score, written in the same transaction as the score
+-- and relayed to downstream projectors (Redis boards, stream consumers) by OutboxRelay.
+CREATE TABLE IF NOT EXISTS score_outbox (
+    id           bigserial    PRIMARY KEY,
+    event_type   varchar(64)  NOT NULL,
+    aggregate_id bigint       NOT NULL,
+    payload      jsonb        NOT NULL,
+    created_at   timestamptz  NOT NULL DEFAULT now(),
+    published_at timestamptz,
+    -- Lease taken by a relay while it publishes outside any transaction; expired leases are reclaimed
+    claimed_until timestamptz,
+    -- Rows whose payload can't be read are parked here instead of blocking the rows behind them
+    failed_at    timestamptz,
+    last_error   text
+);
+
+-- The relay only ever scans unpublished, unfailed rows, in id order
+CREATE INDEX IF NOT EXISTS idx_score_outbox_pending ON score_outbox (id) WHERE published_at IS NULL AND failed_at IS NULL;
+-- Purge of published rows past retention
+CREATE INDEX IF NOT EXISTS idx_score_outbox_published ON score_outbox (published_at) WHERE published_at IS NOT NULL;
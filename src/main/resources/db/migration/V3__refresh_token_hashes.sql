@@ -0,0 +1,23 @@
+-- Refresh tokens are stored as SHA-256 hashes (lowercase hex) instead of the tokens themselves.
+--
+-- Tables created by Hibernate before this change get a token_hash column filled from the stored
+-- tokens, so tokens already handed out keep working; the plain-text column is then dropped.
+-- Fresh databases have no refresh_tokens table yet: Hibernate creates it with token_hash.
+DO $$
+BEGIN
+    IF to_regclass('refresh_tokens') IS NULL THEN
+        RETURN;
+    END IF;
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'refresh_tokens' AND column_name = 'token') THEN
+        ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash varchar(64);
+        UPDATE refresh_tokens SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+        WHERE token_hash IS NULL;
+        ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+    END IF;
+    CREATE UNIQUE INDEX IF NOT EXISTS idx_refresh_token_hash ON refresh_tokens (token_hash);
+    -- Chunked purge of expired tokens
+    CREATE INDEX IF NOT EXISTS idx_refresh_token_expires ON refresh_tokens (expires_at);
+END
+$$;
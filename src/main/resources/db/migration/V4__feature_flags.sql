@@ -0,0 +1,17 @@
+-- Runtime feature flag overrides shared by all nodes (FeatureFlagStore).
+--
+-- scope separates the flag families (FeatureFlagsService "flag", FeatureService "overlay").
+-- Every write takes a new version from the sequence, and writers NOTIFY feature_flags; listeners
+-- reload on any notification. Versions are taken at write time, not commit time, so the highest
+-- version doesn't show whether a snapshot is current: nodes compare the row count and the sum of
+-- versions instead, which every insert, update and delete changes.
+CREATE SEQUENCE IF NOT EXISTS feature_flags_version_seq;
+
+CREATE TABLE IF NOT EXISTS feature_flags (
+    scope      varchar(32)  NOT NULL,
+    flag_key   varchar(200) NOT NULL,
+    value      text         NOT NULL,
+    version    bigint       NOT NULL DEFAULT nextval('feature_flags_version_seq'),
+    updated_at timestamptz  NOT NULL DEFAULT now(),
+    PRIMARY KEY (scope, flag_key)
+);
@@ -0,0 +1,153 @@
+package ca.dtadmi.gamehubapi.cache;
+
+import ca.dtadmi.gamehubapi.dto.GameStatsDto;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.model.GameScore;
+import ca.dtadmi.gamehubapi.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheManagerTest {
+
+    @Mock
+    private RedisCacheTier shared;
+
+    private CaffeineCacheManager local;
+    private TwoTierCacheManager manager;
+
+    @BeforeEach
+    void setUp() {
+        local = new CaffeineCacheManager("leaderboard");
+        manager = new TwoTierCacheManager(local, shared);
+    }
+
+    @Test
+    void miss_readsRedisBeforeLoader_andFillsLocal() {
+        when(shared.get("leaderboard", "snake")).thenReturn(List.of("from-redis"));
+        Cache cache = manager.getCache("leaderboard");
+
+        Object value = cache.get("snake", () -> List.of("from-db"));
+
+        assertThat(value).isEqualTo(List.of("from-redis"));
+        assertThat(local.getCache("leaderboard").get("snake").get()).isEqualTo(List.of("from-redis"));
+        verify(shared, never()).put(any(), any(), any());
+    }
+
+    @Test
+    void miss_inBothTiers_loadsOnce_andWritesThrough() {
+        Cache cache = manager.getCache("leaderboard");
+
+        cache.get("snake", () -> List.of("from-db"));
+        cache.get("snake", () -> List.of("second-load"));
+
+        verify(shared, times(1)).get("leaderboard", "snake");
+        verify(shared).put("leaderboard", "snake", List.of("from-db"));
+    }
+
+    @Test
+    void putAndEvict_writeBothTiers_andBroadcast() {
+        Cache cache = manager.getCache("leaderboard");
+
+        cache.put("snake", List.of(1));
+        cache.evict("snake");
+        cache.clear();
+
+        verify(shared).put("leaderboard", "snake", List.of(1));
+        verify(shared).evict("leaderboard", "snake");
+        verify(shared).clear("leaderboard");
+        verify(shared, times(2)).publishInvalidation("leaderboard", "snake");
+        verify(shared).publishInvalidation("leaderboard", null);
+    }
+
+    @Test
+    void remoteInvalidation_evictsLocalOnly() {
+        local.getCache("leaderboard").put("snake", List.of(1));
+        local.getCache("leaderboard").put("tetris", List.of(2));
+        when(shared.decodeRemote(any())).thenReturn(new RedisCacheTier.Invalidation("other-node", "leaderboard", "snake"));
+
+        manager.onMessage(new DefaultMessage(new byte[0], new byte[0]), null);
+
+        assertThat(local.getCache("leaderboard").get("snake")).isNull();
+        assertThat(local.getCache("leaderboard").get("tetris")).isNotNull();
+        verify(shared, never()).evict(any(), any());
+    }
+
+    @Test
+    void unknownCache_isNotCreated() {
+        assertThat(manager.getCache("nope")).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void codec_roundTripsCachedValueTypes() throws Exception {
+        RedisCacheTier tier = new RedisCacheTier(mock(RedisTemplate.class), Duration.ofSeconds(30));
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ada");
+        user.getRoles().add("ROLE_USER");
+        GameScore score = new GameScore();
+        score.setId(1L);
+        score.setUser(user);
+        score.setGameType("snake");
+        score.setScore(420);
+        score.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+
+        List<GameScore> scores = (List<GameScore>) tier.roundTrip(List.copyOf(List.of(score)));
+        GameStatsDto stats = (GameStatsDto) tier.roundTrip(new GameStatsDto(3, 12.5, 20, null));
+
+        assertThat(scores).containsExactly(score);
+        assertThat(stats).isEqualTo(new GameStatsDto(3, 12.5, 20, null));
+        assertThat(tier.roundTrip("plain")).isEqualTo("plain");
+        LeaderboardRowDto row = new LeaderboardRowDto(1, 7L, "ada", 420, LocalDateTime.of(2024, 5, 1, 12, 0));
+        assertThat(tier.roundTrip(List.copyOf(List.of(row)))).isEqualTo(List.of(row));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void codec_neverWritesPasswordHashes() throws Exception {
+        RedisCacheTier tier = new RedisCacheTier(mock(RedisTemplate.class), Duration.ofSeconds(30));
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ada");
+        user.setPassword("$2a$10$hash");
+        GameScore score = new GameScore();
+        score.setUser(user);
+
+        List<GameScore> scores = (List<GameScore>) tier.roundTrip(List.copyOf(List.of(score)));
+
+        assertThat(scores.get(0).getUser().getUsername()).isEqualTo("ada");
+        assertThat(scores.get(0).getUser().getPassword()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ownInvalidations_areIgnored() {
+        RedisTemplate<String, byte[]> template = mock(RedisTemplate.class);
+        RedisCacheTier tier = new RedisCacheTier(template, Duration.ofSeconds(30));
+        ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+
+        tier.publishInvalidation("leaderboard", "snake");
+        verify(template).convertAndSend(eq(RedisCacheTier.INVALIDATION_CHANNEL), body.capture());
+
+        assertThat(tier.decodeRemote((byte[]) body.getValue())).isNull();
+        RedisCacheTier otherNode = new RedisCacheTier(template, Duration.ofSeconds(30));
+        assertThat(otherNode.decodeRemote((byte[]) body.getValue()).key()).isEqualTo("snake");
+    }
+}
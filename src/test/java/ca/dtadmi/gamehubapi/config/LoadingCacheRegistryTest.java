@@ -0,0 +1,112 @@
+package ca.dtadmi.gamehubapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadingCacheRegistryTest {
+
+    private CaffeineCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private LoadingCacheRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new LoadingCacheRegistry(cacheManager, meterRegistry,
+                Duration.ofMinutes(1), Duration.ofMinutes(5), 100, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+    }
+
+    @Test
+    void concurrentMisses_shareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Cache cache = registry.register("leaderboard", key -> {
+            loads.incrementAndGet();
+            await(release);
+            return "top:" + key;
+        });
+
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> cache.get("snake", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "top:snake";
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        for (CompletableFuture<String> f : callers) {
+            assertThat(f.get(5, TimeUnit.SECONDS)).isEqualTo("top:snake");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cacheManager.getCache("leaderboard")).isSameAs(cache);
+        assertThat(meterRegistry.find("cache.gets").tag("cache", "leaderboard").meters()).isNotEmpty();
+    }
+
+    @Test
+    void refreshIfPresent_reloadsCachedKeysOnly() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        Cache cache = registry.register("gameStats", key -> key + ":v" + version.incrementAndGet());
+
+        assertThat(cache.get("snake", String.class)).isEqualTo("snake:v1");
+        registry.refreshIfPresent("gameStats", "snake");
+        registry.refreshIfPresent("gameStats", "tetris");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!"snake:v2".equals(cache.get("snake", String.class)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cache.get("snake", String.class)).isEqualTo("snake:v2");
+        assertThat(version.get()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshIfPresent_readsThePrimary() throws Exception {
+        List<Boolean> primaryOnly = new CopyOnWriteArrayList<>();
+        Cache cache = registry.register("userStats", key -> {
+            primaryOnly.add(ReplicaRoutingDataSource.isPrimaryOnly());
+            return key + ":v" + primaryOnly.size();
+        });
+
+        assertThat(cache.get("ada", String.class)).isEqualTo("ada:v1");
+        registry.refreshIfPresent("userStats", "ada");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (primaryOnly.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // The miss may use a replica; the refresh after a write must not
+        assertThat(primaryOnly).containsExactly(false, true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
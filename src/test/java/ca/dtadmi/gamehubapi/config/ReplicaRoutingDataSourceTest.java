@@ -0,0 +1,104 @@
+package ca.dtadmi.gamehubapi.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private ReplicaLagMonitor monitor;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        // Probes are driven by hand through update(), so the scheduler is a no-op mock
+        monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5), Duration.ofSeconds(5), meters,
+                mock(ScheduledExecutorService.class));
+        monitor.update(0.5);
+        routing = new ReplicaRoutingDataSource(primary, replica, monitor, meters);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        monitor.destroy();
+    }
+
+    @Test
+    void readWriteAndNonTransactionalWorkUsesPrimary() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+        assertThat(meters.counter("db.routing.connections", "target", "primary").count()).isEqualTo(1);
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+        assertThat(meters.counter("db.routing.connections", "target", "replica").count()).isEqualTo(1);
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        monitor.update(30);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+        assertThat(meters.counter("db.routing.connections", "target", "fallback").count()).isEqualTo(1);
+
+        monitor.update(1);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void unreachableReplicaIsTakenOutOfRotation() throws SQLException {
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(monitor.isAvailable()).isFalse();
+
+        routing.getConnection();
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void onPrimaryPinsReadsToPrimary() throws SQLException {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Connection pinned = ReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                return routing.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(pinned).isSameAs(primaryConnection);
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+}
@@ -0,0 +1,112 @@
+package ca.dtadmi.gamehubapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes through the same stack as {@link ReadReplicaConfig} (lazy proxy, router, Hikari pools,
+ * DataSourceTransactionManager) against two real Postgres servers. Each server names itself in a
+ * {@code node} table, so a query tells which one served it. The servers do not replicate, so lag
+ * is reported to the monitor by hand.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingIT {
+
+    @Container
+    static PostgreSQLContainer<?> primaryDb = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> replicaDb = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static HikariDataSource primaryPool;
+    static HikariDataSource replicaPool;
+    static ReplicaLagMonitor monitor;
+    static JdbcTemplate jdbc;
+    static TransactionTemplate readOnly;
+    static TransactionTemplate readWrite;
+
+    @BeforeAll
+    static void setUp() {
+        primaryPool = pool(primaryDb, "primary");
+        replicaPool = pool(replicaDb, "replica");
+        monitor = new ReplicaLagMonitor(replicaPool, Duration.ofSeconds(5), Duration.ofHours(1), new SimpleMeterRegistry());
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryPool, replicaPool, monitor, new SimpleMeterRegistry()));
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        monitor.destroy();
+        primaryPool.close();
+        replicaPool.close();
+    }
+
+    @BeforeEach
+    void replicaCurrent() {
+        // Runs the real lag query: a server that is not in recovery counts as current
+        monitor.probe();
+        assertThat(monitor.isAvailable()).isTrue();
+    }
+
+    @Test
+    void readOnlyTransactionsRunOnTheReplica() {
+        assertThat(in(readOnly)).isEqualTo("replica");
+        assertThat(in(readWrite)).isEqualTo("primary");
+        // Outside a transaction (auto-commit) there is no read-only flag
+        assertThat(node()).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() {
+        monitor.update(30);
+        assertThat(in(readOnly)).isEqualTo("primary");
+
+        monitor.update(0);
+        assertThat(in(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void onPrimaryPinsReadOnlyTransactions() {
+        assertThat(ReplicaRoutingDataSource.onPrimary(() -> in(readOnly))).isEqualTo("primary");
+    }
+
+    private static String in(TransactionTemplate tx) {
+        return tx.execute(status -> node());
+    }
+
+    private static String node() {
+        return jdbc.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource pool(PostgreSQLContainer<?> db, String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(db.getJdbcUrl());
+        pool.setUsername(db.getUsername());
+        pool.setPassword(db.getPassword());
+        pool.setMaximumPoolSize(2);
+        new JdbcTemplate(pool).execute("CREATE TABLE node AS SELECT '" + name + "'::text AS name");
+        return pool;
+    }
+}
@@ -1,5 +1,6 @@
 package ca.dtadmi.gamehubapi.controller;
 
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
@@ -124,16 +125,17 @@ class ScoreControllerWebMvcTest {
     @Test
     @DisplayName("GET /api/scores/leaderboard returns 200 with map of lists")
     void getLeaderboard_returns200() throws Exception {
-        User u = demoUser();
-        Map<String, List<GameScore>> lb = Map.of(
-                "snake", List.of(score(u, "snake", 100))
+        Map<String, List<LeaderboardRowDto>> lb = Map.of(
+                "snake", List.of(new LeaderboardRowDto(1, 1L, "demo", 100, null))
         );
         given(gameService.getLeaderboard()).willReturn(lb);
 
         mockMvc.perform(get("/api/scores/leaderboard"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.snake").isArray());
+                .andExpect(jsonPath("$.snake").isArray())
+                .andExpect(jsonPath("$.snake[0].username").value("demo"))
+                .andExpect(jsonPath("$.snake[0].password").doesNotExist());
     }
 
     // Simple argument resolver to inject an Authentication for controller method parameters
@@ -0,0 +1,61 @@
+package ca.dtadmi.gamehubapi.controller;
+
+import ca.dtadmi.gamehubapi.service.ScoreExportService;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ScoreExportControllerTest {
+
+    private MockMvc mockMvc;
+    private ScoreExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        exportService = Mockito.mock(ScoreExportService.class);
+        mockMvc = MockMvcBuilders.standaloneSetup(new ScoreExportController(exportService, Duration.ofMinutes(45))).build();
+    }
+
+    @Test
+    void export_streamsWithItsOwnTimeout() throws Exception {
+        given(exportService.export(eq("snake"), isNull(), eq(Format.CSV), eq(false), any(OutputStream.class)))
+                .willAnswer(inv -> {
+                    inv.getArgument(4, OutputStream.class).write("user_id,score\n1,10\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        MvcResult started = mockMvc.perform(get("/api/admin/scores/export").param("gameType", "snake").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(45).toMillis());
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"scores.csv\""))
+                .andExpect(content().string("user_id,score\n1,10\n"));
+    }
+
+    @Test
+    void export_unknownFormat_returns400() throws Exception {
+        mockMvc.perform(get("/api/admin/scores/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
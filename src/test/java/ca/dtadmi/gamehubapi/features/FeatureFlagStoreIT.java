@@ -0,0 +1,122 @@
+package ca.dtadmi.gamehubapi.features;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the store's SQL (V4 schema, UPSERT ... RETURNING, pg_notify) and the LISTEN loop against a
+ * real Postgres, with two stores standing in for two nodes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FeatureFlagStoreIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static DataSource dataSource;
+    static JdbcTemplate jdbc;
+
+    private FeatureFlagStore writer;
+    private FeatureFlagStore reader;
+
+    @BeforeAll
+    static void schema() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V4__feature_flags.sql")).execute(dataSource);
+    }
+
+    @BeforeEach
+    void start() {
+        jdbc.update("DELETE FROM feature_flags");
+        // Polls are driven by hand, so only notifications can update the reader on their own
+        writer = new FeatureFlagStore(jdbc, dataSource, Duration.ofHours(1), Duration.ofMillis(200));
+        reader = new FeatureFlagStore(jdbc, dataSource, Duration.ofHours(1), Duration.ofMillis(200));
+        writer.start();
+        reader.start();
+    }
+
+    @AfterEach
+    void stop() {
+        writer.stop();
+        reader.stop();
+    }
+
+    @Test
+    void putIsAppliedLocallyAndReachesOtherNodesThroughListen() throws InterruptedException {
+        // Let the reader's listener connect before the first notification
+        Thread.sleep(500);
+
+        writer.put("flag", "chat_enabled", "false");
+        assertThat(writer.current().scope("flag")).containsEntry("chat_enabled", "false");
+        awaitTrue(() -> "false".equals(reader.current().scope("flag").get("chat_enabled")));
+
+        writer.put("flag", "chat_enabled", "true");
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM feature_flags", Long.class)).isEqualTo(1);
+        awaitTrue(() -> "true".equals(reader.current().scope("flag").get("chat_enabled")));
+    }
+
+    @Test
+    void pollCatchesAWriteCommittedAfterAHigherVersionAndDeletes() throws Exception {
+        try (Connection slow = dataSource.getConnection(); Connection fast = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            fast.setAutoCommit(false);
+            long slowVersion = upsert(slow, "snake_3d_mode", "true");
+            long fastVersion = upsert(fast, "chat_enabled", "false");
+            assertThat(slowVersion).isLessThan(fastVersion);
+            fast.commit();
+            reader.poll();
+            assertThat(reader.current().scope("flag")).containsOnlyKeys("chat_enabled");
+            slow.commit();
+        }
+
+        reader.poll();
+        assertThat(reader.current().scope("flag")).containsEntry("snake_3d_mode", "true");
+
+        jdbc.update("DELETE FROM feature_flags WHERE flag_key = 'chat_enabled'");
+        reader.poll();
+        assertThat(reader.current().scope("flag")).containsOnlyKeys("snake_3d_mode");
+    }
+
+    private static long upsert(Connection con, String key, String value) throws Exception {
+        try (PreparedStatement ps = con.prepareStatement("""
+                INSERT INTO feature_flags (scope, flag_key, value) VALUES ('flag', ?, ?)
+                ON CONFLICT (scope, flag_key) DO UPDATE
+                SET value = EXCLUDED.value, version = nextval('feature_flags_version_seq'), updated_at = now()
+                RETURNING version
+                """)) {
+            ps.setString(1, key);
+            ps.setString(2, value);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ca.dtadmi.gamehubapi.features;
+
+import ca.dtadmi.gamehubapi.feature.FeatureService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FeatureFlagStoreTest {
+
+    private JdbcTemplate jdbc;
+    private FeatureFlagStore store;
+    // scope, key, value, version
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbc = mock(JdbcTemplate.class);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (Object[] row : List.copyOf(rows)) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn((String) row[0]);
+                when(rs.getString(2)).thenReturn((String) row[1]);
+                when(rs.getString(3)).thenReturn((String) row[2]);
+                when(rs.getLong(4)).thenReturn((Long) row[3]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(startsWith("SELECT scope"), any(RowCallbackHandler.class));
+        when(jdbc.queryForObject(startsWith("SELECT count"), any(RowMapper.class))).thenAnswer(inv ->
+                new long[]{rows.size(), rows.stream().mapToLong(row -> (Long) row[3]).sum()});
+        store = new FeatureFlagStore(jdbc, mock(DataSource.class), Duration.ofSeconds(30), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void refreshPublishesOnlyChangedSnapshots() {
+        List<FeatureFlagStore.Snapshot> seen = new ArrayList<>();
+        store.subscribe(seen::add);
+        assertThat(seen).containsExactly(FeatureFlagStore.Snapshot.EMPTY);
+
+        rows.add(new Object[]{"flag", "chat_enabled", "false", 3L});
+        rows.add(new Object[]{"overlay", "mail.provider", "ses", 5L});
+        store.refresh();
+        store.refresh();
+
+        assertThat(seen).hasSize(2);
+        FeatureFlagStore.Snapshot snapshot = store.current();
+        assertThat(snapshot.rows()).isEqualTo(2);
+        assertThat(snapshot.versionSum()).isEqualTo(8);
+        assertThat(snapshot.scope("flag")).containsExactlyEntriesOf(Map.of("chat_enabled", "false"));
+        assertThat(snapshot.scope("overlay")).containsEntry("mail.provider", "ses");
+        assertThat(snapshot.scope("missing")).isEmpty();
+    }
+
+    @Test
+    void pollReloadsOnlyWhenTheStoredRowsChanged() {
+        rows.add(new Object[]{"flag", "chat_enabled", "false", 3L});
+        store.refresh();
+        clearInvocations(jdbc);
+
+        store.poll();
+        verify(jdbc, never()).query(startsWith("SELECT scope"), any(RowCallbackHandler.class));
+
+        rows.set(0, new Object[]{"flag", "chat_enabled", "true", 4L});
+        store.poll();
+        assertThat(store.current().scope("flag")).containsEntry("chat_enabled", "true");
+    }
+
+    @Test
+    void pollPicksUpAWriteThatCommittedAfterAHigherVersion() {
+        // Version 11 committed first...
+        rows.add(new Object[]{"flag", "chat_enabled", "false", 11L});
+        store.refresh();
+
+        // ...then the writer holding version 10: the highest version is still 11
+        rows.add(new Object[]{"flag", "snake_3d_mode", "true", 10L});
+        store.poll();
+
+        assertThat(store.current().scope("flag")).containsEntry("snake_3d_mode", "true");
+    }
+
+    @Test
+    void pollPicksUpDeletes() {
+        rows.add(new Object[]{"flag", "chat_enabled", "false", 3L});
+        rows.add(new Object[]{"flag", "snake_3d_mode", "true", 4L});
+        store.refresh();
+
+        rows.remove(1);
+        store.poll();
+
+        assertThat(store.current().scope("flag")).containsOnlyKeys("chat_enabled");
+    }
+
+    @Test
+    void putWritesNotifiesAndAppliesLocally() {
+        when(jdbc.queryForObject(startsWith("INSERT INTO feature_flags"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    rows.add(new Object[]{"flag", "snake_3d_mode", "true", 7L});
+                    return 7L;
+                });
+        FeatureFlagsService flags = new FeatureFlagsService(new MockEnvironment(), store);
+        assertThat(flags.isEnabled("snake_3d_mode")).isFalse();
+
+        flags.toggle("snake_3d_mode", true);
+
+        verify(jdbc).query(eq("SELECT pg_notify(?, ?)"), any(ResultSetExtractor.class), eq("feature_flags"), eq("7"));
+        assertThat(flags.isEnabled("snake_3d_mode")).isTrue();
+    }
+
+    @Test
+    void servicesFollowTheirStoredScope() {
+        rows.add(new Object[]{"flag", "realtime_enabled", "false", 1L});
+        rows.add(new Object[]{"overlay", "chess_enabled", "false", 2L});
+        rows.add(new Object[]{"overlay", "mail.provider", "ses", 3L});
+        FeatureFlagsService flags = new FeatureFlagsService(new MockEnvironment(), store);
+        FeatureService features = new FeatureService(new MockEnvironment(), providerOf(store));
+        assertThat(flags.isEnabled("realtime_enabled")).isTrue();
+
+        store.refresh();
+
+        assertThat(flags.isEnabled("realtime_enabled")).isFalse();
+        assertThat(features.isEnabled("chess_enabled", true)).isFalse();
+        assertThat(features.listAll()).containsEntry("mail.provider", "ses").containsEntry("chess_enabled", false);
+
+        // Removed from the store (e.g. by hand): the default applies again
+        rows.remove(0);
+        store.refresh();
+        assertThat(flags.isEnabled("realtime_enabled")).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<FeatureFlagStore> providerOf(FeatureFlagStore store) {
+        ObjectProvider<FeatureFlagStore> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(store);
+        return provider;
+    }
+}
@@ -0,0 +1,103 @@
+package ca.dtadmi.gamehubapi.features;
+
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureFlagsServiceTest {
+
+    private static Authentication user(String email, String... roles) {
+        UserPrincipal principal = new UserPrincipal(1L, "u", email, null,
+                java.util.Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    @Test
+    void segmentsByRoleEmailAndDomainSuffix() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("features.chat_enabled.allowRoles", "ROLE_ADMIN")
+                .withProperty("features.realtime_enabled.allowEmails", "a@x.io, b@x.io")
+                .withProperty("features.snake_leaderboard_enabled.allowEmailDomains", "Example.com,company.org");
+        FeatureFlagsService flags = new FeatureFlagsService(env);
+
+        assertThat(flags.isEnabledFor("chat_enabled", user("a@x.io", "ROLE_USER", "ROLE_ADMIN"))).isTrue();
+        assertThat(flags.isEnabledFor("chat_enabled", user("a@x.io", "ROLE_USER"))).isFalse();
+        assertThat(flags.isEnabledFor("realtime_enabled", user("b@x.io"))).isTrue();
+        assertThat(flags.isEnabledFor("realtime_enabled", user("c@x.io"))).isFalse();
+        assertThat(flags.isEnabledFor("realtime_enabled", null)).isFalse();
+
+        assertThat(flags.isEnabledFor("snake_leaderboard_enabled", user("u@example.com"))).isTrue();
+        assertThat(flags.isEnabledFor("snake_leaderboard_enabled", user("u@Mail.EXAMPLE.com"))).isTrue();
+        assertThat(flags.isEnabledFor("snake_leaderboard_enabled", user("u@notexample.com"))).isFalse();
+        assertThat(flags.isEnabledFor("snake_leaderboard_enabled", user("u@example.com.evil.net"))).isFalse();
+        assertThat(flags.isEnabledFor("snake_leaderboard_enabled", user("u@company.org"))).isTrue();
+    }
+
+    @Test
+    void rolloutUsesStableBucketsAndThresholds() {
+        FeatureFlagsService flags = new FeatureFlagsService(new MockEnvironment()
+                .withProperty("features.chat_enabled.rolloutPercent", "30")
+                .withProperty("features.realtime_enabled.rolloutPercent", "0"));
+
+        int enabled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String email = "player" + i + "@example.com";
+            boolean on = flags.isEnabledFor("chat_enabled", user(email));
+            assertThat(on).isEqualTo(FlagSnapshot.bucket(email) < 30);
+            if (on) enabled++;
+        }
+        assertThat(enabled).isBetween(2_700, 3_300);
+        assertThat(flags.isEnabledFor("realtime_enabled", user("player1@example.com"))).isFalse();
+        assertThat(FlagSnapshot.bucket("player1@example.com")).isEqualTo(FlagSnapshot.bucket("player1@example.com"));
+    }
+
+    @Test
+    void defaultsOverridesAndEvaluateAll() {
+        FeatureFlagsService flags = new FeatureFlagsService(new MockEnvironment()
+                .withProperty("features.antiCheatEnabled", "true"));
+
+        assertThat(flags.knownFlags()).hasSize(6);
+        assertThat(flags.isEnabled("anti_cheat_enabled")).isTrue();
+        assertThat(flags.isEnabled("snake_3d_mode")).isFalse();
+        assertThat(flags.isEnabled("unknown")).isFalse();
+
+        flags.toggle("snake_3d_mode", true);
+        flags.toggle("realtime_enabled", false);
+        assertThat(flags.evaluateAll(user("a@b.c", "ROLE_USER")))
+                .containsEntry("snake_3d_mode", true)
+                .containsEntry("realtime_enabled", false)
+                .containsEntry("chat_enabled", true)
+                .containsOnlyKeys(Set.copyOf(flags.knownFlags()));
+        assertThat(flags.evaluateAll()).isEqualTo(flags.evaluateAll(null));
+    }
+
+    @Test
+    void overridesForUnknownKeysAreCheckableButNotListed() {
+        FeatureFlagsService flags = new FeatureFlagsService(new MockEnvironment());
+
+        flags.toggle("internal_kill_switch", true);
+
+        assertThat(flags.isEnabled("internal_kill_switch")).isTrue();
+        assertThat(flags.evaluateAll()).containsOnlyKeys(Set.copyOf(flags.knownFlags()));
+        assertThat(flags.evaluateAll(user("a@b.c", "ROLE_USER"))).containsOnlyKeys(Set.copyOf(flags.knownFlags()));
+    }
+
+    @Test
+    void domainTrieMatchesOnlyWholeLabels() {
+        DomainSuffixTrie trie = DomainSuffixTrie.of(List.of("ab.com", "b.com"));
+        assertThat(trie.matches("x@b.com", 2)).isTrue();
+        assertThat(trie.matches("x@ab.com", 2)).isTrue();
+        assertThat(trie.matches("x@cab.com", 2)).isFalse();
+        assertThat(trie.matches("x@z.ab.com", 2)).isTrue();
+        assertThat(trie.matches("x@com", 2)).isFalse();
+        assertThat(DomainSuffixTrie.EMPTY.isEmpty()).isTrue();
+    }
+}
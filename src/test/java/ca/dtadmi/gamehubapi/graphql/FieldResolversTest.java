@@ -0,0 +1,104 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.dto.LeaderboardEntryDto;
+import ca.dtadmi.gamehubapi.dto.UserTotalsDto;
+import ca.dtadmi.gamehubapi.graphql.types.GameType;
+import ca.dtadmi.gamehubapi.model.Friendship;
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.FriendshipRepository;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FieldResolversTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private GameScoreRepository gameScoreRepository;
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @InjectMocks
+    private FieldResolvers resolvers;
+
+    @Test
+    void leaderboardUsers_loadedWithOneQuery() {
+        User ada = user(1L, "ada");
+        User bob = user(2L, "bob");
+        List<LeaderboardEntryDto> entries = List.of(
+                new LeaderboardEntryDto(1, 1L, "ada", 30, GameType.SNAKE),
+                new LeaderboardEntryDto(2, 2L, "bob", 20, GameType.SNAKE),
+                new LeaderboardEntryDto(3, 1L, "ada", 10, GameType.SNAKE));
+        when(userRepository.findAllById(anyList())).thenReturn(List.of(ada, bob));
+
+        Map<LeaderboardEntryDto, User> users = resolvers.leaderboardUser(entries);
+
+        assertThat(users).hasSize(3);
+        assertThat(users.get(entries.get(2))).isSameAs(ada);
+        verify(userRepository, times(1)).findAllById(List.of(1L, 2L));
+    }
+
+    @Test
+    void userStats_aggregatedWithOneQuery_andDefaultToZero() {
+        User ada = user(1L, "ada");
+        User bob = user(2L, "bob");
+        when(gameScoreRepository.totalsByUserIds(anyCollection())).thenReturn(List.of(new UserTotalsDto(1L, 3, 120)));
+
+        Map<User, FieldResolvers.UserStats> stats = resolvers.stats(List.of(ada, bob));
+
+        assertThat(stats.get(ada).getTotalGames()).isEqualTo(3);
+        assertThat(stats.get(ada).getTotalScore()).isEqualTo(120);
+        assertThat(stats.get(bob).getTotalGames()).isZero();
+        verify(gameScoreRepository, times(1)).totalsByUserIds(anyCollection());
+    }
+
+    @Test
+    void friends_loadedWithOneQuery_andGroupedPerUser() {
+        User ada = user(1L, "ada");
+        User bob = user(2L, "bob");
+        User cy = user(3L, "cy");
+        when(friendshipRepository.findWithFriendByUserIdIn(anyCollection()))
+                .thenReturn(List.of(friendship(ada, bob), friendship(ada, cy)));
+
+        Map<User, FieldResolvers.Friends> friends = resolvers.friends(List.of(ada, bob));
+
+        assertThat(friends.get(ada).getCount()).isEqualTo(2);
+        assertThat(friends.get(ada).getEdges()).extracting(FieldResolvers.FriendEdge::getUser).containsExactly(bob, cy);
+        assertThat(friends.get(bob).getCount()).isZero();
+        verify(friendshipRepository, times(1)).findWithFriendByUserIdIn(List.of(1L, 2L));
+    }
+
+    private Friendship friendship(User user, User friend) {
+        Friendship f = new Friendship();
+        f.setUser(user);
+        f.setFriend(friend);
+        f.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0));
+        return f;
+    }
+
+    private User user(Long id, String username) {
+        User u = new User();
+        u.setId(id);
+        u.setUsername(username);
+        return u;
+    }
+}
@@ -0,0 +1,105 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.dto.GameStatsDto;
+import ca.dtadmi.gamehubapi.graphql.types.GameType;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.ScoreSavedEvent;
+import ca.dtadmi.gamehubapi.service.StatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LiveUpdatesPublisherTest {
+
+    @Mock
+    private GameScoreRepository gameScoreRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StatsService statsService;
+
+    private LiveUpdatesPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        publisher = new LiveUpdatesPublisher(gameScoreRepository, userRepository, statsService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.destroy();
+    }
+
+    @Test
+    void subscribersShareOneLoadPerChange() {
+        AtomicLong games = new AtomicLong();
+        when(statsService.freshGameStats("snake")).thenAnswer(inv -> new GameStatsDto(games.incrementAndGet(), 1.0, 1, null));
+        List<GameStatsDto> first = new CopyOnWriteArrayList<>();
+        List<GameStatsDto> second = new CopyOnWriteArrayList<>();
+
+        Disposable a = publisher.gameStats(GameType.SNAKE).subscribe(first::add);
+        awaitTrue(() -> first.size() == 1);
+        Disposable b = publisher.gameStats(GameType.SNAKE).subscribe(second::add);
+        publisher.onScoreSaved(new ScoreSavedEvent(1L, 2L, "snake", 10, null));
+        publisher.onScoreSaved(new ScoreSavedEvent(2L, 2L, "tetris", 10, null));
+        awaitTrue(() -> first.size() == 2 && second.size() == 2);
+
+        // Late subscriber got the cached snapshot, then both got the same reload
+        assertThat(second.get(0)).isSameAs(first.get(0));
+        assertThat(second.get(1)).isSameAs(first.get(1));
+        verify(statsService, times(2)).freshGameStats("snake");
+
+        a.dispose();
+        b.dispose();
+        assertThat(publisher.activeTopics()).isZero();
+    }
+
+    @Test
+    void slowOlderReloadNeverOverwritesANewerOne() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicLong calls = new AtomicLong();
+        when(statsService.freshGameStats("snake")).thenAnswer(inv -> {
+            long call = calls.incrementAndGet();
+            if (call == 1) releaseFirst.await();
+            return new GameStatsDto(call, 1.0, 1, null);
+        });
+        List<GameStatsDto> seen = new CopyOnWriteArrayList<>();
+
+        Disposable sub = publisher.gameStats(GameType.SNAKE).subscribe(seen::add);
+        awaitTrue(() -> calls.get() == 1);
+        publisher.onScoreSaved(new ScoreSavedEvent(1L, 2L, "snake", 10, null));
+        awaitTrue(() -> seen.size() == 1);
+        releaseFirst.countDown();
+        Thread.sleep(200);
+
+        assertThat(seen).extracting(GameStatsDto::getTotalGames).containsExactly(2L);
+        sub.dispose();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
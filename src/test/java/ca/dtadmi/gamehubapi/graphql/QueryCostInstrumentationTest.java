@@ -0,0 +1,66 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCostInstrumentationTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        GraphQLSchema schema;
+        try (var reader = new InputStreamReader(getClass().getResourceAsStream("/graphql/schema.graphqls"), StandardCharsets.UTF_8)) {
+            schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(reader),
+                    RuntimeWiring.newRuntimeWiring().scalar(ExtendedScalars.Json).build());
+        }
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new QueryCostInstrumentation(5000, 10, meterRegistry))
+                .build();
+    }
+
+    @Test
+    void plainLeaderboardPage_isAccepted() {
+        ExecutionResult result = graphQL.execute(
+                "{ leaderboard(gameType: SNAKE, first: 200) { edges { node { rank score user { username } } } } }");
+
+        assertThat(result.getErrors()).noneMatch(e -> e.getMessage().contains("cost"));
+        assertThat(meterRegistry.get(QueryCostInstrumentation.METRIC).tag("outcome", "accepted").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fanOutThroughFriends_isRejectedBeforeExecution() {
+        ExecutionResult result = graphQL.execute("""
+                { leaderboard(gameType: SNAKE, first: 200) { edges { node {
+                    user { friends { edges { user { stats { totalGames } friends { count } } } } }
+                } } } }""");
+
+        assertThat(result.getErrors()).anyMatch(e -> e.getMessage().contains("exceeds the maximum of 5000"));
+        assertThat(result.<Object>getData()).isNull();
+        assertThat(meterRegistry.get(QueryCostInstrumentation.METRIC)
+                .tags("outcome", "rejected", "fields", "leaderboard").summary().max()).isGreaterThan(5000);
+    }
+
+    @Test
+    void defaultFirstArgument_countsTowardsCost() {
+        graphQL.execute("{ gameScores(gameType: SNAKE) { id } }");
+
+        // first defaults to 100: 100 * (1 + 1)
+        assertThat(meterRegistry.get(QueryCostInstrumentation.METRIC).summary().max()).isEqualTo(200);
+    }
+}
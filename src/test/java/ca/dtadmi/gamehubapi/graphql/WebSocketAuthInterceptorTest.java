@@ -0,0 +1,107 @@
+package ca.dtadmi.gamehubapi.graphql;
+
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.security.CustomUserDetailsService;
+import ca.dtadmi.gamehubapi.security.JwtTokenProvider;
+import ca.dtadmi.gamehubapi.security.UserPrincipal;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.graphql.server.WebSocketGraphQlRequest;
+import org.springframework.graphql.server.WebSocketSessionInfo;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WebSocketAuthInterceptorTest {
+
+    @Mock
+    private WebSocketSessionInfo session;
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+    private JwtTokenProvider tokenProvider;
+    private WebSocketAuthInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded()));
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 60_000);
+        interceptor = new WebSocketAuthInterceptor(tokenProvider, userDetailsService);
+    }
+
+    @Test
+    void connectionInitToken_authenticatesEveryOperationOnTheSession() {
+        when(session.getAttributes()).thenReturn(attributes);
+        User ada = new User();
+        ada.setId(7L);
+        ada.setUsername("ada");
+        ada.setEmail("ada@example.com");
+        String token = tokenProvider.generateTokenForUser(ada);
+
+        interceptor.handleConnectionInitialization(session, Map.of("Authorization", "Bearer " + token)).block();
+        Optional<Object> context = securityContextSeenBy(subscription());
+
+        assertThat(context).get().isInstanceOfSatisfying(SecurityContext.class, sc -> {
+            assertThat(sc.getAuthentication().isAuthenticated()).isTrue();
+            assertThat(sc.getAuthentication().getPrincipal()).isInstanceOfSatisfying(UserPrincipal.class,
+                    p -> assertThat(p.getId()).isEqualTo(7L));
+        });
+    }
+
+    @Test
+    void connectionInitWithoutToken_leavesTheSessionAnonymous() {
+        when(session.getAttributes()).thenReturn(attributes);
+
+        interceptor.handleConnectionInitialization(session, Map.of()).block();
+
+        assertThat(attributes).isEmpty();
+        assertThat(securityContextSeenBy(subscription())).isEmpty();
+    }
+
+    @Test
+    void connectionInitWithBadToken_isRefused() {
+        Mono<Object> init = interceptor.handleConnectionInitialization(session, Map.of("authToken", "not-a-jwt"));
+
+        assertThatThrownBy(init::block).isInstanceOf(BadCredentialsException.class);
+        assertThat(attributes).isEmpty();
+    }
+
+    private WebSocketGraphQlRequest subscription() {
+        return new WebSocketGraphQlRequest(URI.create("http://localhost/graphql"), new HttpHeaders(),
+                Map.of("query", "subscription { gameStatsUpdated(gameType: SNAKE) { gameType } }"), "1",
+                Locale.ENGLISH, session);
+    }
+
+    private Optional<Object> securityContextSeenBy(WebSocketGraphQlRequest request) {
+        AtomicReference<Object> seen = new AtomicReference<>();
+        interceptor.intercept(request, next -> Mono.deferContextual(ctx -> {
+            seen.set(ctx.getOrDefault(WebSocketAuthInterceptor.SECURITY_CONTEXT_KEY, null));
+            return Mono.empty();
+        })).block();
+        return Optional.ofNullable(seen.get());
+    }
+}
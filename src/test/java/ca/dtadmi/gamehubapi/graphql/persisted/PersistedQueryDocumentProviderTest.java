@@ -0,0 +1,158 @@
+package ca.dtadmi.gamehubapi.graphql.persisted;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.language.Document;
+import graphql.scalars.ExtendedScalars;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistedQueryDocumentProviderTest {
+
+    private static final String QUERY = "{ gameStats(gameType: SNAKE) { totalGames } }";
+    private static final String HASH = PersistedQueryDocumentProvider.sha256Hex(QUERY);
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private GraphQLSchema schema;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (var reader = new InputStreamReader(getClass().getResourceAsStream("/graphql/schema.graphqls"), StandardCharsets.UTF_8)) {
+            schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(reader),
+                    RuntimeWiring.newRuntimeWiring().scalar(ExtendedScalars.Json).build());
+        }
+    }
+
+    @Test
+    void hashOnly_unknownThenRegisteredByFullRequest_thenServedWithoutParsing() {
+        GraphQL graphQL = graphQL(Map.of(), false);
+
+        ExecutionResult miss = graphQL.execute(apq(PersistedQuerySupport.PERSISTED_QUERY_MARKER));
+        assertThat(miss.getErrors()).anyMatch(e -> e.getMessage().contains("PersistedQueryNotFound"));
+
+        graphQL.execute(apq(QUERY));
+        ExecutionResult hit = graphQL.execute(apq(PersistedQuerySupport.PERSISTED_QUERY_MARKER));
+
+        assertThat(hit.getErrors()).noneMatch(e -> e.getMessage().contains("PersistedQuery"));
+        assertThat(parses).hasValue(1);
+    }
+
+    @Test
+    void plainQueries_areCachedByTextHash() {
+        GraphQL graphQL = graphQL(Map.of(), false);
+
+        graphQL.execute(QUERY);
+        graphQL.execute(QUERY);
+
+        assertThat(parses).hasValue(1);
+    }
+
+    @Test
+    void allowListOnly_servesRegisteredHashes_andRefusesOthers() {
+        GraphQL graphQL = graphQL(Map.of(HASH, QUERY), true);
+
+        ExecutionResult registered = graphQL.execute(apq(PersistedQuerySupport.PERSISTED_QUERY_MARKER));
+        ExecutionResult adHoc = graphQL.execute("{ gameStats(gameType: TETRIS) { totalGames } }");
+
+        assertThat(registered.getErrors()).noneMatch(e -> e.getMessage().contains("allow-list"));
+        assertThat(adHoc.getErrors()).anyMatch(e -> e.getMessage().contains("allow-list"));
+    }
+
+    @Test
+    void requestFilter_addsMarkerToHashOnlyBodies() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        PersistedQueryRequestFilter filter = new PersistedQueryRequestFilter(mapper, "/graphql");
+        String hashOnly = "{\"extensions\":{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"" + HASH + "\"}}}";
+        String plain = "{\"query\":\"{ x }\"}";
+
+        byte[] rewritten = filter.withMarkerIfHashOnly(hashOnly.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(mapper.readTree(rewritten).path("query").asText()).isEqualTo(PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+        assertThat(filter.withMarkerIfHashOnly(plain.getBytes(StandardCharsets.UTF_8))).isEqualTo(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void requestFilter_onlyRewritesGraphqlPosts_andSupportsReadListeners() throws Exception {
+        PersistedQueryRequestFilter filter = new PersistedQueryRequestFilter(new ObjectMapper(), "/graphql");
+        String hashOnly = "{\"extensions\":{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"" + HASH + "\"}}}";
+
+        MockHttpServletRequest other = new MockHttpServletRequest("POST", "/api/scores");
+        other.setContentType("application/json");
+        other.setContent(hashOnly.getBytes(StandardCharsets.UTF_8));
+        MockFilterChain otherChain = new MockFilterChain();
+        filter.doFilter(other, new MockHttpServletResponse(), otherChain);
+        assertThat(otherChain.getRequest()).isSameAs(other);
+
+        MockHttpServletRequest apq = new MockHttpServletRequest("POST", "/graphql");
+        apq.setContentType("application/json");
+        apq.setContent(hashOnly.getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(apq, new MockHttpServletResponse(), chain);
+
+        ServletInputStream in = chain.getRequest().getInputStream();
+        AtomicInteger events = new AtomicInteger();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                events.incrementAndGet();
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+        assertThat(events).hasValue(2);
+        assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains(PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+    }
+
+    private GraphQL graphQL(Map<String, String> allowList, boolean allowListOnly) {
+        PersistedDocumentCache cache = new PersistedDocumentCache(100, allowList, allowListOnly, new SimpleMeterRegistry());
+        return GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new PersistedQueryDocumentProvider(cache))
+                .instrumentation(new SimplePerformantInstrumentation() {
+                    @Override
+                    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters,
+                                                                       InstrumentationState state) {
+                        parses.incrementAndGet();
+                        return super.beginParse(parameters, state);
+                    }
+                })
+                .build();
+    }
+
+    private ExecutionInput apq(String query) {
+        return ExecutionInput.newExecutionInput(query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", HASH)))
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package ca.dtadmi.gamehubapi.interceptor;
+
+import ca.dtadmi.gamehubapi.security.KeyedRateLimiter;
+import ca.dtadmi.gamehubapi.security.RequestRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StompRateLimitInterceptorTest {
+
+    private final Map<String, Integer> costs = new LinkedHashMap<>(Map.of("/app/*/chat", 5, "/app/*/presence", 1));
+    private final StompRateLimitInterceptor interceptor = new StompRateLimitInterceptor(
+            new KeyedRateLimiter(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(10)),
+            new KeyedRateLimiter(10, Duration.ofMinutes(1), 100, Duration.ofMinutes(10)),
+            costs);
+
+    private static Message<byte[]> send(String session, String destination) {
+        return send(session, destination, null);
+    }
+
+    private static Message<byte[]> send(String session, String destination, Map<String, Object> attributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setSessionId(session);
+        accessor.setDestination(destination);
+        accessor.setSessionAttributes(attributes);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void framesCostTheirDestinationWeight() {
+        assertThat(interceptor.cost("/app/snake/chat")).isEqualTo(5);
+        assertThat(interceptor.cost("/app/snake/presence")).isEqualTo(1);
+        assertThat(interceptor.cost("/app/chess/move")).isEqualTo(1);
+        assertThat(interceptor.cost(null)).isEqualTo(1);
+    }
+
+    @Test
+    void expensiveFramesExhaustTheQuotaSooner() {
+        // Guest quota of 10: two chats (5 each) use it all, so the next frame of any kind is dropped
+        assertThat(interceptor.preSend(send("s1", "/app/snake/chat"), null)).isNotNull();
+        assertThat(interceptor.preSend(send("s1", "/app/snake/chat"), null)).isNotNull();
+        assertThat(interceptor.preSend(send("s1", "/app/snake/presence"), null)).isNull();
+
+        // Other sessions keep their own quota
+        assertThat(interceptor.preSend(send("s2", "/app/snake/presence"), null)).isNotNull();
+    }
+
+    @Test
+    void nonSendFramesAreNotCounted() {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("s1");
+        Message<byte[]> subscribe = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        for (int i = 0; i < 20; i++) {
+            assertThat(interceptor.preSend(subscribe, null)).isNotNull();
+        }
+    }
+
+    @Test
+    void sessionQuotaLeasesFromTheSharedLimiterInChunks() {
+        RequestRateLimiter shared = mock(RequestRateLimiter.class);
+        when(shared.limit()).thenReturn(120L);
+        when(shared.tryAcquire(anyString(), anyInt())).thenReturn(100L);
+        AtomicLong now = new AtomicLong();
+        StompRateLimitInterceptor quoted = new StompRateLimitInterceptor(shared, shared, costs,
+                new SessionQuota.Settings(30, 10, 20, Duration.ofSeconds(10)), now::get);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(quoted.preSend(send("s1", "/app/snake/presence", attributes), null)).isNotNull();
+            now.addAndGet(Duration.ofMillis(100).toNanos());
+        }
+        verify(shared, times(5)).tryAcquire("sess:s1", 20);
+        verify(shared, never()).tryAcquire("sess:s1", 1);
+    }
+
+    @Test
+    void sessionFloodIsDroppedLocally() {
+        RequestRateLimiter shared = mock(RequestRateLimiter.class);
+        when(shared.limit()).thenReturn(120L);
+        when(shared.tryAcquire(anyString(), anyInt())).thenReturn(100L);
+        StompRateLimitInterceptor quoted = new StompRateLimitInterceptor(shared, shared, costs,
+                new SessionQuota.Settings(30, 10, 20, Duration.ofSeconds(10)), () -> 0L);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        int passed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (quoted.preSend(send("s1", "/app/snake/presence", attributes), null) != null) passed++;
+        }
+        assertThat(passed).isEqualTo(30);
+        verify(shared, times(2)).tryAcquire("sess:s1", 20);
+    }
+
+    @Test
+    void refusalIsRememberedUntilRetryAfter() {
+        RequestRateLimiter shared = mock(RequestRateLimiter.class);
+        when(shared.limit()).thenReturn(120L);
+        when(shared.tryAcquire(anyString(), anyInt())).thenReturn(-Duration.ofSeconds(5).toNanos());
+        AtomicLong now = new AtomicLong();
+        StompRateLimitInterceptor quoted = new StompRateLimitInterceptor(shared, shared, costs,
+                new SessionQuota.Settings(30, 10, 20, Duration.ofSeconds(10)), now::get);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        assertThat(quoted.preSend(send("s1", "/app/snake/presence", attributes), null)).isNull();
+        verify(shared).tryAcquire("sess:s1", 1);
+
+        now.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertThat(quoted.preSend(send("s1", "/app/snake/presence", attributes), null)).isNull();
+        verify(shared, times(1)).tryAcquire("sess:s1", 1);
+
+        when(shared.tryAcquire(anyString(), anyInt())).thenReturn(100L);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(quoted.preSend(send("s1", "/app/snake/presence", attributes), null)).isNotNull();
+    }
+
+    @Test
+    void unusedLeaseExpires() {
+        RequestRateLimiter shared = mock(RequestRateLimiter.class);
+        when(shared.limit()).thenReturn(120L);
+        when(shared.tryAcquire(anyString(), anyInt())).thenReturn(100L);
+        AtomicLong now = new AtomicLong();
+        StompRateLimitInterceptor quoted = new StompRateLimitInterceptor(shared, shared, costs,
+                new SessionQuota.Settings(30, 10, 20, Duration.ofSeconds(10)), now::get);
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        quoted.preSend(send("s1", "/app/snake/presence", attributes), null);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        quoted.preSend(send("s1", "/app/snake/presence", attributes), null);
+
+        verify(shared, times(2)).tryAcquire("sess:s1", 20);
+    }
+}
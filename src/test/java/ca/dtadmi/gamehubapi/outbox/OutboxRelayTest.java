@@ -0,0 +1,126 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.LeaderboardService;
+import ca.dtadmi.gamehubapi.service.ScoreSavedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    @Mock
+    private ScoreOutbox outbox;
+
+    @Mock
+    private OutboxSink sink;
+
+    private OutboxRelay relay(int batchSize) {
+        return new OutboxRelay(outbox, sink, new SimpleMeterRegistry(), batchSize, 5, Duration.ofDays(1), LEASE);
+    }
+
+    private static List<OutboxEvent> events(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> new OutboxEvent(id, OutboxEvent.SCORE_SAVED, id * 10, 1L, "alice", "snake", 50, T0))
+                .toList();
+    }
+
+    @Test
+    void relay_publishesAndMarksUntilABatchComesBackShort() throws Exception {
+        List<OutboxEvent> first = events(1, 2);
+        List<OutboxEvent> second = events(3, 3);
+        when(outbox.claim(2, LEASE)).thenReturn(first, second);
+
+        relay(2).relay();
+
+        verify(sink).publish(first);
+        verify(sink).publish(second);
+        verify(outbox).markPublished(first);
+        verify(outbox).markPublished(second);
+        verify(outbox, times(2)).claim(2, LEASE);
+    }
+
+    @Test
+    void relay_releasesBatchUnpublishedWhenSinkFails() throws Exception {
+        List<OutboxEvent> batch = events(1, 3);
+        when(outbox.claim(10, LEASE)).thenReturn(batch);
+        doThrow(new IllegalStateException("redis down")).when(sink).publish(anyList());
+
+        relay(10).relay();
+
+        verify(outbox, never()).markPublished(anyList());
+        verify(outbox).release(batch);
+    }
+
+    @Test
+    void claim_marksUnreadableRowFailedAndReturnsTheRest(@Mock JdbcTemplate jdbc, @Mock UserRepository users,
+                                                        @Mock ResultSet rs) throws Exception {
+        ScoreOutbox scoreOutbox = new ScoreOutbox(jdbc, users, new ObjectMapper().findAndRegisterModules());
+        String good = scoreOutbox.toJson(new ScoreOutbox.Payload(20L, 1L, "alice", "snake", 50, T0));
+        when(rs.getLong(1)).thenReturn(2L, 1L);
+        when(rs.getString(2)).thenReturn(OutboxEvent.SCORE_SAVED);
+        when(rs.getString(3)).thenReturn(good, "{not json");
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbc).query(any(String.class), any(RowCallbackHandler.class), eq(30.0), eq(10));
+
+        List<OutboxEvent> claimed = scoreOutbox.claim(10, LEASE);
+
+        assertThat(claimed).extracting(OutboxEvent::id).containsExactly(2L);
+        verify(jdbc).update(contains("failed_at = now()"), any(String.class), eq(1L));
+    }
+
+    @Test
+    void append_writesPayloadThatRoundTrips(@Mock JdbcTemplate jdbc, @Mock UserRepository users) {
+        User alice = new User();
+        alice.setUsername("alice");
+        when(users.findById(7L)).thenReturn(Optional.of(alice));
+        ScoreOutbox scoreOutbox = new ScoreOutbox(jdbc, users, new ObjectMapper().findAndRegisterModules());
+
+        scoreOutbox.append(new ScoreSavedEvent(42L, 7L, "snake", 120, T0));
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(jdbc).update(any(String.class), eq(OutboxEvent.SCORE_SAVED), eq(42L), json.capture());
+        assertThat(scoreOutbox.toEvent(9L, OutboxEvent.SCORE_SAVED, json.getValue()))
+                .isEqualTo(new OutboxEvent(9L, OutboxEvent.SCORE_SAVED, 42L, 7L, "alice", "snake", 120, T0));
+    }
+
+    @Test
+    void leaderboardProjector_submitsToTheGlobalRedisBoard(@Mock LeaderboardService leaderboards) {
+        new RedisLeaderboardProjector(leaderboards).project(events(1, 1).get(0));
+
+        verify(leaderboards).submit("snake:global", "alice", 50);
+    }
+}
@@ -0,0 +1,61 @@
+package ca.dtadmi.gamehubapi.outbox;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the append-once script against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisStreamOutboxSinkIT {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:alpine").withExposedPorts(6379);
+
+    static LettuceConnectionFactory connectionFactory;
+    static StringRedisTemplate template;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        template = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void close() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void redeliveredEventsAreAppendedOnce() {
+        RedisStreamOutboxSink sink = new RedisStreamOutboxSink(template, "it-events", 1000, Duration.ofMinutes(5));
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 12, 0);
+        OutboxEvent first = new OutboxEvent(11, OutboxEvent.SCORE_SAVED, 1, 7L, "ada", "snake", 40, at);
+        OutboxEvent second = new OutboxEvent(10, OutboxEvent.SCORE_SAVED, 2, 8L, "bob", "snake", 30, at);
+
+        sink.publish(List.of(first));
+        // Redelivery of the first event next to a lower id committed later
+        sink.publish(List.of(first, second));
+
+        List<MapRecord<String, Object, Object>> entries = template.opsForStream().read(StreamOffset.fromStart("it-events"));
+        assertThat(entries).extracting(e -> e.getValue().get("outboxId")).containsExactly("11", "10");
+        assertThat(entries.get(1).getValue()).containsEntry("username", "bob").containsEntry("score", "30");
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.util.Collections;
@@ -41,6 +42,9 @@ class ChessRealtimeControllerTest {
     @Mock
     private FeatureFlagsService flags;
 
+    @Mock
+    private ObjectProvider<ScoreIngestStream> scoreIngest;
+
     @InjectMocks
     private ChessRealtimeController controller;
 
@@ -113,7 +117,7 @@ class ChessRealtimeControllerTest {
         env.payload.runId = "dummy";
 
         // When
-        controller.leaderboard(env);
+        controller.leaderboard(env, null);
 
         // Then
         ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
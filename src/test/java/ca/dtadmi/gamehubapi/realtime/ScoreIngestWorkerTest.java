@@ -0,0 +1,208 @@
+package ca.dtadmi.gamehubapi.realtime;
+
+import ca.dtadmi.gamehubapi.features.FeatureFlagsService;
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.Envelope;
+import ca.dtadmi.gamehubapi.realtime.dto.RealtimeDtos.LeaderboardOut;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.GameService;
+import ca.dtadmi.gamehubapi.service.LeaderboardService;
+import ca.dtadmi.gamehubapi.service.RunIdService;
+import ca.dtadmi.gamehubapi.service.ScoreValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ScoreIngestWorkerTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+    @Mock
+    private ScoreIngestStream ingest;
+    @Mock
+    private LeaderboardService leaderboardService;
+    @Mock
+    private RunIdService runIdService;
+    @Mock
+    private FeatureFlagsService flags;
+    @Mock
+    private GameService gameService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SimpMessagingTemplate broker;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ScoreIngestWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        when(ingest.stream()).thenReturn("score-ingest");
+        when(flags.isEnabled("anti_cheat_enabled")).thenReturn(true);
+        worker = worker(true);
+    }
+
+    private ScoreIngestWorker worker(boolean outboxEnabled) {
+        return new ScoreIngestWorker(redis, ingest, leaderboardService, runIdService, new ScoreValidationService(),
+                flags, gameService, userRepository, broker, transactionManager, new SimpleMeterRegistry(), "workers",
+                1, 100, Duration.ofSeconds(1), Duration.ofSeconds(30), 3, outboxEnabled, "inprocess");
+    }
+
+    private static ScoreFrame frame(String nickname, Long userId, int value, String runId) {
+        return frame("snake", "snake:global", nickname, userId, value, runId);
+    }
+
+    private static ScoreFrame frame(String game, String scope, String nickname, Long userId, int value, String runId) {
+        return new ScoreFrame(game, scope, null, nickname, "user", "free", userId, value, runId, false, 0);
+    }
+
+    @Test
+    void frame_roundTripsThroughStreamFields() {
+        ScoreFrame f = frame("Bo", 7L, 120, "run-1").retry();
+
+        assertThat(ScoreFrame.fromFields(f.toFields())).isEqualTo(f);
+        assertThat(f.validated()).isTrue();
+        assertThat(f.attempt()).isEqualTo(1);
+    }
+
+    @Test
+    void process_coalescesBoardWritesAndPersistsOnlyAuthenticatedPlayers() {
+        worker = worker(false);
+        when(runIdService.validateAndConsume(anyString())).thenReturn(true);
+        User bo = new User();
+        when(userRepository.getReferenceById(7L)).thenReturn(bo);
+
+        worker.process(List.of(frame("Bo", 7L, 50, "r1"), frame("Bo", 7L, 80, "r2"), frame("guest1", null, 30, "r3")));
+
+        verify(leaderboardService).submit("snake:global", "Bo", 80);
+        verify(leaderboardService).submit("snake:global", "guest1", 30);
+        verify(leaderboardService, times(2)).submit(anyString(), anyString(), anyInt());
+        verify(gameService).saveScore(bo, "snake", 50);
+        verify(gameService).saveScore(bo, "snake", 80);
+        verify(gameService, times(2)).saveScore(any(), anyString(), anyInt());
+        verify(broker, times(2)).convertAndSend(eq("/topic/snake/leaderboard"), any(Object.class));
+    }
+
+    @Test
+    void process_leavesStoredPlayersGlobalBoardToTheOutbox() {
+        when(runIdService.validateAndConsume(anyString())).thenReturn(true);
+        when(userRepository.getReferenceById(7L)).thenReturn(new User());
+
+        worker.process(List.of(frame("Bo", 7L, 80, "r1"), frame("snake", "room-1", "Bo", 7L, 60, "r2"),
+                frame("guest1", null, 30, "r3")));
+
+        // The stored score reaches snake:global through the outbox projector, under the username
+        verify(leaderboardService, never()).submit(eq("snake:global"), eq("Bo"), anyInt());
+        verify(leaderboardService).submit("room-1", "Bo", 60);
+        verify(leaderboardService).submit("snake:global", "guest1", 30);
+        verify(gameService, times(2)).saveScore(any(), eq("snake"), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void broadcast_ranksOutboxFedPlayersUnderTheirStoredUsername() {
+        when(runIdService.validateAndConsume(anyString())).thenReturn(true);
+        User bo = new User();
+        bo.setUsername("bo_the_great");
+        when(userRepository.getReferenceById(7L)).thenReturn(bo);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(bo));
+        when(leaderboardService.topN("snake:global", 10)).thenReturn(List.of());
+        when(leaderboardService.rankOf("snake:global", "bo_the_great")).thenReturn(4);
+
+        worker.process(List.of(frame("Bo", 7L, 80, "r1")));
+
+        ArgumentCaptor<Envelope<LeaderboardOut>> sent = ArgumentCaptor.forClass(Envelope.class);
+        verify(broker).convertAndSend(eq("/topic/snake/leaderboard"), sent.capture());
+        // No entry made up under the client's nickname; the projector adds the stored one
+        assertThat(sent.getValue().payload.top).isEmpty();
+        assertThat(sent.getValue().payload.yourRank).isEqualTo(4);
+    }
+
+    @Test
+    void process_validatesAgainstEachGamesCap() {
+        when(runIdService.validateAndConsume(anyString())).thenReturn(true);
+
+        worker.process(List.of(frame("checkers", "checkers:global", "Bo", null, 150_000, "r1"),
+                frame("snake", "snake:global", "Bo", null, 150_000, "r2"),
+                frame("snake", "snake:global", "Cy", null, -1, "r3")));
+
+        verify(leaderboardService).submit("snake:global", "Bo", 150_000);
+        verify(leaderboardService, times(1)).submit(anyString(), anyString(), anyInt());
+        // Rejected before the run id is spent
+        verify(runIdService, times(1)).validateAndConsume(anyString());
+    }
+
+    @Test
+    void process_requeuesOnlyTheFrameThatCannotBeStored() {
+        when(runIdService.validateAndConsume(anyString())).thenReturn(true);
+        User bo = new User();
+        bo.setId(7L);
+        User gone = new User();
+        gone.setId(9L);
+        when(userRepository.getReferenceById(7L)).thenReturn(bo);
+        when(userRepository.getReferenceById(9L)).thenReturn(gone);
+        doThrow(new IllegalStateException("fk violation")).when(gameService).saveScore(eq(gone), anyString(), anyInt());
+
+        worker.process(List.of(frame("Bo", 7L, 50, "r1"), frame("Gone", 9L, 40, "r2")));
+
+        // Once in the failed batch transaction, once on its own
+        verify(gameService, times(2)).saveScore(bo, "snake", 50);
+        ArgumentCaptor<ScoreFrame> requeued = ArgumentCaptor.forClass(ScoreFrame.class);
+        verify(ingest, times(1)).enqueue(requeued.capture());
+        assertThat(requeued.getValue().nickname()).isEqualTo("Gone");
+        assertThat(requeued.getValue().validated()).isTrue();
+    }
+
+    @Test
+    void process_dropsFramesWithUnknownRunId() {
+        when(runIdService.validateAndConsume("bad")).thenReturn(false);
+
+        worker.process(List.of(frame("Bo", null, 50, "bad")));
+
+        verify(leaderboardService, never()).submit(anyString(), anyString(), anyInt());
+        verify(ingest, never()).enqueue(any());
+    }
+
+    @Test
+    void process_requeuesValidatedFramesWhenApplyingFails() {
+        when(runIdService.validateAndConsume("r1")).thenReturn(true);
+        doThrow(new IllegalStateException("redis down")).when(leaderboardService).submit(anyString(), anyString(), anyInt());
+
+        worker.process(List.of(frame("Bo", null, 50, "r1")));
+
+        ArgumentCaptor<ScoreFrame> requeued = ArgumentCaptor.forClass(ScoreFrame.class);
+        verify(ingest).enqueue(requeued.capture());
+        assertThat(requeued.getValue().validated()).isTrue();
+
+        // The run id was consumed on the first attempt, so the retry must not check it again
+        worker.process(List.of(requeued.getValue()));
+        verify(runIdService, times(1)).validateAndConsume(anyString());
+    }
+}
@@ -15,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.security.Principal;
@@ -48,6 +49,9 @@ class SnakeRealtimeControllerTest {
     @Mock
     private FeatureFlagsService flags;
 
+    @Mock
+    private ObjectProvider<ScoreIngestStream> scoreIngest;
+
     @InjectMocks
     private SnakeRealtimeController controller;
 
@@ -154,7 +158,7 @@ class SnakeRealtimeControllerTest {
 
     @Test
     void score_oversized_isIgnored() {
-        controller.score(scoreEnv("Bo", 1_000_001));
+        controller.score(scoreEnv("Bo", 1_000_001), null);
         verify(broker, never()).convertAndSend(eq("/topic/snake/leaderboard"), (Object) any());
     }
 
@@ -167,7 +171,7 @@ class SnakeRealtimeControllerTest {
         when(leaderboardService.topN(anyString(), anyInt())).thenReturn(List.of(testEntry));
 
         // When
-        controller.score(scoreEnv("Bo", 123));
+        controller.score(scoreEnv("Bo", 123), null);
 
         // Then
         ArgumentCaptor<Envelope> captor = ArgumentCaptor.forClass(Envelope.class);
@@ -202,7 +206,7 @@ class SnakeRealtimeControllerTest {
     void featureFlag_off_preventsBroadcasts() {
         setRealtimeEnabled(false);
         controller.presence(presenceEnv("Ari", "join"), null);
-        controller.score(scoreEnv("Bo", 123));
+        controller.score(scoreEnv("Bo", 123), null);
         controller.chat(chatEnv("Chen", "hi"));
         verifyNoInteractions(broker);
     }
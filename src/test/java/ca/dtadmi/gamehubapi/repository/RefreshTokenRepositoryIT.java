@@ -0,0 +1,118 @@
+package ca.dtadmi.gamehubapi.repository;
+
+import ca.dtadmi.gamehubapi.BaseIntegrationTest;
+import ca.dtadmi.gamehubapi.model.RefreshToken;
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.service.RefreshTokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native rotation UPDATE ... RETURNING and the chunked purge against Postgres. The V3
+ * backfill of token hashes is covered by {@link SchemaMigrationIT}.
+ */
+public class RefreshTokenRepositoryIT extends BaseIntegrationTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokens;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentRotationsOfOneToken_haveExactlyOneWinner() throws Exception {
+        User user = user("rotator");
+        String token = refreshTokenService.issue(user).getToken();
+        CyclicBarrier start = new CyclicBarrier(4);
+
+        List<CompletableFuture<Optional<RefreshToken>>> rotations = IntStream.range(0, 4)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return refreshTokenService.rotate(token);
+                }))
+                .toList();
+
+        long winners = 0;
+        for (CompletableFuture<Optional<RefreshToken>> rotation : rotations) {
+            Optional<RefreshToken> next = rotation.get(10, TimeUnit.SECONDS);
+            if (next.isPresent()) {
+                winners++;
+                assertThat(next.get().getUser().getId()).isEqualTo(user.getId());
+            }
+        }
+        assertThat(winners).isEqualTo(1);
+        assertThat(refreshTokens.findByTokenHash(RefreshTokenService.hash(token))).get()
+                .extracting(RefreshToken::isRevoked).isEqualTo(true);
+    }
+
+    @Test
+    void replayedOrExpiredToken_isNotRotated() {
+        User user = user("replayer");
+        String token = refreshTokenService.issue(user).getToken();
+        String hash = RefreshTokenService.hash(token);
+
+        assertThat(refreshTokens.revokeForRotation(hash, Instant.now())).contains(user.getId());
+        assertThat(refreshTokens.revokeForRotation(hash, Instant.now())).isEmpty();
+
+        String expired = refreshTokenService.issue(user).getToken();
+        Instant afterExpiry = Instant.now().plus(Duration.ofDays(365));
+        assertThat(refreshTokens.revokeForRotation(RefreshTokenService.hash(expired), afterExpiry)).isEmpty();
+        assertThat(refreshTokens.revokeForRotation("0".repeat(64), Instant.now())).isEmpty();
+    }
+
+    @Test
+    void expiredTokensArePurgedInChunks() {
+        User user = user("purger");
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) save(user, "expired-" + i, now.minus(Duration.ofDays(i + 1)));
+        save(user, "live-0", now.plus(Duration.ofDays(1)));
+        save(user, "live-1", now.plus(Duration.ofDays(2)));
+
+        assertThat(refreshTokens.deleteExpiredChunk(now, 2)).isEqualTo(2);
+        assertThat(refreshTokens.deleteExpiredChunk(now, 2)).isEqualTo(2);
+        assertThat(refreshTokens.deleteExpiredChunk(now, 2)).isEqualTo(1);
+        assertThat(refreshTokens.deleteExpiredChunk(now, 2)).isZero();
+
+        assertThat(refreshTokens.findByTokenHash(RefreshTokenService.hash("live-0"))).isPresent();
+        assertThat(refreshTokens.findByTokenHash(RefreshTokenService.hash("live-1"))).isPresent();
+        assertThat(refreshTokens.findByTokenHash(RefreshTokenService.hash("expired-0"))).isEmpty();
+    }
+
+    private User user(String username) {
+        User u = new User();
+        u.setUsername(username);
+        u.setEmail(username + "@example.com");
+        u.setPassword("x");
+        return userRepository.save(u);
+    }
+
+    private void save(User user, String token, Instant expiresAt) {
+        RefreshToken rt = new RefreshToken();
+        rt.setUser(user);
+        rt.setTokenHash(RefreshTokenService.hash(token));
+        rt.setExpiresAt(expiresAt);
+        refreshTokens.save(rt);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ca.dtadmi.gamehubapi.repository;
+
+import jakarta.persistence.Entity;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Flyway scripts the way deployments meet them: over a schema Hibernate created
+ * (ddl-auto) before the scripts existed, on an empty database ahead of Hibernate, and on
+ * repeated starts with the dev profile's ddl-auto.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SchemaMigrationIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Test
+    void migratesADatabaseCreatedByHibernate() {
+        DataSource ds = database("legacy");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        hibernate(ds, "create");
+        // As created before V3: the plain token column
+        jdbc.execute("ALTER TABLE refresh_tokens RENAME COLUMN token_hash TO token");
+        jdbc.execute("DROP INDEX IF EXISTS idx_refresh_token_hash");
+        jdbc.update("INSERT INTO users (username, email, password) VALUES ('ada', 'ada@example.com', 'x')");
+        long userId = jdbc.queryForObject("SELECT id FROM users WHERE username = 'ada'", Long.class);
+        jdbc.update("INSERT INTO game_scores (user_id, game_type, score, created_at) VALUES (?, 'snake', 42, now() - interval '2 months')", userId);
+        jdbc.update("INSERT INTO refresh_tokens (user_id, token, expires_at, revoked) VALUES (?, 'plain-token', now() + interval '1 day', false)", userId);
+
+        migrate(ds);
+        // Hibernate keeps running ddl-auto=update over the migrated schema
+        hibernate(ds, "update");
+
+        assertThat(relkind(jdbc, "game_scores")).isEqualTo("p");
+        assertThat(jdbc.queryForObject("SELECT score FROM game_scores WHERE user_id = ?", Integer.class, userId)).isEqualTo(42);
+        assertThat(jdbc.queryForObject("SELECT tableoid::regclass::text FROM game_scores WHERE user_id = ?", String.class, userId))
+                .startsWith("game_scores_p");
+        assertThat(jdbc.queryForObject("SELECT token_hash FROM refresh_tokens WHERE user_id = ?", String.class, userId))
+                .isEqualTo(jdbc.queryForObject("SELECT encode(sha256('plain-token'::bytea), 'hex')", String.class));
+        assertNewScoreLands(jdbc, userId);
+        assertThat(relkind(jdbc, "score_outbox")).isEqualTo("r");
+        assertThat(relkind(jdbc, "feature_flags")).isEqualTo("r");
+    }
+
+    @Test
+    void migratesAnEmptyDatabaseAheadOfHibernate() {
+        DataSource ds = database("fresh");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+
+        migrate(ds);
+        hibernate(ds, "update");
+
+        assertThat(relkind(jdbc, "game_scores")).isEqualTo("p");
+        assertThat(relkind(jdbc, "refresh_tokens")).isEqualTo("r");
+        jdbc.update("INSERT INTO users (username, email, password) VALUES ('bob', 'bob@example.com', 'x')");
+        assertNewScoreLands(jdbc, jdbc.queryForObject("SELECT id FROM users WHERE username = 'bob'", Long.class));
+    }
+
+    @Test
+    void devProfileRestartsKeepThePartitionedTable() {
+        DataSource ds = database("dev");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        String ddlAuto = devDdlAuto();
+
+        // Two application starts with the dev profile: Flyway, then Hibernate
+        for (int start = 0; start < 2; start++) {
+            migrate(ds);
+            hibernate(ds, ddlAuto);
+        }
+
+        assertThat(relkind(jdbc, "game_scores")).isEqualTo("p");
+        // What ScorePartitionMaintenance runs at startup and on every cron tick
+        assertThat(jdbc.queryForObject("SELECT ensure_game_scores_partition((now() + interval '6 months')::date)", String.class))
+                .startsWith("game_scores_p");
+        jdbc.update("INSERT INTO users (username, email, password) VALUES ('cy', 'cy@example.com', 'x')");
+        assertNewScoreLands(jdbc, jdbc.queryForObject("SELECT id FROM users WHERE username = 'cy'", Long.class));
+    }
+
+    private static String devDdlAuto() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application-dev.yml"));
+        Properties dev = yaml.getObject();
+        assertThat(dev).isNotNull();
+        return dev.getProperty("spring.jpa.hibernate.ddl-auto");
+    }
+
+    private static void assertNewScoreLands(JdbcTemplate jdbc, long userId) {
+        jdbc.update("INSERT INTO game_scores (user_id, game_type, score, created_at) VALUES (?, 'tetris', 7, now())", userId);
+        assertThat(jdbc.queryForObject("SELECT tableoid::regclass::text FROM game_scores WHERE user_id = ? AND game_type = 'tetris'",
+                String.class, userId)).startsWith("game_scores_p");
+    }
+
+    private static String relkind(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+    }
+
+    private static DataSource database(String name) {
+        new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()))
+                .execute("CREATE DATABASE " + name);
+        String url = "jdbc:postgresql://" + postgres.getHost() + ":" + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + name;
+        return new DriverManagerDataSource(url, postgres.getUsername(), postgres.getPassword());
+    }
+
+    // Same settings as spring.flyway in application.yml
+    private static void migrate(DataSource ds) {
+        Flyway.configure()
+                .dataSource(ds)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Applies {@code ddlAuto} for every entity with Spring Boot's naming strategies, failing on
+     * any DDL error instead of logging it.
+     */
+    private static void hibernate(DataSource ds, String ddlAuto) {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.connection.datasource", ds)
+                .applySetting("hibernate.hbm2ddl.auto", ddlAuto)
+                .applySetting("hibernate.hbm2ddl.halt_on_error", "true")
+                .applySetting("hibernate.physical_naming_strategy", new CamelCaseToUnderscoresNamingStrategy())
+                .applySetting("hibernate.implicit_naming_strategy", new SpringImplicitNamingStrategy())
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+        scanner.findCandidateComponents("ca.dtadmi.gamehubapi").forEach(bd -> {
+            try {
+                sources.addAnnotatedClass(Class.forName(bd.getBeanClassName()));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try (SessionFactory ignored = sources.buildMetadata().buildSessionFactory()) {
+            // Schema work happens while the factory is built
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ca.dtadmi.gamehubapi.security;
+
+import ca.dtadmi.gamehubapi.model.User;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomUserDetailsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private static User alice() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("hash");
+        user.getRoles().add("ROLE_USER");
+        return user;
+    }
+
+    @Test
+    void cachedPrincipalIsReusedUntilUserChanges() {
+        CustomUserDetailsService service = new CustomUserDetailsService(userRepository, true, 100, Duration.ofMinutes(5));
+        when(userRepository.findByUsername("alice@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(alice()));
+
+        assertThat(service.loadUserByUsername("alice@example.com").getUsername()).isEqualTo("alice");
+        assertThat(service.loadUserByUsername("alice@example.com").getUsername()).isEqualTo("alice");
+        verify(userRepository, times(1)).findByEmail("alice@example.com");
+
+        service.onUserChanged(new UserChangedEvent(1L));
+        service.loadUserByUsername("alice@example.com");
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void missingUsersAreNotCached() {
+        CustomUserDetailsService service = new CustomUserDetailsService(userRepository, true, 100, Duration.ofMinutes(5));
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("ghost")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.loadUserByUsername("ghost")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> service.loadUserByUsername("ghost")).isInstanceOf(UsernameNotFoundException.class);
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    void disabledCacheLoadsEveryTime() {
+        CustomUserDetailsService service = new CustomUserDetailsService(userRepository, false, 100, Duration.ofMinutes(5));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice()));
+
+        service.loadUserById(1L);
+        service.loadUserById(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+}
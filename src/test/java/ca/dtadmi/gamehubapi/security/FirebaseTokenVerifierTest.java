@@ -0,0 +1,188 @@
+package ca.dtadmi.gamehubapi.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Offline: a local HTTP server stands in for Google's key endpoint and tokens are signed with a
+ * locally generated key.
+ */
+class FirebaseTokenVerifierTest {
+    private static final String PROJECT = "gamehub-test";
+
+    private final KeyPair keyPair = generateKeyPair();
+    private final AtomicInteger keyFetches = new AtomicInteger();
+    private final AtomicBoolean keyServerDown = new AtomicBoolean();
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private HttpServer keyServer;
+    private FirebaseTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        byte[] jwks = ("{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"k1\","
+                + "\"n\":\"" + base64Url(publicKey.getModulus()) + "\",\"e\":\"" + base64Url(publicKey.getPublicExponent())
+                + "\"}]}").getBytes(StandardCharsets.UTF_8);
+        keyServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        keyServer.createContext("/jwks", exchange -> {
+            keyFetches.incrementAndGet();
+            if (keyServerDown.get()) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=600, must-revalidate");
+            exchange.sendResponseHeaders(200, jwks.length);
+            exchange.getResponseBody().write(jwks);
+            exchange.close();
+        });
+        keyServer.start();
+        FirebasePublicKeys keys = new FirebasePublicKeys(
+                URI.create("http://127.0.0.1:" + keyServer.getAddress().getPort() + "/jwks"),
+                HttpClient.newHttpClient(), scheduler, Duration.ofSeconds(30));
+        verifier = new FirebaseTokenVerifier(PROJECT, keys, 100, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        keyServer.stop(0);
+    }
+
+    private String token(String kid, String audience, Instant expiresAt) {
+        Instant issuedAt = clock.instant().minusSeconds(60);
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setSubject("uid-1")
+                .setAudience(audience)
+                .setIssuer("https://securetoken.google.com/" + audience)
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(expiresAt))
+                .claim("auth_time", issuedAt.getEpochSecond())
+                .claim("email", "alice@example.com")
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    @Test
+    void verifiedTokenIsCachedUntilItExpires() {
+        String token = token("k1", PROJECT, clock.instant().plus(Duration.ofHours(1)));
+
+        FirebaseTokenVerifier.FirebaseIdToken first = verifier.verify(token);
+        assertThat(first.uid()).isEqualTo("uid-1");
+        assertThat(first.email()).isEqualTo("alice@example.com");
+        assertThat(verifier.verify(token)).isSameAs(first);
+        assertThat(keyFetches).hasValue(1);
+
+        clock.advance(Duration.ofHours(1).plusSeconds(1));
+        assertThatThrownBy(() -> verifier.verify(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void rejectsOtherProjectsAndUnknownKeys() {
+        Instant exp = clock.instant().plus(Duration.ofHours(1));
+        assertThatThrownBy(() -> verifier.verify(token("k1", "other-project", exp))).isInstanceOf(JwtException.class);
+
+        assertThatThrownBy(() -> verifier.verify(token("k2", PROJECT, exp))).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifier.verify(token("k2", PROJECT, exp))).isInstanceOf(JwtException.class);
+        // Forged key ids do not make the verifier refetch the key set it has just loaded
+        assertThat(keyFetches).hasValue(1);
+    }
+
+    @Test
+    void unreachableKeyEndpointIsRetriedOncePerRetryDelay() {
+        keyServerDown.set(true);
+        Instant exp = clock.instant().plus(Duration.ofHours(1));
+
+        assertThatThrownBy(() -> verifier.verify(token("k1", PROJECT, exp))).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> verifier.verify(token("k1", PROJECT, exp))).isInstanceOf(JwtException.class);
+
+        // The second request fails fast instead of waiting on the endpoint again
+        assertThat(keyFetches).hasValue(1);
+        verify(scheduler).schedule(any(Runnable.class), eq(Duration.ofSeconds(30).toMillis()), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void keysAreRefreshedInBackgroundAheadOfMaxAge() {
+        verifier.verify(token("k1", PROJECT, clock.instant().plus(Duration.ofHours(1))));
+
+        verify(scheduler).schedule(any(Runnable.class), eq(Duration.ofSeconds(540).toMillis()), eq(TimeUnit.MILLISECONDS));
+        assertThat(FirebasePublicKeys.maxAge("public, max-age=19204, must-revalidate")).isEqualTo(Duration.ofSeconds(19204));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes[0] == 0 && bytes.length > 1) bytes = java.util.Arrays.copyOfRange(bytes, 1, bytes.length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair generateKeyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
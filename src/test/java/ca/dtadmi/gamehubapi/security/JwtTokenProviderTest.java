@@ -1,5 +1,8 @@
 package ca.dtadmi.gamehubapi.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Encoders;
 import io.jsonwebtoken.security.Keys;
@@ -14,6 +17,7 @@ import javax.crypto.SecretKey;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class JwtTokenProviderTest {
 
@@ -47,4 +51,50 @@ class JwtTokenProviderTest {
     void validateToken_returnsFalseForMalformed() {
         assertThat(tokenProvider.validateToken("not-a-jwt")).isFalse();
     }
+
+    @Test
+    void parse_returnsCachedClaimsForSameToken() {
+        String token = tokenProvider.generateToken(authentication);
+
+        Claims first = tokenProvider.parse(token);
+        assertThat(first.getSubject()).isEqualTo("test@example.com");
+        assertThat(tokenProvider.parse(token)).isSameAs(first);
+    }
+
+    @Test
+    void parse_rejectsTamperedAndExpiredTokens() {
+        String token = tokenProvider.generateToken(authentication);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThatThrownBy(() -> tokenProvider.parse(tampered)).isInstanceOf(JwtException.class);
+
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", -1000);
+        String expired = tokenProvider.generateToken(authentication);
+        assertThatThrownBy(() -> tokenProvider.parse(expired)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(tokenProvider.validateToken(expired)).isFalse();
+    }
+
+    @Test
+    void userToken_carriesPrincipalClaims() {
+        ca.dtadmi.gamehubapi.model.User user = new ca.dtadmi.gamehubapi.model.User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        user.getRoles().add("ROLE_USER");
+        user.getRoles().add("ROLE_ADMIN");
+
+        UserPrincipal principal = UserPrincipal.fromClaims(tokenProvider.parse(tokenProvider.generateTokenForUser(user)));
+
+        assertThat(principal).isNotNull();
+        assertThat(principal.getId()).isEqualTo(7L);
+        assertThat(principal.getUsername()).isEqualTo("alice");
+        assertThat(principal.getEmail()).isEqualTo("alice@example.com");
+        assertThat(principal.getAuthorities()).extracting(a -> a.getAuthority())
+                .containsExactly("ROLE_ADMIN", "ROLE_USER");
+    }
+
+    @Test
+    void subjectOnlyToken_hasNoClaimsPrincipal() {
+        String token = tokenProvider.generateTokenForSubject("alice@example.com");
+        assertThat(UserPrincipal.fromClaims(tokenProvider.parse(token))).isNull();
+    }
 }
@@ -0,0 +1,91 @@
+package ca.dtadmi.gamehubapi.security;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final KeyedRateLimiter users = new KeyedRateLimiter(5, Duration.ofMinutes(1), 100, Duration.ofMinutes(10), now::get);
+    private final KeyedRateLimiter guests = new KeyedRateLimiter(2, Duration.ofMinutes(1), 100, Duration.ofMinutes(10), now::get);
+    private final RateLimitFilter filter = new RateLimitFilter(users, guests, 1);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletResponse call(String clientIp) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/games");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Forwarded-For", "1.2.3.4, " + clientIp);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void guestsAreLimitedPerClientIp() throws Exception {
+        assertThat(call("203.0.113.7").getHeader("X-RateLimit-Remaining")).isEqualTo("1");
+        assertThat(call("203.0.113.7").getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+
+        MockHttpServletResponse limited = call("203.0.113.7");
+        assertThat(limited.getStatus()).isEqualTo(429);
+        // One guest token every 30s
+        assertThat(limited.getHeader("Retry-After")).isEqualTo("30");
+
+        // Another client, and a forged leading X-Forwarded-For entry, do not share the bucket
+        assertThat(call("198.51.100.9").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void tokensComeBackAtTheConfiguredRate() throws Exception {
+        call("203.0.113.7");
+        call("203.0.113.7");
+        assertThat(call("203.0.113.7").getStatus()).isEqualTo(429);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertThat(call("203.0.113.7").getHeader("Retry-After")).isEqualTo("10");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        MockHttpServletResponse ok = call("203.0.113.7");
+        assertThat(ok.getStatus()).isEqualTo(200);
+        assertThat(ok.getHeader("X-RateLimit-Remaining")).isEqualTo("0");
+    }
+
+    @Test
+    void authenticatedUsersGetTheirOwnBucketAndLimit() throws Exception {
+        UserPrincipal principal = new UserPrincipal(42L, "alice", "a@example.com", "x", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        MockHttpServletResponse response = call("203.0.113.7");
+
+        assertThat(response.getHeader("X-RateLimit-Limit")).isEqualTo("5");
+        assertThat(response.getHeader("X-RateLimit-Remaining")).isEqualTo("4");
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws Exception {
+        call("203.0.113.7");
+        call("198.51.100.9");
+        assertThat(guests.trackedKeys()).isEqualTo(2);
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        assertThat(guests.trackedKeys()).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package ca.dtadmi.gamehubapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the GCRA script against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisRateLimiterIT {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:alpine").withExposedPorts(6379);
+
+    static LettuceConnectionFactory connectionFactory;
+    static StringRedisTemplate template;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        template = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void close() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void allowsBurstThenRefusesWithRetryAfter() {
+        RedisRateLimiter limiter = new RedisRateLimiter(template, "rl:it:", 5, Duration.ofMinutes(1), false,
+                new SimpleMeterRegistry());
+
+        for (int i = 4; i >= 0; i--) {
+            assertThat(limiter.tryAcquire("k1")).isEqualTo(i);
+        }
+        long denied = limiter.tryAcquire("k1");
+        assertThat(denied).isNegative();
+        // One unit every 12s
+        assertThat(-denied).isBetween(Duration.ofSeconds(11).toNanos(), Duration.ofSeconds(12).toNanos());
+
+        assertThat(limiter.tryAcquire("k2", 3)).isEqualTo(2);
+        assertThat(limiter.tryAcquire("k2", 3)).isNegative();
+        assertThat(template.getExpire("rl:it:k2")).isPositive();
+    }
+}
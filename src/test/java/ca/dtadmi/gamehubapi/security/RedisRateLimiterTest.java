@@ -0,0 +1,57 @@
+package ca.dtadmi.gamehubapi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisRateLimiterTest {
+
+    private final StringRedisTemplate redis = mock(StringRedisTemplate.class);
+
+    private RedisRateLimiter limiter(boolean failOpen) {
+        return new RedisRateLimiter(redis, "rl:test:", 60, Duration.ofMinutes(1), failOpen, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scriptReturns(Object result) {
+        when(redis.execute(any(RedisScript.class), any(List.class), any(), any(), any())).thenReturn(result);
+    }
+
+    @Test
+    void passesIntervalWindowAndCostToTheScript() {
+        scriptReturns(List.of(1L, 54L, 0L));
+
+        assertThat(limiter(true).tryAcquire("ip:1.2.3.4", 5)).isEqualTo(54);
+        // 60 per minute: one unit per second, burst window of a minute
+        verify(redis).execute(eq(RedisRateLimiter.GCRA), eq(List.of("rl:test:ip:1.2.3.4")),
+                eq("1000000"), eq("60000000"), eq("5"));
+    }
+
+    @Test
+    void deniedResultCarriesTheWaitInNanos() {
+        scriptReturns(List.of(0L, 0L, 250_000L));
+
+        assertThat(limiter(true).tryAcquire("ip:1.2.3.4")).isEqualTo(-250_000_000L);
+    }
+
+    @Test
+    void redisFailureFollowsFailOpenSetting() {
+        when(redis.execute(any(RedisScript.class), any(List.class), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(limiter(true).tryAcquire("ip:1.2.3.4")).isEqualTo(60);
+        assertThat(limiter(false).tryAcquire("ip:1.2.3.4")).isEqualTo(-1_000_000_000L);
+    }
+}
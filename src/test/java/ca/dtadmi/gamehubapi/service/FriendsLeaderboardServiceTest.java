@@ -0,0 +1,110 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
+import ca.dtadmi.gamehubapi.graphql.types.TimeWindow;
+import ca.dtadmi.gamehubapi.repository.FriendshipRepository;
+import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
+import ca.dtadmi.gamehubapi.repository.UserBestScoreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FriendsLeaderboardServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private GameScoreRepository gameScoreRepository;
+
+    @Mock
+    private UserBestScoreRepository bestScoreRepository;
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private LoadingCacheRegistry loadingCaches;
+
+    @Mock
+    private Cache cache;
+
+    private FriendsLeaderboardService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new FriendsLeaderboardService(gameScoreRepository, bestScoreRepository, friendshipRepository,
+                cacheManager, loadingCaches);
+    }
+
+    @Test
+    void allTimeBoard_readsBestScoresOfUserAndFriends() {
+        when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of(2L, 3L));
+        when(bestScoreRepository.findRowsForUsers(eq("snake"), anyCollection(), any())).thenReturn(List.of(
+                new LeaderboardRowDto(3L, "cy", 90, T0),
+                new LeaderboardRowDto(1L, "ada", 40, T0)));
+
+        List<LeaderboardRowDto> board = service.loadBoard(FriendsLeaderboardService.boardKey(1L, "snake", TimeWindow.ALL_TIME));
+
+        assertThat(board).extracting(LeaderboardRowDto::rank).containsExactly(1, 2);
+        verify(bestScoreRepository).findRowsForUsers(eq("snake"), eq(Set.of(1L, 2L, 3L)), any());
+        verify(gameScoreRepository, never()).findBestRowsForUsersSince(any(), anyCollection(), any(), any());
+    }
+
+    @Test
+    void windowedBoard_readsOneBestRowPerMember_evenWithUnderscoreSlugs() {
+        when(friendshipRepository.findFriendIds(1L)).thenReturn(List.of(2L));
+        when(gameScoreRepository.findBestRowsForUsersSince(eq("bubble_shooter"), anyCollection(), any(), any())).thenReturn(List.of(
+                new LeaderboardRowDto(2L, "bob", 70, T0),
+                new LeaderboardRowDto(1L, "ada", 50, T0)));
+
+        List<LeaderboardRowDto> board = service.loadBoard(FriendsLeaderboardService.boardKey(1L, "bubble_shooter", TimeWindow.WEEK));
+
+        assertThat(board).extracting(LeaderboardRowDto::username).containsExactly("bob", "ada");
+        assertThat(board).extracting(LeaderboardRowDto::rank).containsExactly(1, 2);
+        // The limit applies to members, not to raw runs
+        verify(gameScoreRepository).findBestRowsForUsersSince(eq("bubble_shooter"), eq(Set.of(1L, 2L)), any(),
+                eq(PageRequest.of(0, FriendsLeaderboardService.MAX_MEMBERS)));
+    }
+
+    @Test
+    void scoreSaved_evictsBoardsOfScorerAndTheirFriends() {
+        when(cacheManager.getCache(FriendsLeaderboardService.FRIENDS_CACHE)).thenReturn(cache);
+        when(friendshipRepository.findUserIdsHavingFriend(1L)).thenReturn(List.of(2L));
+
+        service.onScoreSaved(new ScoreSavedEvent(10L, 1L, "snake", 99, T0));
+
+        for (TimeWindow window : TimeWindow.values()) {
+            verify(cache).evict(FriendsLeaderboardService.boardKey(1L, "snake", window));
+            verify(cache).evict(FriendsLeaderboardService.boardKey(2L, "snake", window));
+        }
+    }
+
+    @Test
+    void scoreSaved_upsertsBestScore() {
+        service.recordBestScore(new ScoreSavedEvent(10L, 1L, "snake", 99, T0));
+
+        verify(bestScoreRepository).upsertIfBetter(1L, "snake", 99, T0);
+    }
+}
@@ -1,17 +1,30 @@
 package ca.dtadmi.gamehubapi.service;
 
+import ca.dtadmi.gamehubapi.config.LoadingCacheRegistry;
+import ca.dtadmi.gamehubapi.dto.LeaderboardRowDto;
 import ca.dtadmi.gamehubapi.model.GameScore;
 import ca.dtadmi.gamehubapi.model.User;
 import ca.dtadmi.gamehubapi.repository.GameScoreRepository;
 import ca.dtadmi.gamehubapi.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -25,6 +38,15 @@ class GameServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private LoadingCacheRegistry loadingCaches;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
     @InjectMocks
     private GameService gameService;
 
@@ -57,5 +79,56 @@ class GameServiceTest {
         assertEquals(user, result.getUser());
 
         verify(gameScoreRepository).save(any(GameScore.class));
+        verify(events).publishEvent(new ScoreSavedEvent(1L, null, gameType, score, null));
+    }
+
+    @Test
+    void saveScore_mergesIntoCachedLeaderboard_andLeavesOtherGamesCached() {
+        CaffeineCacheManager caches = new CaffeineCacheManager();
+        LoadingCacheRegistry registry = new LoadingCacheRegistry(caches, new SimpleMeterRegistry(),
+                Duration.ofMinutes(1), Duration.ofMinutes(5), 100, 1);
+        GameService service = new GameService(gameScoreRepository, caches, registry, events);
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("ari");
+
+        List<LeaderboardRowDto> snakeTop = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            snakeTop.add(rowOf(i + 1, 1000 - i * 100, i));
+        }
+        Cache leaderboard = caches.getCache("leaderboard");
+        leaderboard.put("snake", snakeTop);
+        leaderboard.put("tetris", List.of(rowOf(1, 50, 0)));
+        leaderboard.put("ALL", List.of());
+        caches.getCache("userScores").put("7_ALL", List.of());
+
+        when(gameScoreRepository.save(any(GameScore.class))).thenAnswer(inv -> {
+            GameScore gs = inv.getArgument(0);
+            gs.setCreatedAt(LocalDateTime.now());
+            return gs;
+        });
+        service.saveScore(user, "snake", 550);
+
+        @SuppressWarnings("unchecked")
+        List<LeaderboardRowDto> merged = leaderboard.get("snake", List.class);
+        assertEquals(10, merged.size());
+        assertEquals(550, merged.get(5).score());
+        assertEquals(6, merged.get(5).rank());
+        assertEquals("ari", merged.get(5).username());
+        assertEquals(200, merged.get(9).score());
+        assertEquals(10, merged.get(9).rank());
+        assertNotNull(cached(leaderboard, "tetris"));
+        assertNull(cached(leaderboard, "ALL"));
+        assertNull(cached(caches.getCache("userScores"), "7_ALL"));
+        registry.destroy();
+    }
+
+    // Peek without triggering the loading cache's loader
+    private Object cached(Cache cache, Object key) {
+        return ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache()).asMap().get(key);
+    }
+
+    private LeaderboardRowDto rowOf(int rank, int score, int minutesAgo) {
+        return new LeaderboardRowDto(rank, 99L, "other", score, LocalDateTime.now().minusMinutes(minutesAgo + 1));
     }
 }
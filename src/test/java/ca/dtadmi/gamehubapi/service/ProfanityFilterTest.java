@@ -0,0 +1,60 @@
+package ca.dtadmi.gamehubapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfanityFilterTest {
+
+    private final ProfanityFilter filter = new ProfanityFilter(List.of("badword", "curse", "ass", "asshole", "he"));
+
+    @Test
+    void cleanMessagesAreReturnedAsIs() {
+        String clean = "gg everyone, rematch in five?";
+        assertThat(filter.filter(clean)).isSameAs(clean);
+        assertThat(filter.filter("")).isEmpty();
+        assertThat(filter.filter(null)).isNull();
+    }
+
+    @Test
+    void masksWholeWordsKeepingFirstAndLastLetter() {
+        assertThat(filter.filter("badword here")).isEqualTo("b*****d here");
+        assertThat(filter.filter("you BadWord, curse!")).isEqualTo("you B*****d, c***e!");
+        assertThat(filter.filter("asshole")).isEqualTo("a*****e");
+        assertThat(filter.filter("ass")).isEqualTo("a*s");
+        assertThat(filter.filter("he said")).isEqualTo("** said");
+    }
+
+    @Test
+    void foldsLeetspeakSeparatorsAndLookAlikes() {
+        assertThat(filter.filter("b4dw0rd")).isEqualTo("b*****d");
+        assertThat(filter.filter("b.a.d.w.o.r.d")).isEqualTo("b.*.*.*.*.*.d");
+        assertThat(filter.filter("@$$hole")).isEqualTo("@*****e");
+        // Cyrillic а and о, a zero-width space and a fullwidth D
+        assertThat(filter.filter("b\u0430dw\u200B\u043Er\uFF44")).isEqualTo("b***\u200B**\uFF44");
+        assertThat(filter.filter("cürsé")).isEqualTo("c***é");
+    }
+
+    @Test
+    void ignoresMatchesInsideWordsAndNumbers() {
+        String text = "classic badwords, the hello 455 points, curses";
+        assertThat(filter.filter(text)).isSameAs(text);
+        assertThat(filter.filter("score 455 ass")).isEqualTo("score 455 a*s");
+    }
+
+    @Test
+    void loadsDictionaryResources() {
+        ProfanityFilter fromText = new ProfanityFilter(new ByteArrayResource(
+                "# comment\n\nBadWord\n two words \n".getBytes(StandardCharsets.UTF_8)));
+        assertThat(fromText.filter("badword two words")).isEqualTo("b*****d two words");
+
+        ProfanityFilter bundled = new ProfanityFilter(new ClassPathResource("profanity/words.txt"));
+        assertThat(bundled.filter("what the sh1t")).isEqualTo("what the s**t");
+        assertThat(bundled.filter("a classic assessment")).isEqualTo("a classic assessment");
+    }
+}
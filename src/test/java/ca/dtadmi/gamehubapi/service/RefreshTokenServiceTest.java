@@ -42,6 +42,8 @@ class RefreshTokenServiceTest {
         RefreshToken rt = service.issue(u);
         assertThat(rt.getUser()).isEqualTo(u);
         assertThat(rt.getToken()).isNotBlank();
+        // Only the hash is persisted
+        assertThat(rt.getTokenHash()).isEqualTo(RefreshTokenService.hash(rt.getToken())).hasSize(64);
         assertThat(rt.isRevoked()).isFalse();
         assertThat(rt.getExpiresAt()).isAfter(Instant.now());
     }
@@ -52,7 +54,7 @@ class RefreshTokenServiceTest {
         valid.setToken("t1");
         valid.setRevoked(false);
         valid.setExpiresAt(Instant.now().plusSeconds(60));
-        when(refreshTokenRepository.findByToken("t1")).thenReturn(Optional.of(valid));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("t1"))).thenReturn(Optional.of(valid));
 
         assertThat(service.findValid("t1")).isPresent();
 
@@ -60,14 +62,14 @@ class RefreshTokenServiceTest {
         revoked.setToken("t2");
         revoked.setRevoked(true);
         revoked.setExpiresAt(Instant.now().plusSeconds(60));
-        when(refreshTokenRepository.findByToken("t2")).thenReturn(Optional.of(revoked));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("t2"))).thenReturn(Optional.of(revoked));
         assertThat(service.findValid("t2")).isEmpty();
 
         RefreshToken expired = new RefreshToken();
         expired.setToken("t3");
         expired.setRevoked(false);
         expired.setExpiresAt(Instant.now().minusSeconds(60));
-        when(refreshTokenRepository.findByToken("t3")).thenReturn(Optional.of(expired));
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("t3"))).thenReturn(Optional.of(expired));
         assertThat(service.findValid("t3")).isEmpty();
     }
 
@@ -75,24 +77,36 @@ class RefreshTokenServiceTest {
     void rotate_revokesOldAndIssuesNew() {
         User u = new User();
         u.setId(2L);
-        RefreshToken existing = new RefreshToken();
-        existing.setUser(u);
-        existing.setToken("old");
-        existing.setExpiresAt(Instant.now().plusSeconds(60));
-        existing.setRevoked(false);
-
+        when(refreshTokenRepository.revokeForRotation(eq(RefreshTokenService.hash("old")), any()))
+                .thenReturn(Optional.of(2L));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(u));
         when(refreshTokenRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
-        RefreshToken rotated = service.rotate(existing);
-
-        // existing should be revoked and saved
-        assertThat(existing.isRevoked()).isTrue();
-        verify(refreshTokenRepository, times(2)).save(any());
+        RefreshToken rotated = service.rotate("old").orElseThrow();
 
         // new token should be for the same user and not revoked
         assertThat(rotated.getUser()).isEqualTo(u);
-        assertThat(rotated.getToken()).isNotBlank();
+        assertThat(rotated.getToken()).isNotBlank().isNotEqualTo("old");
         assertThat(rotated.isRevoked()).isFalse();
+        verify(refreshTokenRepository, times(1)).save(any());
+    }
+
+    @Test
+    void rotate_usedOrUnknownTokenIssuesNothing() {
+        // The conditional UPDATE matched no live token (e.g. a concurrent refresh won)
+        when(refreshTokenRepository.revokeForRotation(eq(RefreshTokenService.hash("used")), any()))
+                .thenReturn(Optional.empty());
+
+        assertThat(service.rotate("used")).isEmpty();
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void cleanupExpired_deletesInChunksUntilShort() {
+        when(refreshTokenRepository.deleteExpiredChunk(any(), eq(5000))).thenReturn(5000, 5000, 12);
+
+        assertThat(service.cleanupExpired()).isEqualTo(10_012);
+        verify(refreshTokenRepository, times(3)).deleteExpiredChunk(any(), eq(5000));
     }
 
     @Test
@@ -0,0 +1,87 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.RowWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoreExportServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Test
+    void csv_writesHeader_andQuotesFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RowWriter writer = ScoreExportService.writer(Format.CSV, out)) {
+            writer.write(1, 7, "ada", "snake", 420, T0);
+            writer.write(2, 8, "bob, \"the\" builder", "snake", 10, null);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,user_id,username,game_type,score,created_at\n"
+                        + "1,7,ada,snake,420,2024-05-01T12:00\n"
+                        + "2,8,\"bob, \"\"the\"\" builder\",snake,10,\n");
+    }
+
+    @Test
+    void csv_guardsFormulaLikeText() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RowWriter writer = ScoreExportService.writer(Format.CSV, out)) {
+            writer.write(1, 7, "=HYPERLINK(\"http://x\")", "snake", 1, null);
+            writer.write(2, 8, "+1", "snake", 2, null);
+            writer.write(3, 9, "-2", "snake", 3, null);
+            writer.write(4, 10, "@SUM(A1)", "snake", 4, null);
+            writer.write(5, 11, "\tcmd", "snake", 5, null);
+            writer.write(6, 12, "a=b", "snake", 6, null);
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "id,user_id,username,game_type,score,created_at",
+                "1,7,\"'=HYPERLINK(\"\"http://x\"\")\",snake,1,",
+                "2,8,'+1,snake,2,",
+                "3,9,'-2,snake,3,",
+                "4,10,'@SUM(A1),snake,4,",
+                "5,11,'\tcmd,snake,5,",
+                "6,12,a=b,snake,6,");
+        assertThat(ScoreExportService.stripFormulaGuard("'=1+1")).isEqualTo("=1+1");
+        assertThat(ScoreExportService.stripFormulaGuard("'quoted")).isEqualTo("'quoted");
+    }
+
+    @Test
+    void ndjson_writesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RowWriter writer = ScoreExportService.writer(Format.NDJSON, out)) {
+            writer.write(1, 7, "ada", "snake", 420, T0);
+            writer.write(2, 8, "line\nbreak", "tetris", 10, T0);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[2]).isEmpty();
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertThat(second.get("username").asText()).isEqualTo("line\nbreak");
+        assertThat(second.get("score").asInt()).isEqualTo(10);
+    }
+
+    @Test
+    void ndjson_emptyExport_isEmpty() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScoreExportService.writer(Format.NDJSON, out).close();
+
+        assertThat(out.size()).isZero();
+    }
+
+    @Test
+    void format_parsesCaseInsensitively() {
+        assertThat(Format.parse("csv")).isEqualTo(Format.CSV);
+        assertThat(Format.parse("NDJSON")).isEqualTo(Format.NDJSON);
+        assertThat(Format.parse("xml")).isNull();
+    }
+}
@@ -0,0 +1,103 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.dto.UserRefDto;
+import ca.dtadmi.gamehubapi.outbox.OutboxEvent;
+import ca.dtadmi.gamehubapi.outbox.ScoreOutbox;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the import's staging, partitioning and merge statements against a real Postgres migrated
+ * by Flyway, including the outbox events for the bests it raises.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ScoreImportServiceIT {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    static DataSource dataSource;
+    static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void schema() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+        // The Hibernate-owned tables the merge touches, as ddl-auto creates them
+        jdbc.execute("CREATE TABLE users (id bigserial PRIMARY KEY, username varchar(255) NOT NULL UNIQUE)");
+        jdbc.execute("CREATE TABLE user_best_scores (id bigserial PRIMARY KEY, user_id bigint NOT NULL REFERENCES users (id), "
+                + "game_type varchar(255) NOT NULL, score integer NOT NULL, achieved_at timestamp NOT NULL, "
+                + "CONSTRAINT uk_best_score_user_game UNIQUE (user_id, game_type))");
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void importQueuesOutboxEventsForRaisedBestsOnly() {
+        long ada = user("ada");
+        long bob = user("bob");
+        jdbc.update("INSERT INTO user_best_scores (user_id, game_type, score, achieved_at) VALUES (?, 'snake', 100, now()), "
+                + "(?, 'snake', 10, now())", ada, bob);
+        UserRepository users = mock(UserRepository.class);
+        when(users.findRefsByUsernameIn(anyCollection()))
+                .thenReturn(List.of(new UserRefDto(ada, "ada"), new UserRefDto(bob, "bob")));
+        ScoreImportService service = new ScoreImportService(dataSource, new DataSourceTransactionManager(dataSource),
+                users, new ScoreValidationService(), new ConcurrentMapCacheManager(), new ObjectMapper(),
+                new SimpleMeterRegistry(), 100, true);
+        String csv = "username,game_type,score,created_at\n"
+                + "ada,snake,50,2023-01-10T08:00\n"
+                + "ada,snake,300,2023-02-03T09:30\n"
+                + "ada,tetris,10,2023-02-04T10:00\n"
+                + "bob,snake,5,2023-03-01T11:00\n";
+
+        service.importScores(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), Format.CSV);
+
+        assertThat(jdbc.queryForList("SELECT DISTINCT tableoid::regclass::text FROM game_scores", String.class))
+                .allMatch(partition -> partition.startsWith("game_scores_p"));
+        long best = jdbc.queryForObject("SELECT id FROM game_scores WHERE user_id = ? AND score = 300", Long.class, ada);
+        long tetris = jdbc.queryForObject("SELECT id FROM game_scores WHERE user_id = ? AND game_type = 'tetris'", Long.class, ada);
+        // Read back the way the relay does, so the payload must match ScoreOutbox's own
+        List<OutboxEvent> events = new ScoreOutbox(jdbc, users, new ObjectMapper().findAndRegisterModules())
+                .claim(10, Duration.ofSeconds(30));
+        assertThat(events).extracting(OutboxEvent::type).containsOnly(OutboxEvent.SCORE_SAVED);
+        assertThat(events).extracting(OutboxEvent::scoreId, OutboxEvent::username, OutboxEvent::gameType,
+                        OutboxEvent::score, OutboxEvent::createdAt)
+                .containsExactlyInAnyOrder(
+                        tuple(best, "ada", "snake", 300, LocalDateTime.of(2023, 2, 3, 9, 30)),
+                        tuple(tetris, "ada", "tetris", 10, LocalDateTime.of(2023, 2, 4, 10, 0)));
+    }
+
+    private static long user(String username) {
+        return jdbc.queryForObject("INSERT INTO users (username) VALUES (?) RETURNING id", Long.class, username);
+    }
+}
@@ -0,0 +1,168 @@
+package ca.dtadmi.gamehubapi.service;
+
+import ca.dtadmi.gamehubapi.dto.UserRefDto;
+import ca.dtadmi.gamehubapi.repository.UserRepository;
+import ca.dtadmi.gamehubapi.service.ScoreExportService.Format;
+import ca.dtadmi.gamehubapi.service.ScoreImportService.ImportRow;
+import ca.dtadmi.gamehubapi.service.ScoreImportService.Progress;
+import ca.dtadmi.gamehubapi.service.ScoreImportService.RowReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScoreImportServiceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    private ScoreImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ScoreImportService(dataSource, transactionManager, userRepository, new ScoreValidationService(),
+                cacheManager, new ObjectMapper(), new SimpleMeterRegistry(), 100, true);
+    }
+
+    @Test
+    void csv_readsExportFormat_andSkipsInvalidRows() throws Exception {
+        String csv = "id,user_id,username,game_type,score,created_at\r\n"
+                + "1,7,ada,snake,420,2024-05-01T12:00\r\n"
+                + "2,8,\"bob, \"\"the\"\"\nbuilder\",tetris,10,\n"
+                + "3,9,cy,snake,-5,2024-05-01T12:00\n"
+                + "4,9,cy,snake,12,not-a-date\n";
+        Progress progress = new Progress("p");
+
+        List<ImportRow> rows = readAll(Format.CSV, csv, progress);
+
+        assertThat(rows).extracting(ImportRow::username).containsExactly("ada", "bob, \"the\"\nbuilder");
+        assertThat(rows.get(0).createdAt()).isEqualTo(LocalDateTime.of(2024, 5, 1, 12, 0));
+        assertThat(rows.get(1).createdAt()).isNotNull();
+        assertThat(progress.read.get()).isEqualTo(4);
+        assertThat(progress.rejected.get()).isEqualTo(2);
+    }
+
+    @Test
+    void csv_stripsTheExportsFormulaGuard() throws Exception {
+        String csv = "username,game_type,score\n'=ada,snake,1\n'bob,snake,2\n";
+
+        List<ImportRow> rows = readAll(Format.CSV, csv, new Progress("p"));
+
+        assertThat(rows).extracting(ImportRow::username).containsExactly("=ada", "'bob");
+    }
+
+    @Test
+    void csv_withoutRequiredColumns_isRefused() {
+        assertThatThrownBy(() -> readAll(Format.CSV, "user,points\nada,1\n", new Progress("p")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ndjson_readsExportFormat() throws Exception {
+        String ndjson = "{\"id\":1,\"user_id\":7,\"username\":\"ada\",\"game_type\":\"snake\",\"score\":420,\"created_at\":\"2024-05-01T12:00\"}\n"
+                + "{\"username\":\"bob\",\"game_type\":\"SNAKE\",\"score\":\"15\"}\n"
+                + "{\"username\":\"\",\"game_type\":\"snake\",\"score\":1}\n";
+        Progress progress = new Progress("p");
+
+        List<ImportRow> rows = readAll(Format.NDJSON, ndjson, progress);
+
+        assertThat(rows).extracting(ImportRow::gameType).containsExactly("snake", "snake");
+        assertThat(rows).extracting(ImportRow::score).containsExactly(420, 15);
+        assertThat(progress.rejected.get()).isEqualTo(1);
+    }
+
+    @Test
+    void ndjson_malformedLine_isRejectedAndReadingContinues() throws Exception {
+        String ndjson = "{\"username\":\"ada\",\"game_type\":\"snake\",\"score\":1}\n"
+                + "{\"username\":\"bob\",\"game_type\":\"snake\",\n"
+                + "\n"
+                + "[1,2]\n"
+                + "null\n"
+                + "{\"username\":\"cy\",\"game_type\":\"snake\",\"score\":3}\n";
+        Progress progress = new Progress("p");
+
+        List<ImportRow> rows = readAll(Format.NDJSON, ndjson, progress);
+
+        assertThat(rows).extracting(ImportRow::username).containsExactly("ada", "cy");
+        assertThat(progress.read.get()).isEqualTo(5);
+        assertThat(progress.rejected.get()).isEqualTo(3);
+    }
+
+    @Test
+    void copyRows_doNotDependOnTheMemoKeepingEntries() {
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(userRepository.findRefsByUsernameIn(anyCollection()))
+                .thenReturn(List.of(new UserRefDto(7L, "ada"), new UserRefDto(8L, "bob")));
+        // Evicts on every write, like a full TinyLFU cache refusing new entries
+        Cache<String, Long> userIds = Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).build();
+        Progress progress = new Progress("p");
+
+        String rows = service.toCopyRows(List.of(
+                new ImportRow("ada", "snake", 1, t),
+                new ImportRow("bob", "snake", 2, t)), userIds, progress);
+
+        assertThat(rows).isEqualTo("7,snake,1,2024-05-01T12:00\n8,snake,2,2024-05-01T12:00\n");
+        assertThat(progress.unknownUsers.get()).isZero();
+    }
+
+    @Test
+    void copyRows_resolveUsernamesOncePerBatch_andSkipUnknownUsers() {
+        LocalDateTime t = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(userRepository.findRefsByUsernameIn(anyCollection())).thenReturn(List.of(new UserRefDto(7L, "ada")));
+        Cache<String, Long> userIds = Caffeine.newBuilder().build();
+        Progress progress = new Progress("p");
+
+        String first = service.toCopyRows(List.of(
+                new ImportRow("ada", "snake", 1, t),
+                new ImportRow("ghost", "snake", 2, t),
+                new ImportRow("ada", "snake", 3, t)), userIds, progress);
+        String second = service.toCopyRows(List.of(new ImportRow("ada", "tetris", 4, t),
+                new ImportRow("ghost", "tetris", 5, t)), userIds, progress);
+
+        assertThat(first).isEqualTo("7,snake,1,2024-05-01T12:00\n7,snake,3,2024-05-01T12:00\n");
+        assertThat(second).isEqualTo("7,tetris,4,2024-05-01T12:00\n");
+        assertThat(progress.staged.get()).isEqualTo(3);
+        assertThat(progress.unknownUsers.get()).isEqualTo(2);
+        verify(userRepository, times(1)).findRefsByUsernameIn(anyCollection());
+    }
+
+    private List<ImportRow> readAll(Format format, String body, Progress progress) throws Exception {
+        List<ImportRow> rows = new ArrayList<>();
+        try (RowReader reader = service.reader(format, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+            ImportRow row;
+            while ((row = reader.next(progress)) != null) rows.add(row);
+        }
+        return rows;
+    }
+}
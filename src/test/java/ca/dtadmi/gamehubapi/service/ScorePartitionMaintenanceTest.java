@@ -0,0 +1,71 @@
+package ca.dtadmi.gamehubapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScorePartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbc;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void expired_selectsOnlyMonthlyPartitionsBeforeCutoff() {
+        List<String> partitions = List.of("game_scores_default", "game_scores_p202312", "game_scores_p202401",
+                "game_scores_p202402", "game_scores_archive");
+
+        assertThat(ScorePartitionMaintenance.expired(partitions, YearMonth.of(2024, 2)))
+                .containsExactly("game_scores_p202312", "game_scores_p202401");
+    }
+
+    @Test
+    void futurePartitions_ensuredThroughMonthsAhead() {
+        ScorePartitionMaintenance maintenance = maintenance(2);
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class))).thenReturn(true);
+        when(jdbc.queryForObject(eq("SELECT ensure_game_scores_partition(?)"), eq(String.class), any(Object[].class)))
+                .thenAnswer(inv -> "p" + inv.getArgument(2));
+
+        List<String> ensured = maintenance.createFuturePartitions(YearMonth.of(2024, 11));
+
+        assertThat(ensured).containsExactly("p2024-11-01", "p2024-12-01", "p2025-01-01");
+        verify(jdbc).queryForObject("SELECT ensure_game_scores_partition(?)", String.class,
+                Date.valueOf(LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void futurePartitions_skippedWhenAnotherNodeHoldsTheLock() {
+        ScorePartitionMaintenance maintenance = maintenance(2);
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class))).thenReturn(false);
+
+        assertThat(maintenance.createFuturePartitions(YearMonth.of(2024, 11))).isEmpty();
+        verify(jdbc, never()).queryForObject(eq("SELECT ensure_game_scores_partition(?)"), eq(String.class), any(Object[].class));
+    }
+
+    private ScorePartitionMaintenance maintenance(int monthsAhead) {
+        return new ScorePartitionMaintenance(jdbc, dataSource, transactionManager, monthsAhead, 0, "target/archive");
+    }
+}